@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.align;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.SubtreeHashes;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.model.VariationsFactory;
+
+/**
+ * The state shared by all the steps of an alignment.
+ *
+ * @param <T> the type of node content for the trees being aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+// Package visible only
+class AlignmentContext<T> {
+
+    private final Comparator<Node<T>> comparator;
+    private final VariationsFactory factory;
+    private final Function<? super T, ?> equivalence;
+    private final List<AlignmentListener<T>> listeners;
+    private final int nbTrees;
+    private final List<SubtreeHashes<T>> hashes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param comparator  the comparator to use when aligning the trees
+     * @param factory     the factory creating the variations of each aligned node
+     * @param equivalence the function giving the key the variations are compared by, or {@code null} to compare the
+     *                    contents themselves
+     * @param listeners   the listeners to notify of each aligned node
+     * @param nbTrees     the number of trees being aligned
+     * @param hashes      the subtree hashes of each tree being aligned, or {@code null} if identical subtrees are not
+     *                    skipped
+     */
+    public AlignmentContext(Comparator<Node<T>> comparator, VariationsFactory factory,
+                            Function<? super T, ?> equivalence, List<AlignmentListener<T>> listeners, int nbTrees,
+                            List<SubtreeHashes<T>> hashes) {
+        this.comparator = comparator;
+        this.factory = factory;
+        this.equivalence = equivalence;
+        this.listeners = listeners;
+        this.nbTrees = nbTrees;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns the comparator to use when aligning the trees.
+     *
+     * @return the comparator
+     */
+    public Comparator<Node<T>> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * Creates the variations of an aligned node, compared using the equivalence of the alignment.
+     *
+     * @param line the contents of the aligned node, one per tree, {@code null} where the node is absent
+     * @return the variations
+     */
+    public Variations<T> createVariations(List<T> line) {
+        return factory.create(line, equivalence);
+    }
+
+    /**
+     * Returns the number of trees being aligned.
+     *
+     * @return the number of trees
+     */
+    public int getNbTrees() {
+        return nbTrees;
+    }
+
+    /**
+     * Returns the subtree hashes of each tree being aligned.
+     *
+     * @return the hashes, in the order of the trees, or {@code null} if identical subtrees are not skipped
+     */
+    public List<SubtreeHashes<T>> getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Notifies the listeners that a node has been created.
+     *
+     * @param node   the aligned node
+     * @param parent the parent of the aligned node, or {@code null} for the root
+     */
+    public void fireNodeAligned(Node<Variations<T>> node, Node<Variations<T>> parent) {
+        for (AlignmentListener<T> listener : listeners) {
+            listener.nodeAligned(node, parent);
+        }
+    }
+
+    /**
+     * Notifies the listeners that the children of a node have been aligned.
+     *
+     * @param node the aligned node
+     */
+    public void fireSubtreeAligned(Node<Variations<T>> node) {
+        for (AlignmentListener<T> listener : listeners) {
+            listener.subtreeAligned(node);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.align;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * A listener notified of each node produced while aligning trees, so that indexes or statistics on the result can be
+ * built in the same pass.
+ * <p/>
+ * All methods do nothing by default.
+ *
+ * @param <T> the type of node content for the trees being aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see TreeAligner#addListener(AlignmentListener)
+ */
+public interface AlignmentListener<T> {
+
+    /**
+     * Called when a node has been created, before its children are aligned.
+     * <p/>
+     * Nodes are thus notified in pre-order: a parent is always notified before its children.
+     *
+     * @param node   the aligned node
+     * @param parent the parent of the aligned node, or {@code null} for the root
+     */
+    default void nodeAligned(Node<Variations<T>> node, Node<Variations<T>> parent) {
+    }
+
+    /**
+     * Called once the children of a node have been aligned and set.
+     * <p/>
+     * Nodes are thus notified in post-order: all children are notified before their parent.
+     *
+     * @param node the aligned node
+     */
+    default void subtreeAligned(Node<Variations<T>> node) {
+    }
+}
@@ -17,11 +17,13 @@
 package org.keyboardplaying.tree.align;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.ListIterator;
 
 import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.SubtreeHashes;
 import org.keyboardplaying.tree.model.Variations;
 
 /**
@@ -29,8 +31,13 @@ import org.keyboardplaying.tree.model.Variations;
  * <p/>
  * This is package-visible only because only the tree aligner should be able to use it.
  * <p/>
- * This class recursively calls itself rather than calling recursively a method. This makes reading the scope and
- * maintaining the code easier.
+ * The subtrees are aligned depth-first without recursion: each level being aligned is kept on an explicit stack, so
+ * that the depth of the trees is only limited by the memory. The buffers of each level are reused for all the nodes
+ * aligned at that depth.
+ * <p/>
+ * When the trees are hashed, the children of a line whose subtrees have the same hash in all trees containing them are
+ * aligned in lockstep, without calling the comparator: the trees are sorted the same way, so that their children
+ * match one to one.
  *
  * @param <T> the type of node content for the trees being aligned
  * @author Cyrille Chopelet (https://keyboardplaying.org)
@@ -39,25 +46,42 @@ import org.keyboardplaying.tree.model.Variations;
 // Package visible only
 class ChildrenAligner<T> {
 
-    private Comparator<Node<T>> comparator;
-    private List<ListIterator<Node<T>>> iterators;
-    private int nbTrees;
+    private final AlignmentContext<T> context;
+    private final Comparator<Node<T>> comparator;
+    private final Node<Variations<T>> parent;
+    private final List<List<Node<T>>> variations;
+    private final int size;
+    /** The subtree hashes of each tree, or {@code null} if identical subtrees are not skipped. */
+    private final List<SubtreeHashes<T>> hashes;
+    /** {@code true} if the subtrees of the parent are identical in all trees containing it. */
+    private final boolean identical;
+
+    /** The levels being aligned, the first one for the children of the parent; kept to be reused. */
+    private final List<Level<T>> levels = new ArrayList<>();
+    /** The variations of the line being aligned. */
+    private final List<T> line;
+    /** For each tree, {@code true} if its next child belongs to the line being aligned. */
+    private final boolean[] taken;
 
     /**
      * Creates a new instance.
      *
-     * @param comparator the comparator to use when aligning the trees
-     * @param nbTrees    the number of trees being aligned (avoid recounting)
+     * @param context    the state of the alignment
+     * @param parent     the aligned node whose children are being aligned
      * @param variations the lists of children to align
+     * @param identical  {@code true} if the subtrees of the parent are identical in all trees containing it
      */
-    public ChildrenAligner(Comparator<Node<T>> comparator, int nbTrees, List<List<Node<T>>> variations) {
-        this.comparator = comparator;
-
-        this.nbTrees = nbTrees;
-        this.iterators = new ArrayList<>();
-        for (List<Node<T>> children : variations) {
-            this.iterators.add(children.listIterator());
-        }
+    public ChildrenAligner(AlignmentContext<T> context, Node<Variations<T>> parent, List<List<Node<T>>> variations,
+                           boolean identical) {
+        this.context = context;
+        this.comparator = context.getComparator();
+        this.hashes = context.getHashes();
+        this.identical = identical;
+        this.parent = parent;
+        this.variations = variations;
+        this.size = variations.size();
+        this.line = new ArrayList<>(Collections.<T>nCopies(size, null));
+        this.taken = new boolean[size];
     }
 
     /**
@@ -66,104 +90,180 @@ class ChildrenAligner<T> {
      * @return the aligned children
      */
     public List<Node<Variations<T>>> alignChildren() {
-        List<Node<Variations<T>>> aligned = new ArrayList<>();
-        int size = iterators.size();
+        Level<T> first = level(0);
+        first.reset(parent);
+        first.identical = identical;
+        for (int i = 0; i < size; i++) {
+            first.children.set(i, variations.get(i));
+        }
+
+        int depth = 0;
+        while (true) {
+            Level<T> level = levels.get(depth);
+            if (level.hasNext()) {
+                // Align the next line, then its children
+                Level<T> next = level(depth + 1);
+                Node<Variations<T>> node = makeNextLine(level, next);
+                level.aligned.add(node);
+                context.fireNodeAligned(node, level.parent);
+                next.reset(node);
+                depth++;
 
-        while (hasNext()) {
-            aligned.add(makeNextLine(size));
+            } else if (depth == 0) {
+                return new ArrayList<>(level.aligned);
+
+            } else {
+                // All children of the node were aligned, back to its siblings
+                level.parent.setChildren(level.aligned);
+                context.fireSubtreeAligned(level.parent);
+                depth--;
+            }
         }
+    }
 
-        return aligned;
+    private Level<T> level(int depth) {
+        if (depth == levels.size()) {
+            levels.add(new Level<>(size));
+        }
+        return levels.get(depth);
     }
 
-    private Node<Variations<T>> makeNextLine(int size) {
-        List<T> line = new ArrayList<>(size);
-        List<List<Node<T>>> lineChildren = new ArrayList<>(size);
+    /**
+     * Creates the node of the next line and moves past the children it aligns.
+     *
+     * @param level the level being aligned
+     * @param next  the level of the children of the line, whose children lists are set
+     * @return the aligned node
+     */
+    private Node<Variations<T>> makeNextLine(Level<T> level, Level<T> next) {
+        if (level.identical) {
+            // The children match one to one
+            for (int i = 0; i < size; i++) {
+                taken[i] = level.current(i) != null;
+            }
+        } else {
+            takeSmallest(level);
+        }
+        next.identical = level.identical || identicalSubtrees(level);
 
-        Node<T> minimum = null;
-        for (ListIterator<Node<T>> iter : iterators) {
-            minimum = alignChild(minimum, iter, line, lineChildren);
+        for (int i = 0; i < size; i++) {
+            if (taken[i]) {
+                Node<T> current = level.current(i);
+                line.set(i, current.getContent());
+                next.children.set(i, current.getChildren());
+                level.positions[i]++;
+            } else {
+                line.set(i, null);
+                next.children.set(i, Collections.<Node<T>>emptyList());
+            }
         }
 
-        Variations<T> content = new Variations<>(line);
-        Node<Variations<T>> node = new Node<>(content);
-        node.setChildren(new ChildrenAligner<>(comparator, nbTrees, lineChildren).alignChildren());
-        return node;
+        return new Node<>(context.createVariations(line));
     }
 
-    private Node<T> alignChild(Node<T> min, ListIterator<Node<T>> iter, List<T> line,
-                               List<List<Node<T>>> lineChildren) {
-        Node<T> minimum = min;
-        Node<T> current = null;
-
-        if (iter.hasNext()) {
-            current = iter.next();
+    /**
+     * Marks the trees whose next child belongs to the next line.
+     *
+     * @param level the level being aligned
+     */
+    private void takeSmallest(Level<T> level) {
+        // The line is made of the smallest children, the first of them being the reference
+        Node<T> minimum = null;
+        for (int i = 0; i < size; i++) {
+            Node<T> current = level.current(i);
+            taken[i] = false;
+            if (current == null) {
+                continue;
+            }
             if (minimum == null) {
                 minimum = current;
+                taken[i] = true;
             } else {
                 int delta = comparator.compare(minimum, current);
-
                 if (delta > 0) {
-                    // Previous minimum was not the minimum.
+                    // Previous minimum was not the minimum, the children taken so far are left for later lines
                     minimum = current;
-                    // Reset what was already saved for this line.
-                    resetCurrentLine(line, lineChildren, iter);
-                } else if (delta < 0) {
-                    // This child cannot be added, revert the iterator one step
-                    current = null;
-                    iter.previous();
+                    Arrays.fill(taken, 0, i, false);
+                    taken[i] = true;
+                } else if (delta == 0) {
+                    taken[i] = true;
                 }
             }
         }
-
-        addCurrentToLine(current, line, lineChildren);
-
-        return minimum;
     }
 
     /**
-     * Replaces all children already added to this line with {@code null} and moves all iterators one step back.
+     * Returns {@code true} if the subtrees of the next line have the same hash in all trees containing it.
      *
-     * @param line         the current line
-     * @param lineChildren the children to be aligned for the nodes of the current line
-     * @param iter         the iterator of the new minimum for the line
+     * @param level the level being aligned, whose positions were not moved past the line yet
+     * @return {@code true} if the subtrees are identical, {@code false} otherwise or if the trees are not hashed
      */
-    private void resetCurrentLine(List<T> line, List<List<Node<T>>> lineChildren, ListIterator<Node<T>> iter) {
-        line.clear();
-        lineChildren.clear();
-        for (ListIterator<Node<T>> it : iterators) {
-            if (it == iter) {
-                break;
-            }
-            // The child is null for this one
-            line.add(null);
-            lineChildren.add(new ArrayList<>());
-            // Revert the iterator one step
-            it.previous();
+    private boolean identicalSubtrees(Level<T> level) {
+        if (hashes == null) {
+            return false;
         }
-    }
-
-    private void addCurrentToLine(Node<T> current, List<T> line, List<List<Node<T>>> lineChildren) {
-        if (current != null) {
-            line.add(current.getContent());
-            lineChildren.add(current.getChildren());
-        } else {
-            line.add(null);
-            lineChildren.add(new ArrayList<>());
+        boolean first = true;
+        long hash = 0;
+        for (int i = 0; i < size; i++) {
+            if (taken[i]) {
+                long current = hashes.get(i).getHash(level.current(i));
+                if (first) {
+                    hash = current;
+                    first = false;
+                } else if (current != hash) {
+                    return false;
+                }
+            }
         }
+        return true;
     }
 
     /**
-     * Returns {@code true} if there is still any child to be aligned.
-     *
-     * @return {@code true} if not all children have been processed, {@code false} otherwise
+     * The state of the alignment of the children of an aligned node.
      */
-    private boolean hasNext() {
-        for (ListIterator<Node<T>> iter : iterators) {
-            if (iter.hasNext()) {
-                return true;
+    private static final class Level<T> {
+
+        /** The aligned node whose children are being aligned. */
+        private Node<Variations<T>> parent;
+        /** The children to align, per tree. */
+        private final List<List<Node<T>>> children;
+        /** The index of the next child to align, per tree. */
+        private final int[] positions;
+        /** The children aligned so far. */
+        private final List<Node<Variations<T>>> aligned = new ArrayList<>();
+        /** {@code true} if the subtrees of the parent are identical in all trees containing it. */
+        private boolean identical;
+
+        Level(int size) {
+            this.children = new ArrayList<>(Collections.<List<Node<T>>>nCopies(size,
+                    Collections.<Node<T>>emptyList()));
+            this.positions = new int[size];
+        }
+
+        /**
+         * Prepares this level for the alignment of the children of another node; the children lists are set by the
+         * caller.
+         */
+        void reset(Node<Variations<T>> node) {
+            parent = node;
+            Arrays.fill(positions, 0);
+            // The aligned nodes were copied by their parent
+            aligned.clear();
+        }
+
+        Node<T> current(int tree) {
+            List<Node<T>> list = children.get(tree);
+            int position = positions[tree];
+            return position < list.size() ? list.get(position) : null;
+        }
+
+        boolean hasNext() {
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < children.get(i).size()) {
+                    return true;
+                }
             }
+            return false;
         }
-        return false;
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.align;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * An index of the nodes of an aligned tree by path, with back-pointers to their parents.
+ * <p/>
+ * Each node is indexed by its segment, i.e. the name its contents give it, under the entry of its parent. Looking a
+ * path up thus costs one hash lookup per segment, and finding the parent or the ancestors of a node costs one lookup
+ * per level, rather than walking and scanning the children lists from the root.
+ * <p/>
+ * The index is built while aligning, by {@link TreeAligner#addListener(AlignmentListener) registering} it on the
+ * aligner; it is reset each time a new alignment starts. It may also be built afterwards with {@link #index(Node)}.
+ * <p/>
+ * The segment of an aligned node is that of its first present variation. Should two siblings have the same segment,
+ * the first one is indexed.
+ *
+ * @param <T> the type of node content for the trees being aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class PathIndex<T> implements AlignmentListener<T> {
+
+    /** The separator of segments in the paths passed as a single string. */
+    public static final char SEPARATOR = '/';
+
+    private final Function<? super T, String> segmenter;
+
+    private final Map<SegmentKey, Entry<T>> children = new HashMap<>();
+    private final Map<Node<Variations<T>>, Entry<T>> entries = new IdentityHashMap<>();
+    private Entry<T> root;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param segmenter the function returning the segment of a node content, e.g. a file name
+     */
+    public PathIndex(Function<? super T, String> segmenter) {
+        Objects.requireNonNull(segmenter, "The segment function cannot be null.");
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * Indexes an aligned tree, replacing any previous content of this index.
+     *
+     * @param alignedRoot the root of the aligned tree
+     */
+    public void index(Node<Variations<T>> alignedRoot) {
+        nodeAligned(alignedRoot, null);
+        // Pre-order, so that parents are indexed before their children
+        Iterator<Node<Variations<T>>> iter = alignedRoot.preOrderIterator();
+        while (iter.hasNext()) {
+            Node<Variations<T>> node = iter.next();
+            for (Node<Variations<T>> child : node.getChildren()) {
+                nodeAligned(child, node);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.align.AlignmentListener#nodeAligned(org.keyboardplaying.tree.model.Node,
+     * org.keyboardplaying.tree.model.Node)
+     */
+    @Override
+    public void nodeAligned(Node<Variations<T>> node, Node<Variations<T>> parent) {
+        if (parent == null) {
+            children.clear();
+            entries.clear();
+            root = new Entry<>(node, null, null);
+            entries.put(node, root);
+            return;
+        }
+
+        Entry<T> parentEntry = entries.get(parent);
+        if (parentEntry == null) {
+            throw new IllegalStateException("The parent of a node must be indexed before the node.");
+        }
+        Entry<T> entry = new Entry<>(node, parentEntry, segmentOf(node));
+        entries.put(node, entry);
+        children.putIfAbsent(new SegmentKey(parentEntry, entry.segment), entry);
+    }
+
+    private String segmentOf(Node<Variations<T>> node) {
+        for (T variation : node.getContent()) {
+            if (variation != null) {
+                return segmenter.apply(variation);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of indexed nodes, including the root.
+     *
+     * @return the size of the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the aligned node at the end of a path.
+     *
+     * @param path the segments of the path, separated with {@link #SEPARATOR}; the empty path denotes the root
+     * @return the node, or {@code null} if there is none at this path
+     */
+    public Node<Variations<T>> get(String path) {
+        if (path.isEmpty()) {
+            return get(Collections.<String>emptyList());
+        }
+        return get(Arrays.asList(path.split(String.valueOf(SEPARATOR))));
+    }
+
+    /**
+     * Returns the aligned node at the end of a path.
+     *
+     * @param segments the segments of the path, from the root; an empty list denotes the root
+     * @return the node, or {@code null} if there is none at this path
+     */
+    public Node<Variations<T>> get(List<String> segments) {
+        Entry<T> entry = root;
+        for (Iterator<String> iter = segments.iterator(); entry != null && iter.hasNext(); ) {
+            entry = children.get(new SegmentKey(entry, iter.next()));
+        }
+        return entry == null ? null : entry.node;
+    }
+
+    /**
+     * Returns the parent of an aligned node.
+     *
+     * @param node the aligned node
+     * @return the parent, or {@code null} for the root or a node which is not indexed
+     */
+    public Node<Variations<T>> getParent(Node<Variations<T>> node) {
+        Entry<T> entry = entries.get(node);
+        return entry == null || entry.parent == null ? null : entry.parent.node;
+    }
+
+    /**
+     * Returns the ancestors of an aligned node.
+     *
+     * @param node the aligned node
+     * @return the ancestors, from the root down to the parent of the node; empty for the root or a node which is not
+     *         indexed
+     */
+    public List<Node<Variations<T>>> getAncestors(Node<Variations<T>> node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        List<Node<Variations<T>>> ancestors = new ArrayList<>(entry.depth);
+        for (Entry<T> ancestor = entry.parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestors.add(ancestor.node);
+        }
+        Collections.reverse(ancestors);
+        return ancestors;
+    }
+
+    /**
+     * Returns the path of an aligned node.
+     *
+     * @param node the aligned node
+     * @return the segments of the path, from the root; empty for the root, {@code null} for a node which is not
+     *         indexed
+     */
+    public List<String> getPath(Node<Variations<T>> node) {
+        Entry<T> entry = entries.get(node);
+        if (entry == null) {
+            return null;
+        }
+        String[] segments = new String[entry.depth];
+        for (Entry<T> current = entry; current.parent != null; current = current.parent) {
+            segments[current.depth - 1] = current.segment;
+        }
+        return Arrays.asList(segments);
+    }
+
+    /**
+     * The index entry of an aligned node.
+     *
+     * @param <T> the type of node content for the trees being aligned
+     */
+    private static final class Entry<T> {
+
+        private final Node<Variations<T>> node;
+        private final Entry<T> parent;
+        private final String segment;
+        private final int depth;
+
+        Entry(Node<Variations<T>> node, Entry<T> parent, String segment) {
+            this.node = node;
+            this.parent = parent;
+            this.segment = segment;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+    }
+
+    /**
+     * The key of a node in the index: the entry of its parent, compared by identity, and its segment.
+     */
+    private static final class SegmentKey {
+
+        private final Entry<?> parent;
+        private final String segment;
+
+        SegmentKey(Entry<?> parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(parent) + Objects.hashCode(segment);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SegmentKey)) {
+                return false;
+            }
+            SegmentKey other = (SegmentKey) o;
+            return parent == other.parent && Objects.equals(segment, other.segment);
+        }
+    }
+}
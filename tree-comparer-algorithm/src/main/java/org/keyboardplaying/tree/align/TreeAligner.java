@@ -17,16 +17,30 @@
 package org.keyboardplaying.tree.align;
 
 import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.SubtreeHashes;
 import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.model.VariationsFactory;
 import org.keyboardplaying.tree.sort.NodeSorter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * A class to produce a tree allowing for easy comparison of several trees.
+ * <p/>
+ * The variations of each aligned node are created by a {@link VariationsFactory}, so that comparisons of many trees
+ * which mostly agree only store each distinct variation once.
+ * <p/>
+ * The variations are compared using the {@link Object#equals(Object)} method of the contents, unless an equivalence is
+ * supplied: contents whose equality depends on where they were read from, such as files, can then be compared by
+ * content.
+ * <p/>
+ * Optionally, the subtrees which are identical in all the trees containing them are
+ * {@link #setSkipIdenticalSubtrees(boolean) aligned without comparing their nodes}.
  *
  * @param <T> the type of node content for the trees being aligned
  * @author Cyrille Chopelet (https://keyboardplaying.org)
@@ -34,6 +48,9 @@ import java.util.List;
 public class TreeAligner<T> {
 
     private Comparator<Node<T>> comparator;
+    private Function<? super T, ?> equivalence;
+    private List<AlignmentListener<T>> listeners = new ArrayList<>();
+    private boolean skipIdenticalSubtrees;
 
     /**
      * Creates a new instance.
@@ -41,7 +58,50 @@ public class TreeAligner<T> {
      * @param comparator the comparator to use when aligning the trees
      */
     public TreeAligner(Comparator<Node<T>> comparator) {
+        this(comparator, null);
+    }
+
+    /**
+     * Creates a new instance, comparing the variations of the aligned nodes using an equivalence.
+     * <p/>
+     * Contents with equal keys are expected to be equal according to the comparator.
+     *
+     * @param comparator  the comparator to use when aligning the trees
+     * @param equivalence the function giving the key the contents are compared by, or {@code null} to compare the
+     *                    contents themselves
+     * @see Variations#setEquivalence(Function)
+     */
+    public TreeAligner(Comparator<Node<T>> comparator, Function<? super T, ?> equivalence) {
         this.comparator = comparator;
+        this.equivalence = equivalence;
+    }
+
+    /**
+     * Adds a listener to notify of each aligned node, for all subsequent alignments.
+     *
+     * @param listener the listener
+     */
+    public void addListener(AlignmentListener<T> listener) {
+        Objects.requireNonNull(listener, "The listener cannot be null.");
+        listeners.add(listener);
+    }
+
+    /**
+     * Sets whether the subtrees which are identical in all the trees containing them should be aligned without
+     * comparing their nodes.
+     * <p/>
+     * When enabled, each tree is {@link SubtreeHashes hashed} once before being aligned. The nodes of a line whose
+     * subtrees have the same hash in all trees are then aligned child by child, without calling the comparator. This
+     * pays off when the comparator is costly and the trees mostly agree. Contents are hashed using the equivalence of
+     * this aligner, if any. Equal or equivalent contents are expected to be equal according to the comparator, and
+     * hashes are trusted: a collision of 64-bit hashes, which is unlikely, would align different subtrees as if they
+     * were identical.
+     *
+     * @param skipIdenticalSubtrees {@code true} to skip identical subtrees, {@code false} (the default) to compare
+     *                              all nodes
+     */
+    public void setSkipIdenticalSubtrees(boolean skipIdenticalSubtrees) {
+        this.skipIdenticalSubtrees = skipIdenticalSubtrees;
     }
 
     /**
@@ -69,8 +129,11 @@ public class TreeAligner<T> {
         sortAllTrees(trees);
 
         int nbTrees = trees.size();
+        List<SubtreeHashes<T>> hashes = skipIdenticalSubtrees ? hashAllTrees(trees) : null;
 
-        Variations<T> root = new Variations<>(nbTrees);
+        AlignmentContext<T> context = new AlignmentContext<>(comparator, new VariationsFactory(), equivalence,
+                listeners, nbTrees, hashes);
+        List<T> root = new ArrayList<>(nbTrees);
         List<List<Node<T>>> childrenVariations = new ArrayList<>(nbTrees);
 
         for (Node<T> tree : trees) {
@@ -78,11 +141,37 @@ public class TreeAligner<T> {
             childrenVariations.add(tree.getChildren());
         }
 
-        Node<Variations<T>> result = new Node<>(root);
-        result.setChildren(new ChildrenAligner<>(comparator, nbTrees, childrenVariations).alignChildren());
+        Node<Variations<T>> result = new Node<>(context.createVariations(root));
+        context.fireNodeAligned(result, null);
+        boolean identical = hashes != null && identicalRoots(trees, hashes);
+        result.setChildren(new ChildrenAligner<>(context, result, childrenVariations, identical).alignChildren());
+        context.fireSubtreeAligned(result);
         return result;
     }
 
+    /**
+     * Hashes the subtrees of all trees, once sorted.
+     *
+     * @param trees the trees to hash
+     * @return the hashes of each tree
+     */
+    private List<SubtreeHashes<T>> hashAllTrees(List<Node<T>> trees) {
+        List<SubtreeHashes<T>> hashes = new ArrayList<>(trees.size());
+        for (Node<T> tree : trees) {
+            hashes.add(new SubtreeHashes<>(tree, equivalence));
+        }
+        return hashes;
+    }
+
+    private boolean identicalRoots(List<Node<T>> trees, List<SubtreeHashes<T>> hashes) {
+        for (int i = 1; i < trees.size(); i++) {
+            if (hashes.get(i).getHash(trees.get(i)) != hashes.get(0).getHash(trees.get(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Orders all trees using the same sorter.
      *
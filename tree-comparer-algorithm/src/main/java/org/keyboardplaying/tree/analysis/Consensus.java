@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.Arrays;
+
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * The result of a {@link ConsensusAnalysis}: the consensus tree and how much each compared tree deviates from it.
+ *
+ * @param <T> the type of node content for the trees which were aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class Consensus<T> {
+
+    private final Node<T> tree;
+    private final long[] deviations;
+    private final long nodeCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param tree       the consensus tree, or {@code null} if the root is absent from most trees
+     * @param deviations the number of nodes on which each tree deviates from the consensus
+     * @param nodeCount  the number of aligned nodes
+     */
+    Consensus(Node<T> tree, long[] deviations, long nodeCount) {
+        this.tree = tree;
+        this.deviations = deviations;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Returns the consensus tree, made of the most common variation of each aligned node.
+     * <p/>
+     * Nodes absent from most trees are left out, along with their subtrees. When the trees are split between several
+     * equally common variations, the node holds the variation appearing first.
+     *
+     * @return the root of the consensus tree, or {@code null} if the root is absent from most trees
+     */
+    public Node<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * Returns the number of aligned nodes on which a tree deviates from the consensus, i.e. holds another variation
+     * than the most common one, or lacks the node, or holds a node absent from most trees. When no variation is more
+     * common than all the others, all trees deviate.
+     *
+     * @param index the index of the compared tree
+     * @return the number of deviating nodes
+     */
+    public long getDeviations(int index) {
+        return deviations[index];
+    }
+
+    /**
+     * Returns the outlier score of a tree, i.e. the proportion of aligned nodes on which it deviates from the
+     * consensus.
+     *
+     * @param index the index of the compared tree
+     * @return a score between {@code 0} (the tree is the consensus) and {@code 1} (it deviates everywhere)
+     */
+    public double getOutlierScore(int index) {
+        return nodeCount == 0 ? 0 : (double) deviations[index] / nodeCount;
+    }
+
+    /**
+     * Returns the number of aligned nodes the consensus was computed from.
+     *
+     * @return the number of aligned nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the compared trees, from the most deviating to the least.
+     *
+     * @return the indices of the compared trees, sorted by decreasing number of deviations
+     */
+    public int[] getOutliers() {
+        Integer[] order = new Integer[deviations.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(deviations[b], deviations[a]));
+
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Computes the consensus of aligned trees, i.e. the tree made of the most common variation of each node, and scores
+ * each compared tree by the number of nodes on which it deviates from the consensus.
+ * <p/>
+ * The analysis visits each aligned node once, reading the equivalence classes computed during the alignment. Trees
+ * read from different places, such as the file trees of several hosts, should be aligned with an equivalence comparing
+ * their contents, so that the same content gives the same class.
+ * <p/>
+ * Sibling subtrees are analyzed in parallel in a {@link ForkJoinPool}: a range of siblings is split while other threads
+ * lack work, and the remaining subtrees are walked iteratively, so that deep trees do not overflow the stack.
+ *
+ * @param <T> the type of node content for the trees which were aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConsensusAnalysis<T> {
+
+    /**
+     * Work is split while fewer tasks than this are waiting in the queue of the current thread.
+     */
+    private static final int SURPLUS_THRESHOLD = 3;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new instance, using the common pool.
+     */
+    public ConsensusAnalysis() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param pool the pool running the analysis
+     */
+    public ConsensusAnalysis(ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "The pool cannot be null.");
+        this.pool = pool;
+    }
+
+    /**
+     * Analyzes an aligned tree.
+     *
+     * @param root the root of the aligned tree
+     * @return the consensus and the deviations of each compared tree
+     */
+    public Consensus<T> analyze(Node<Variations<T>> root) {
+        int nbTrees = root.getContent().size();
+        Result<T> result = pool.invoke(new SubtreesTask<>(Collections.singletonList(root), 0, 1, nbTrees));
+        return new Consensus<>(result.roots.isEmpty() ? null : result.roots.get(0), result.deviations, result.count);
+    }
+
+    /**
+     * Counts the deviations on an aligned node.
+     * <p/>
+     * On a tie, all trees deviate, so that none is favored; the node is still kept in the consensus tree with the
+     * variation of the first tied class, so that its subtree is analyzed as well.
+     *
+     * @return the most common variation, or {@code null} if the node is absent from most trees
+     */
+    private static <T> T visit(Node<Variations<T>> node, long[] deviations) {
+        Variations<T> variations = node.getContent();
+        int[] signature = variations.getSignature();
+        int classCount = variations.getEquivalenceClassCount();
+        int majority = Majority.majorityClass(signature, classCount);
+        int kept = majority == Majority.TIE ? Majority.leadingClass(signature, classCount) : majority;
+
+        T consensus = null;
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] != majority) {
+                deviations[i]++;
+            }
+            if (consensus == null && kept >= 0 && signature[i] == kept) {
+                consensus = variations.get(i);
+            }
+        }
+        return consensus;
+    }
+
+    /**
+     * The consensus of a range of sibling subtrees.
+     */
+    private static final class Result<T> {
+
+        private final List<Node<T>> roots = new ArrayList<>();
+        private final long[] deviations;
+        private long count;
+
+        Result(int nbTrees) {
+            this.deviations = new long[nbTrees];
+        }
+
+        Result<T> merge(Result<T> other) {
+            roots.addAll(other.roots);
+            for (int i = 0; i < deviations.length; i++) {
+                deviations[i] += other.deviations[i];
+            }
+            count += other.count;
+            return this;
+        }
+    }
+
+    /**
+     * A task analyzing a range of sibling subtrees.
+     */
+    private static final class SubtreesTask<T> extends RecursiveTask<Result<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Node<Variations<T>>> siblings;
+        private final int from;
+        private final int to;
+        private final int nbTrees;
+
+        SubtreesTask(List<Node<Variations<T>>> siblings, int from, int to, int nbTrees) {
+            this.siblings = siblings;
+            this.from = from;
+            this.to = to;
+            this.nbTrees = nbTrees;
+        }
+
+        @Override
+        protected Result<T> compute() {
+            boolean split = getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD;
+
+            if (split && to - from > 1) {
+                int middle = (from + to) >>> 1;
+                SubtreesTask<T> right = new SubtreesTask<>(siblings, middle, to, nbTrees);
+                right.fork();
+                Result<T> left = new SubtreesTask<>(siblings, from, middle, nbTrees).compute();
+                return left.merge(right.join());
+            }
+
+            Result<T> result = new Result<>(nbTrees);
+            if (split && to - from == 1 && siblings.get(from).getChildren().size() > 1) {
+                // Analyze the node here and split its children
+                Node<Variations<T>> node = siblings.get(from);
+                T consensus = visit(node, result.deviations);
+                result.count++;
+                List<Node<Variations<T>>> children = node.getChildren();
+                Result<T> below = new SubtreesTask<>(children, 0, children.size(), nbTrees).compute();
+                if (consensus != null) {
+                    Node<T> consensusNode = new Node<>(consensus);
+                    consensusNode.setChildren(below.roots);
+                    below.roots.clear();
+                    below.roots.add(consensusNode);
+                } else {
+                    below.roots.clear();
+                }
+                return result.merge(below);
+            }
+
+            for (int i = from; i < to; i++) {
+                Node<T> consensus = walk(siblings.get(i), result);
+                if (consensus != null) {
+                    result.roots.add(consensus);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Analyzes a whole subtree in the current thread, without recursion.
+         */
+        private Node<T> walk(Node<Variations<T>> top, Result<T> result) {
+            Node<T> root = null;
+            Deque<Frame<T>> stack = new ArrayDeque<>();
+            stack.push(new Frame<>(top, null));
+            while (!stack.isEmpty()) {
+                Frame<T> frame = stack.pop();
+                T consensus = visit(frame.node, result.deviations);
+                result.count++;
+
+                // Left out if absent from most trees, or if its parent was
+                Node<T> consensusNode = null;
+                if (consensus != null && (frame.node == top || frame.consensusParent != null)) {
+                    consensusNode = new Node<>(consensus);
+                    if (frame.node == top) {
+                        root = consensusNode;
+                    } else {
+                        frame.consensusParent.addChild(consensusNode);
+                    }
+                }
+
+                List<Node<Variations<T>>> children = frame.node.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(new Frame<>(children.get(i), consensusNode));
+                }
+            }
+            return root;
+        }
+    }
+
+    /**
+     * An aligned node waiting to be visited, along with the consensus node of its parent.
+     */
+    private static final class Frame<T> {
+
+        private final Node<Variations<T>> node;
+        private final Node<T> consensusParent;
+
+        Frame(Node<Variations<T>> node, Node<T> consensusParent) {
+            this.node = node;
+            this.consensusParent = consensusParent;
+        }
+    }
+}
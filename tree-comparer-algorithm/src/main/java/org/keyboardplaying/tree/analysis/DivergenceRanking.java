@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Finds the K subtrees of an aligned tree with the most differences.
+ * <p/>
+ * The weight of each subtree is summed in a single post-order walk, and the K heaviest subtrees are kept in a bounded
+ * heap: the ranking takes linear time, and its memory only grows with K and with the depth of the tree.
+ * <p/>
+ * As the weight of a subtree includes the weights of all the subtrees it contains, the root would always come first:
+ * by default, it is not ranked, and neither are leaves, so that the ranking points to the directories with the most
+ * changes.
+ *
+ * @param <T> the type of node content for the trees which were aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class DivergenceRanking<T> {
+
+    private static final Comparator<RankedSubtree<?>> BY_WEIGHT = Comparator.comparingLong(RankedSubtree::getWeight);
+
+    private final int k;
+    private final DivergenceWeight<T> weight;
+    private int minDepth = 1;
+    private boolean leavesRanked = false;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param k      the number of subtrees to keep
+     * @param weight the weight of the differences on each node
+     */
+    public DivergenceRanking(int k, DivergenceWeight<T> weight) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one subtree must be kept.");
+        }
+        Objects.requireNonNull(weight, "The weight cannot be null.");
+        this.k = k;
+        this.weight = weight;
+    }
+
+    /**
+     * Sets the minimal depth of the ranked subtrees.
+     * <p/>
+     * Defaults to {@code 1}, so that the root is not ranked.
+     *
+     * @param minDepth the minimal depth, {@code 0} to rank the root
+     */
+    public void setMinDepth(int minDepth) {
+        this.minDepth = minDepth;
+    }
+
+    /**
+     * Sets whether leaves should be ranked as well.
+     * <p/>
+     * Defaults to {@code false}.
+     *
+     * @param leavesRanked {@code true} to rank leaves, {@code false} to rank only the nodes with children
+     */
+    public void setLeavesRanked(boolean leavesRanked) {
+        this.leavesRanked = leavesRanked;
+    }
+
+    /**
+     * Ranks the subtrees of an aligned tree.
+     *
+     * @param root the root of the aligned tree
+     * @return at most K subtrees with differences, from the heaviest to the lightest
+     */
+    public List<RankedSubtree<T>> rank(Node<Variations<T>> root) {
+        PriorityQueue<RankedSubtree<T>> heap = new PriorityQueue<>(k + 1, BY_WEIGHT);
+
+        // Post-order, each frame summing the weights of the children walked so far
+        Deque<Frame<T>> stack = new ArrayDeque<>();
+        stack.push(new Frame<>(root));
+        while (!stack.isEmpty()) {
+            Frame<T> frame = stack.peek();
+            if (frame.children.hasNext()) {
+                stack.push(new Frame<>(frame.children.next()));
+                continue;
+            }
+
+            stack.pop();
+            long total = frame.sum + weight.weigh(frame.node.getContent());
+            if (!stack.isEmpty()) {
+                stack.peek().sum += total;
+            }
+            int depth = stack.size();
+            if (total > 0 && depth >= minDepth && (leavesRanked || !frame.node.getChildren().isEmpty())) {
+                offer(heap, new RankedSubtree<>(frame.node, total, depth));
+            }
+        }
+
+        List<RankedSubtree<T>> ranking = new ArrayList<>(heap);
+        ranking.sort(Collections.reverseOrder(BY_WEIGHT));
+        return ranking;
+    }
+
+    private void offer(PriorityQueue<RankedSubtree<T>> heap, RankedSubtree<T> subtree) {
+        if (heap.size() < k) {
+            heap.add(subtree);
+        } else if (subtree.getWeight() > heap.peek().getWeight()) {
+            heap.poll();
+            heap.add(subtree);
+        }
+    }
+
+    /**
+     * A node being walked.
+     */
+    private static final class Frame<T> {
+
+        private final Node<Variations<T>> node;
+        private final Iterator<Node<Variations<T>>> children;
+        private long sum;
+
+        Frame(Node<Variations<T>> node) {
+            this.node = node;
+            this.children = node.getChildren().iterator();
+        }
+    }
+}
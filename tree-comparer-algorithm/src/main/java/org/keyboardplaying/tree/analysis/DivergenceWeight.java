@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * The weight of the differences on an aligned node, used to rank subtrees by divergence.
+ *
+ * @param <T> the type of node content for the trees which were aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see DivergenceRanking
+ */
+@FunctionalInterface
+public interface DivergenceWeight<T> {
+
+    /**
+     * Returns the weight of the differences on a node, not including its children.
+     *
+     * @param variations the variations of the node
+     * @return a positive weight, or {@code 0} if the node does not differ
+     */
+    long weigh(Variations<T> variations);
+
+    /**
+     * Returns a weight counting one for each node which is not the same in all trees.
+     * <p/>
+     * Nodes are the same if their variations are {@link Variations#isConstant() constant}, which depends on the
+     * equivalence the trees were aligned with, if any.
+     *
+     * @param <T> the type of node content for the trees which were aligned
+     * @return the weight
+     */
+    static <T> DivergenceWeight<T> changedNodes() {
+        return variations -> variations.isConstant() ? 0 : 1;
+    }
+
+    /**
+     * Returns a weight counting the size of each node which is not the same in all trees, i.e. the size of its
+     * largest variation.
+     *
+     * @param <T>  the type of node content for the trees which were aligned
+     * @param size the function returning the size of a node content, e.g. the size of a file
+     * @return the weight
+     */
+    static <T> DivergenceWeight<T> changedBytes(ToLongFunction<? super T> size) {
+        Objects.requireNonNull(size, "The size function cannot be null.");
+        return variations -> {
+            if (variations.isConstant()) {
+                return 0;
+            }
+            long largest = 0;
+            for (T variation : variations) {
+                if (variation != null) {
+                    largest = Math.max(largest, size.applyAsLong(variation));
+                }
+            }
+            return largest;
+        };
+    }
+}
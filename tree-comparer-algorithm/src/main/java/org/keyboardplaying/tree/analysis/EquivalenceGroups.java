@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Groups the compared trees by equivalence class for each node of an aligned tree.
+ * <p/>
+ * The variations of each aligned node are sorted into equivalence classes when they are created, by hashing rather
+ * than comparing them pairwise: this class only reads these classes, in a single walk of the aligned tree.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see Variations#getEquivalenceClasses()
+ */
+public final class EquivalenceGroups {
+
+    private EquivalenceGroups() {
+    }
+
+    /**
+     * Passes the groups of each node of an aligned tree to a consumer, in pre-order.
+     *
+     * @param <T>      the type of node content for the trees which were aligned
+     * @param root     the root of the aligned tree
+     * @param consumer the consumer receiving each node and its groups; the trees of each group are marked in a
+     *                 bitmap
+     */
+    public static <T> void forEach(Node<Variations<T>> root,
+                                   BiConsumer<? super Node<Variations<T>>, ? super List<BitSet>> consumer) {
+        Objects.requireNonNull(consumer, "The consumer cannot be null.");
+        Iterator<Node<Variations<T>>> iter = root.preOrderIterator();
+        while (iter.hasNext()) {
+            Node<Variations<T>> node = iter.next();
+            consumer.accept(node, node.getContent().getEquivalenceClasses());
+        }
+    }
+
+    /**
+     * Returns the groups of all the nodes of an aligned tree.
+     *
+     * @param <T>  the type of node content for the trees which were aligned
+     * @param root the root of the aligned tree
+     * @return the groups of each node, by node identity
+     */
+    public static <T> Map<Node<Variations<T>>, List<BitSet>> collect(Node<Variations<T>> root) {
+        Map<Node<Variations<T>>, List<BitSet>> groups = new IdentityHashMap<>();
+        forEach(root, groups::put);
+        return groups;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+/**
+ * Finds the most common variation of an aligned node.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+// Package visible only
+final class Majority {
+
+    /**
+     * Returned by {@link #majorityClass(int[], int)} when several classes are the most common.
+     */
+    static final int TIE = -2;
+
+    private Majority() {
+    }
+
+    /**
+     * Returns the most common equivalence class of a signature, absence ({@code -1}) included.
+     * <p/>
+     * If several classes are equally common, none of them is the majority: favoring one would favor the trees holding
+     * it, which only depends on the order of the trees.
+     *
+     * @param signature  the equivalence class of each variation
+     * @param classCount the number of equivalence classes
+     * @return the most common class, {@code -1} if the node is absent from most trees, or {@link #TIE} if no class is
+     *         more common than all the others
+     */
+    static int majorityClass(int[] signature, int classCount) {
+        int[] counts = counts(signature, classCount);
+        int leading = leadingClass(counts);
+        for (int cls = -1; cls < classCount; cls++) {
+            if (cls != leading && counts[cls + 1] == counts[leading + 1]) {
+                return TIE;
+            }
+        }
+        return leading;
+    }
+
+    /**
+     * Returns a most common equivalence class of a signature, absence ({@code -1}) included.
+     * <p/>
+     * Ties go to the class appearing first, absence losing all ties. This gives a representative to a node even when
+     * the trees are split, e.g. to keep it in a consensus tree.
+     *
+     * @param signature  the equivalence class of each variation
+     * @param classCount the number of equivalence classes
+     * @return a most common class, or {@code -1} if the node is absent from more trees than any class is present in
+     */
+    static int leadingClass(int[] signature, int classCount) {
+        return leadingClass(counts(signature, classCount));
+    }
+
+    private static int[] counts(int[] signature, int classCount) {
+        int[] counts = new int[classCount + 1];
+        for (int cls : signature) {
+            counts[cls + 1]++;
+        }
+        return counts;
+    }
+
+    private static int leadingClass(int[] counts) {
+        int best = -1;
+        int bestCount = counts[0];
+        for (int cls = 0; cls < counts.length - 1; cls++) {
+            int count = counts[cls + 1];
+            if (count > bestCount || count == bestCount && best == -1) {
+                best = cls;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.keyboardplaying.tree.align.AlignmentListener;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Computes the {@link NodeMasks masks} of each aligned node while aligning, so that the aligned tree can be queried
+ * with bitwise operations.
+ * <p/>
+ * For each node, the index records which trees contain it, which trees differ from a reference tree and which trees
+ * differ from the most common variation. The masks of a node are computed once its children are aligned, so that
+ * they also aggregate the masks of its whole subtree; {@link #select(MaskPredicate)} uses them to skip the subtrees
+ * which cannot match.
+ * <p/>
+ * The index is built by {@link TreeAligner#addListener(AlignmentListener) registering} it on the aligner; it is
+ * reset each time a new alignment starts.
+ *
+ * @param <T> the type of node content for the trees being aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class MaskIndex<T> implements AlignmentListener<T> {
+
+    private final int reference;
+
+    private final Map<Node<Variations<T>>, NodeMasks> masks = new IdentityHashMap<>();
+    private Node<Variations<T>> root;
+
+    /**
+     * Creates a new instance, using the first tree as the reference.
+     */
+    public MaskIndex() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param reference the index of the tree the others are compared to
+     */
+    public MaskIndex(int reference) {
+        if (reference < 0) {
+            throw new IllegalArgumentException("The reference must be the index of a compared tree.");
+        }
+        this.reference = reference;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.align.AlignmentListener#nodeAligned(org.keyboardplaying.tree.model.Node,
+     * org.keyboardplaying.tree.model.Node)
+     */
+    @Override
+    public void nodeAligned(Node<Variations<T>> node, Node<Variations<T>> parent) {
+        if (parent == null) {
+            masks.clear();
+            root = node;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.align.AlignmentListener#subtreeAligned(org.keyboardplaying.tree.model.Node)
+     */
+    @Override
+    public void subtreeAligned(Node<Variations<T>> node) {
+        Variations<T> variations = node.getContent();
+        int size = variations.size();
+        int[] signature = variations.getSignature();
+
+        BitSet presence = variations.getPresence();
+        BitSet absence = (BitSet) presence.clone();
+        absence.flip(0, size);
+
+        BitSet referenceDisagreement = new BitSet(size);
+        if (reference < size) {
+            int referenceClass = signature[reference];
+            for (int i = 0; i < size; i++) {
+                if (signature[i] != referenceClass) {
+                    referenceDisagreement.set(i);
+                }
+            }
+        }
+
+        int majorityClass = Majority.majorityClass(signature, variations.getEquivalenceClassCount());
+        BitSet majorityDisagreement = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (signature[i] != majorityClass) {
+                majorityDisagreement.set(i);
+            }
+        }
+
+        // Aggregate the subtree, whose masks are all computed already
+        BitSet presentEverywhere = (BitSet) presence.clone();
+        BitSet absentEverywhere = (BitSet) absence.clone();
+        BitSet referenceDisagreementAnywhere = (BitSet) referenceDisagreement.clone();
+        BitSet majorityDisagreementAnywhere = (BitSet) majorityDisagreement.clone();
+        for (Node<Variations<T>> child : node.getChildren()) {
+            NodeMasks childMasks = masks.get(child);
+            presentEverywhere.and(childMasks.getPresentEverywhere());
+            absentEverywhere.and(childMasks.getAbsentEverywhere());
+            referenceDisagreementAnywhere.or(childMasks.getReferenceDisagreementAnywhere());
+            majorityDisagreementAnywhere.or(childMasks.getMajorityDisagreementAnywhere());
+        }
+
+        masks.put(node, new NodeMasks(presence, absence, referenceDisagreement, majorityDisagreement,
+                presentEverywhere, absentEverywhere, referenceDisagreementAnywhere, majorityDisagreementAnywhere));
+    }
+
+    /**
+     * Returns the index of the tree the others are compared to.
+     *
+     * @return the index of the reference tree
+     */
+    public int getReference() {
+        return reference;
+    }
+
+    /**
+     * Returns the masks of an aligned node.
+     *
+     * @param node the aligned node
+     * @return the masks, or {@code null} if the node is not indexed
+     */
+    public NodeMasks getMasks(Node<Variations<T>> node) {
+        return masks.get(node);
+    }
+
+    /**
+     * Returns the aligned nodes matching a predicate, in pre-order.
+     * <p/>
+     * Subtrees which cannot contain any match, according to their aggregated masks, are not walked.
+     *
+     * @param predicate the predicate
+     * @return the matching nodes
+     */
+    public List<Node<Variations<T>>> select(MaskPredicate predicate) {
+        List<Node<Variations<T>>> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+
+        Deque<Node<Variations<T>>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<Variations<T>> node = stack.pop();
+            NodeMasks nodeMasks = masks.get(node);
+            if (!predicate.mayMatchBelow(nodeMasks)) {
+                continue;
+            }
+            if (predicate.matches(nodeMasks)) {
+                result.add(node);
+            }
+            List<Node<Variations<T>>> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        return result;
+    }
+}
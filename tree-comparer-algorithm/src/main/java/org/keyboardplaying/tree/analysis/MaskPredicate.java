@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * A predicate on the {@link NodeMasks masks} of aligned nodes, evaluated with bitwise operations.
+ * <p/>
+ * Besides telling whether a node matches, a predicate tells whether any node of a subtree may match, judging from the
+ * masks aggregated over the subtree. Subtrees which cannot contain any match are skipped by
+ * {@link MaskIndex#select(MaskPredicate)}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public abstract class MaskPredicate {
+
+    /**
+     * Returns {@code true} if a node matches this predicate.
+     *
+     * @param masks the masks of the node
+     * @return {@code true} if the node matches, {@code false} otherwise
+     */
+    public abstract boolean matches(NodeMasks masks);
+
+    /**
+     * Returns {@code false} if no node of a subtree can match this predicate.
+     * <p/>
+     * This is a necessary condition: it may return {@code true} even though no node matches.
+     *
+     * @param masks the masks of the root of the subtree
+     * @return {@code false} if the subtree may be skipped, {@code true} otherwise
+     */
+    public abstract boolean mayMatchBelow(NodeMasks masks);
+
+    /**
+     * Returns a predicate matching the nodes present in all the specified trees.
+     *
+     * @param trees the indices of the trees
+     * @return the predicate
+     */
+    public static MaskPredicate presentIn(int... trees) {
+        final BitSet required = toBitSet(trees);
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return !required.intersects(masks.getAbsence());
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return !required.intersects(masks.getAbsentEverywhere());
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes absent from all the specified trees.
+     *
+     * @param trees the indices of the trees
+     * @return the predicate
+     */
+    public static MaskPredicate absentFrom(int... trees) {
+        final BitSet required = toBitSet(trees);
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return !required.intersects(masks.getPresence());
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return !required.intersects(masks.getPresentEverywhere());
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes for which a tree differs from the reference tree of the index.
+     *
+     * @param tree the index of the tree
+     * @return the predicate
+     */
+    public static MaskPredicate differsFromReference(final int tree) {
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return masks.getReferenceDisagreement().get(tree);
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return masks.getReferenceDisagreementAnywhere().get(tree);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes for which a tree differs from the most common variation.
+     *
+     * @param tree the index of the tree
+     * @return the predicate
+     */
+    public static MaskPredicate differsFromMajority(final int tree) {
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return masks.getMajorityDisagreement().get(tree);
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return masks.getMajorityDisagreementAnywhere().get(tree);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes matching both this predicate and another one.
+     *
+     * @param other the other predicate
+     * @return the predicate
+     */
+    public MaskPredicate and(final MaskPredicate other) {
+        Objects.requireNonNull(other, "The predicate cannot be null.");
+        final MaskPredicate self = this;
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return self.matches(masks) && other.matches(masks);
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return self.mayMatchBelow(masks) && other.mayMatchBelow(masks);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes matching this predicate or another one.
+     *
+     * @param other the other predicate
+     * @return the predicate
+     */
+    public MaskPredicate or(final MaskPredicate other) {
+        Objects.requireNonNull(other, "The predicate cannot be null.");
+        final MaskPredicate self = this;
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return self.matches(masks) || other.matches(masks);
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return self.mayMatchBelow(masks) || other.mayMatchBelow(masks);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate matching the nodes not matching this predicate.
+     * <p/>
+     * A negated predicate never skips a subtree.
+     *
+     * @return the predicate
+     */
+    public MaskPredicate negate() {
+        final MaskPredicate self = this;
+        return new MaskPredicate() {
+            @Override
+            public boolean matches(NodeMasks masks) {
+                return !self.matches(masks);
+            }
+
+            @Override
+            public boolean mayMatchBelow(NodeMasks masks) {
+                return true;
+            }
+        };
+    }
+
+    private static BitSet toBitSet(int... trees) {
+        BitSet bits = new BitSet();
+        for (int tree : trees) {
+            bits.set(tree);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import java.util.BitSet;
+
+/**
+ * The bitmaps describing an aligned node, and the subtree it roots, across the compared trees.
+ * <p/>
+ * Bit {@code i} of each bitmap relates to the compared tree {@code i}. Bitmaps must not be modified.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see MaskIndex
+ */
+public final class NodeMasks {
+
+    private final BitSet presence;
+    private final BitSet absence;
+    private final BitSet referenceDisagreement;
+    private final BitSet majorityDisagreement;
+
+    private final BitSet presentEverywhere;
+    private final BitSet absentEverywhere;
+    private final BitSet referenceDisagreementAnywhere;
+    private final BitSet majorityDisagreementAnywhere;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param presence                      the trees containing the node
+     * @param absence                       the trees not containing the node
+     * @param referenceDisagreement         the trees whose variation differs from that of the reference tree
+     * @param majorityDisagreement          the trees whose variation differs from the most common one
+     * @param presentEverywhere             the trees containing all the nodes of the subtree
+     * @param absentEverywhere              the trees containing none of the nodes of the subtree
+     * @param referenceDisagreementAnywhere the trees differing from the reference tree on some node of the subtree
+     * @param majorityDisagreementAnywhere  the trees differing from the most common variation on some node of the
+     *                                      subtree
+     */
+    NodeMasks(BitSet presence, BitSet absence, BitSet referenceDisagreement, BitSet majorityDisagreement,
+              BitSet presentEverywhere, BitSet absentEverywhere, BitSet referenceDisagreementAnywhere,
+              BitSet majorityDisagreementAnywhere) {
+        this.presence = presence;
+        this.absence = absence;
+        this.referenceDisagreement = referenceDisagreement;
+        this.majorityDisagreement = majorityDisagreement;
+        this.presentEverywhere = presentEverywhere;
+        this.absentEverywhere = absentEverywhere;
+        this.referenceDisagreementAnywhere = referenceDisagreementAnywhere;
+        this.majorityDisagreementAnywhere = majorityDisagreementAnywhere;
+    }
+
+    /**
+     * Returns the trees containing the node.
+     *
+     * @return the presence bitmap
+     */
+    public BitSet getPresence() {
+        return presence;
+    }
+
+    /**
+     * Returns the trees not containing the node.
+     *
+     * @return the absence bitmap
+     */
+    public BitSet getAbsence() {
+        return absence;
+    }
+
+    /**
+     * Returns the trees whose variation differs from that of the reference tree, absence included.
+     *
+     * @return the disagreement bitmap
+     */
+    public BitSet getReferenceDisagreement() {
+        return referenceDisagreement;
+    }
+
+    /**
+     * Returns the trees whose variation differs from the most common one, absence included.
+     *
+     * @return the disagreement bitmap
+     */
+    public BitSet getMajorityDisagreement() {
+        return majorityDisagreement;
+    }
+
+    /**
+     * Returns the trees containing all the nodes of the subtree.
+     *
+     * @return the intersection of the presence bitmaps of the subtree
+     */
+    public BitSet getPresentEverywhere() {
+        return presentEverywhere;
+    }
+
+    /**
+     * Returns the trees containing none of the nodes of the subtree.
+     *
+     * @return the intersection of the absence bitmaps of the subtree
+     */
+    public BitSet getAbsentEverywhere() {
+        return absentEverywhere;
+    }
+
+    /**
+     * Returns the trees differing from the reference tree on at least one node of the subtree.
+     *
+     * @return the union of the reference disagreement bitmaps of the subtree
+     */
+    public BitSet getReferenceDisagreementAnywhere() {
+        return referenceDisagreementAnywhere;
+    }
+
+    /**
+     * Returns the trees differing from the most common variation on at least one node of the subtree.
+     *
+     * @return the union of the majority disagreement bitmaps of the subtree
+     */
+    public BitSet getMajorityDisagreementAnywhere() {
+        return majorityDisagreementAnywhere;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * An aligned subtree and the weight of its differences.
+ *
+ * @param <T> the type of node content for the trees which were aligned
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see DivergenceRanking
+ */
+public class RankedSubtree<T> {
+
+    private final Node<Variations<T>> node;
+    private final long weight;
+    private final int depth;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param node   the root of the subtree
+     * @param weight the weight of the differences in the subtree
+     * @param depth  the depth of the root of the subtree, {@code 0} for the root of the aligned tree
+     */
+    RankedSubtree(Node<Variations<T>> node, long weight, int depth) {
+        this.node = node;
+        this.weight = weight;
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the root of the subtree.
+     *
+     * @return the aligned node
+     */
+    public Node<Variations<T>> getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the weight of the differences in the subtree, its root included.
+     *
+     * @return the total weight
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the depth of the root of the subtree.
+     *
+     * @return the depth, {@code 0} for the root of the aligned tree
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
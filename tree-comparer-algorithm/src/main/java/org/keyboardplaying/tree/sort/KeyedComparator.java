@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.sort;
+
+import java.util.Comparator;
+
+import org.keyboardplaying.tree.model.Keyed;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * A comparator for nodes with {@link Keyed} contents, ordering siblings by identity.
+ * <p/>
+ * Contents are ordered by key, then by occurrence, so that contents with the same identity in different versions are
+ * aligned. The rest of the contents does not matter.
+ *
+ * @param <T> the type of content for the node
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class KeyedComparator<T extends Keyed> implements Comparator<Node<T>> {
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public int compare(Node<T> node1, Node<T> node2) {
+        T content1 = node1.getContent();
+        T content2 = node2.getContent();
+
+        String key1 = content1.getKey();
+        String key2 = content2.getKey();
+        // Keys are mostly pooled names, equal keys are usually the same instance
+        int result = key1 == key2 ? 0 : key1.compareTo(key2);
+        return result == 0 ? Integer.compare(content1.getOccurrence(), content2.getOccurrence()) : result;
+    }
+}
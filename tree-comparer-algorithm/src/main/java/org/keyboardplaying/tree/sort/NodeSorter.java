@@ -18,13 +18,16 @@ package org.keyboardplaying.tree.sort;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
 import org.keyboardplaying.tree.model.Node;
 
 /**
- * This class recursively sorts all children from a tree using a provided {@link Comparator}.
+ * This class sorts all children from a tree using a provided {@link Comparator}.
+ * <p/>
+ * The tree is walked iteratively, so that deep trees do not overflow the stack.
  *
  * @param <T> the type of content for the nodes being processed here
  * @author Cyrille Chopelet (https://keyboardplaying.org)
@@ -44,23 +47,27 @@ public class NodeSorter<T> {
     }
 
     /**
-     * Recursively sorts the children of this tree using the instance's comparator.
+     * Sorts the children of all nodes of this tree using the instance's comparator.
      *
      * @param node the tree which should be sorted
      */
     public void sort(Node<T> node) {
         Objects.requireNonNull(comparator, "No comparator has been set, sorting cannot be performed.");
 
-        if (node.getChildren().isEmpty()) {
+        // The iterator has collected the children of a node by the time it returns it, in whatever order
+        Iterator<Node<T>> iter = node.breadthFirstIterator();
+        while (iter.hasNext()) {
+            sortChildren(iter.next());
+        }
+    }
+
+    private void sortChildren(Node<T> node) {
+        if (node.getChildren().size() < 2) {
             return;
         }
 
         List<Node<T>> children = new ArrayList<>(node.getChildren());
         children.sort(comparator);
         node.setChildren(children);
-
-        for (Node<T> child : children) {
-            sort(child);
-        }
     }
 }
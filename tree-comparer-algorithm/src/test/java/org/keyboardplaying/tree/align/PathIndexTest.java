@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.align;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.sort.NodeContentComparator;
+import org.keyboardplaying.tree.util.NodeTestUtil;
+
+/**
+ * Test class for {@link PathIndex}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class PathIndexTest {
+
+    private Node<String> tree1;
+    private Node<String> tree2;
+
+    /**
+     * Prepares the trees to align.
+     */
+    @Before
+    public void init() {
+        tree1 = new Node<>("root");
+        Node<String> a = new Node<>("a");
+        a.setChildren(NodeTestUtil.asNodes("a1", "a2"));
+        tree1.setChildren(Arrays.asList(a, new Node<>("b")));
+
+        tree2 = new Node<>("root");
+        Node<String> c = new Node<>("c");
+        c.setChildren(NodeTestUtil.asNodes("c1"));
+        Node<String> a2 = new Node<>("a");
+        a2.setChildren(NodeTestUtil.asNodes("a2", "a3"));
+        tree2.setChildren(Arrays.asList(a2, c));
+    }
+
+    /**
+     * Tests an index built during the alignment.
+     */
+    @Test
+    public void testIndexDuringAlignment() {
+        /* Prepare */
+        TreeAligner<String> aligner = new TreeAligner<>(new NodeContentComparator<String>());
+        PathIndex<String> index = new PathIndex<>(Function.identity());
+        aligner.addListener(index);
+
+        /* Execute */
+        Node<Variations<String>> aligned = aligner.alignTrees(tree1, tree2);
+
+        /* Assert */
+        assertEquals(8, index.size());
+        assertSame(aligned, index.get(""));
+        Node<Variations<String>> a3 = index.get("a/a3");
+        assertEquals(new Variations<>(Arrays.asList(null, "a3")), a3.getContent());
+        assertEquals(new Variations<>(Arrays.asList(null, "c1")), index.get("c/c1").getContent());
+        assertNull(index.get("a/c1"));
+        assertNull(index.get("z/a1"));
+
+        assertSame(index.get("a"), index.getParent(a3));
+        assertNull(index.getParent(aligned));
+        assertEquals(Arrays.asList(aligned, index.get("a")), index.getAncestors(a3));
+        assertEquals(Arrays.asList("a", "a3"), index.getPath(a3));
+        assertEquals(Collections.emptyList(), index.getPath(aligned));
+    }
+
+    /**
+     * Ensures an index built afterwards is the same as one built during the alignment.
+     */
+    @Test
+    public void testIndexAfterAlignment() {
+        /* Prepare */
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>())
+                .alignTrees(tree1, tree2);
+        PathIndex<String> index = new PathIndex<>(Function.identity());
+
+        /* Execute */
+        index.index(aligned);
+
+        /* Assert */
+        assertEquals(8, index.size());
+        assertSame(aligned.getChildren().get(0).getChildren().get(2), index.get(Arrays.asList("a", "a3")));
+        assertTrue(index.getAncestors(new Node<>(new Variations<String>(2))).isEmpty());
+        assertNull(index.getPath(new Node<>(new Variations<String>(2))));
+    }
+
+    /**
+     * Ensures a new alignment resets the index.
+     */
+    @Test
+    public void testReset() {
+        /* Prepare */
+        TreeAligner<String> aligner = new TreeAligner<>(new NodeContentComparator<String>());
+        PathIndex<String> index = new PathIndex<>(Function.identity());
+        aligner.addListener(index);
+        aligner.alignTrees(tree1, tree2);
+
+        /* Execute */
+        Node<Variations<String>> aligned = aligner.alignTrees(tree1);
+
+        /* Assert */
+        assertEquals(5, index.size());
+        assertSame(aligned, index.get(""));
+        assertNull(index.get("c"));
+    }
+}
@@ -19,13 +19,19 @@ package org.keyboardplaying.tree.align;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.SparseVariations;
 import org.keyboardplaying.tree.model.Variations;
 import org.keyboardplaying.tree.sort.NodeContentComparator;
 import org.keyboardplaying.tree.util.NodeTestUtil;
@@ -127,4 +133,176 @@ public class TreeAlignerTest {
         Node<Variations<String>> alignedA4 = aligned.getChildren().get(3);
         assertEquals(new Variations<>(Arrays.asList("A4", "A4", "A4")), alignedA4.getContent());
     }
+
+    /**
+     * Tests the alignment of many trees which mostly agree.
+     */
+    @Test
+    public void testManyTreesAlignment() {
+        /* Prepare */
+        int nbTrees = 50;
+        List<Node<String>> trees = new ArrayList<>(nbTrees);
+        for (int i = 0; i < nbTrees; i++) {
+            Node<String> tree = new Node<>("root");
+            tree.setChildren(NodeTestUtil.asNodes("A", i == 7 ? "C" : "B"));
+            trees.add(tree);
+        }
+
+        /* Execute */
+        Node<Variations<String>> aligned = aligner.alignTrees(trees);
+
+        /* Assert */
+        assertEquals(new Variations<>(Collections.nCopies(nbTrees, "root")), aligned.getContent());
+        assertEquals(3, aligned.getChildren().size());
+        assertEquals(new Variations<>(Collections.nCopies(nbTrees, "A")), aligned.getChildren().get(0).getContent());
+
+        List<String> b = new ArrayList<>(Collections.nCopies(nbTrees, "B"));
+        b.set(7, null);
+        Variations<String> alignedB = aligned.getChildren().get(1).getContent();
+        assertEquals(new Variations<>(b), alignedB);
+        assertEquals(-1, alignedB.getEquivalenceClass(7));
+        Variations<String> alignedC = aligned.getChildren().get(2).getContent();
+        assertEquals(1, alignedC.getPresence().cardinality());
+        // Rare presence is stored sparsely
+        assertTrue(alignedC instanceof SparseVariations);
+    }
+
+    /**
+     * Ensures the smallest child is found wherever it is, even after children which are not part of the line.
+     */
+    @Test
+    public void testSmallestChildLast() {
+        /* Prepare */
+        Node<String> tree1 = new Node<>("root");
+        tree1.setChildren(NodeTestUtil.asNodes("x"));
+        Node<String> tree2 = new Node<>("root");
+        tree2.setChildren(NodeTestUtil.asNodes("y"));
+        Node<String> tree3 = new Node<>("root");
+        tree3.setChildren(NodeTestUtil.asNodes("a", "x"));
+
+        /* Execute */
+        Node<Variations<String>> aligned = aligner.alignTrees(tree1, tree2, tree3);
+
+        /* Assert */
+        assertEquals(3, aligned.getChildren().size());
+        assertEquals(new Variations<>(Arrays.asList(null, null, "a")), aligned.getChildren().get(0).getContent());
+        assertEquals(new Variations<>(Arrays.asList("x", null, "x")), aligned.getChildren().get(1).getContent());
+        assertEquals(new Variations<>(Arrays.asList(null, "y", null)), aligned.getChildren().get(2).getContent());
+    }
+
+    /**
+     * Ensures listeners are notified of each node before its children, and of each subtree after its children.
+     */
+    @Test
+    public void testListenerOrder() {
+        /* Prepare */
+        Node<String> tree1 = new Node<>("root");
+        Node<String> a = new Node<>("A");
+        a.setChildren(NodeTestUtil.asNodes("A1", "A2"));
+        tree1.setChildren(Arrays.asList(a, new Node<>("B")));
+        Node<String> tree2 = new Node<>("root");
+        tree2.setChildren(NodeTestUtil.asNodes("B", "C"));
+
+        final List<String> events = new ArrayList<>();
+        aligner.addListener(new AlignmentListener<String>() {
+
+            @Override
+            public void nodeAligned(Node<Variations<String>> node, Node<Variations<String>> parent) {
+                events.add("+" + name(node) + (parent == null ? "" : "<" + name(parent)));
+            }
+
+            @Override
+            public void subtreeAligned(Node<Variations<String>> node) {
+                events.add("-" + name(node) + node.getChildren().size());
+            }
+
+            private String name(Node<Variations<String>> node) {
+                Variations<String> content = node.getContent();
+                return content.get(0) == null ? content.get(1) : content.get(0);
+            }
+        });
+
+        /* Execute */
+        aligner.alignTrees(tree1, tree2);
+
+        /* Assert */
+        assertEquals(Arrays.asList("+root", "+A<root", "+A1<A", "-A10", "+A2<A", "-A20", "-A2", "+B<root", "-B0",
+                "+C<root", "-C0", "-root3"), events);
+    }
+
+    /**
+     * Ensures very deep trees are aligned without overflowing the stack.
+     */
+    @Test
+    public void testDeepTreesAlignment() {
+        /* Prepare */
+        int depth = 200_000;
+        Node<String> tree1 = new Node<>("root");
+        Node<String> tree2 = new Node<>("root");
+        Node<String> current1 = tree1;
+        Node<String> current2 = tree2;
+        for (int i = 0; i < depth; i++) {
+            Node<String> child1 = new Node<>("level");
+            Node<String> child2 = new Node<>(i == depth - 1 ? "leaf" : "level");
+            current1.addChild(child1);
+            current2.addChild(child2);
+            current1 = child1;
+            current2 = child2;
+        }
+
+        /* Execute */
+        Node<Variations<String>> aligned = aligner.alignTrees(tree1, tree2);
+
+        /* Assert */
+        Node<Variations<String>> node = aligned;
+        for (int i = 1; i < depth; i++) {
+            assertEquals(1, node.getChildren().size());
+            node = node.getChildren().get(0);
+            assertTrue(node.getContent().isConstant());
+        }
+        assertEquals(2, node.getChildren().size());
+        assertEquals(new Variations<>(Arrays.asList(null, "leaf")), node.getChildren().get(0).getContent());
+        assertEquals(new Variations<>(Arrays.asList("level", null)), node.getChildren().get(1).getContent());
+    }
+
+    private static Node<String> sampleTree(String leaf) {
+        Node<String> tree = new Node<>("root");
+        for (String name : Arrays.asList("A", "B", "C")) {
+            Node<String> child = new Node<>(name);
+            child.setChildren(NodeTestUtil.asNodes(name + "1", name + "2", name + "3"));
+            tree.addChild(child);
+        }
+        tree.getChildren().get(2).addChild(new Node<>(leaf));
+        return tree;
+    }
+
+    /**
+     * Ensures skipping identical subtrees gives the same alignment with fewer comparisons.
+     */
+    @Test
+    public void testSkipIdenticalSubtrees() {
+        /* Prepare */
+        final AtomicInteger comparisons = new AtomicInteger();
+        final Comparator<Node<String>> comparator = new NodeContentComparator<>();
+        TreeAligner<String> counting = new TreeAligner<>(new Comparator<Node<String>>() {
+            @Override
+            public int compare(Node<String> o1, Node<String> o2) {
+                comparisons.incrementAndGet();
+                return comparator.compare(o1, o2);
+            }
+        });
+
+        /* Execute */
+        Node<Variations<String>> expected = counting.alignTrees(sampleTree("C4"), sampleTree("C4"), sampleTree("C5"));
+        int allComparisons = comparisons.getAndSet(0);
+        counting.setSkipIdenticalSubtrees(true);
+        Node<Variations<String>> aligned = counting.alignTrees(sampleTree("C4"), sampleTree("C4"), sampleTree("C5"));
+
+        /* Assert */
+        assertTrue(expected.subtreeEquals(aligned));
+        assertTrue(comparisons.get() < allComparisons);
+        assertEquals(5, aligned.getChildren().get(2).getChildren().size());
+        assertEquals(new Variations<>(Arrays.asList("C4", "C4", null)),
+                aligned.getChildren().get(2).getChildren().get(3).getContent());
+    }
 }
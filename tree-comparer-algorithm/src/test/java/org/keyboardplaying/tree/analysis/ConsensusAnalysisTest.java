@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.sort.NodeContentComparator;
+import org.keyboardplaying.tree.util.NodeTestUtil;
+
+/**
+ * Test class for {@link ConsensusAnalysis}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConsensusAnalysisTest {
+
+    private static Node<String> host(String... files) {
+        Node<String> root = new Node<>("root");
+        Node<String> etc = new Node<>("etc");
+        etc.setChildren(NodeTestUtil.asNodes(files));
+        root.addChild(etc);
+        return root;
+    }
+
+    /**
+     * Tests the consensus and the deviations on a few trees.
+     */
+    @Test
+    public void testConsensus() {
+        /* Prepare */
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>()).alignTrees(
+                host("hosts", "passwd"), host("hosts", "passwd"), host("hosts", "passwd", "rogue"),
+                host("passwd"));
+
+        /* Execute */
+        Consensus<String> consensus = new ConsensusAnalysis<String>().analyze(aligned);
+
+        /* Assert */
+        assertTrue(host("hosts", "passwd").subtreeEquals(consensus.getTree()));
+        assertEquals(5, consensus.getNodeCount());
+        assertEquals(0, consensus.getDeviations(0));
+        assertEquals(1, consensus.getDeviations(2));
+        assertEquals(1, consensus.getDeviations(3));
+        assertEquals(0.2, consensus.getOutlierScore(2), 1e-9);
+        assertEquals(2, consensus.getOutliers()[0]);
+        assertEquals(3, consensus.getOutliers()[1]);
+    }
+
+    /**
+     * Ensures nodes absent from most trees are left out, with their subtree.
+     */
+    @Test
+    public void testAbsentFromMost() {
+        /* Prepare */
+        Node<String> odd = new Node<>("root");
+        Node<String> opt = new Node<>("opt");
+        opt.setChildren(NodeTestUtil.asNodes("tool"));
+        odd.addChild(opt);
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>())
+                .alignTrees(new Node<>("root"), new Node<>("root"), odd);
+
+        /* Execute */
+        Consensus<String> consensus = new ConsensusAnalysis<String>().analyze(aligned);
+
+        /* Assert */
+        assertTrue(consensus.getTree().getChildren().isEmpty());
+        assertArrayEquals(new int[] { 2, 0, 1 }, consensus.getOutliers());
+        assertEquals(2, consensus.getDeviations(2));
+    }
+
+    /**
+     * Ensures no consensus tree is produced when the root is absent from most trees.
+     */
+    @Test
+    public void testNoConsensus() {
+        /* Prepare */
+        List<String> roots = new ArrayList<>(Arrays.asList("root", null, null));
+        Node<Variations<String>> aligned = new Node<>(new Variations<>(roots));
+
+        /* Execute */
+        Consensus<String> consensus = new ConsensusAnalysis<String>().analyze(aligned);
+
+        /* Assert */
+        assertNull(consensus.getTree());
+        assertEquals(1, consensus.getDeviations(0));
+    }
+
+    /**
+     * Ensures no tree is favored on a tie.
+     */
+    @Test
+    public void testTie() {
+        /* Prepare */
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>())
+                .alignTrees(host("hosts"), host("passwd"));
+        Node<Variations<String>> split = new Node<>(new Variations<>(Arrays.asList("a", "b", "b", "a")));
+
+        /* Execute */
+        Consensus<String> consensus = new ConsensusAnalysis<String>().analyze(aligned);
+        Consensus<String> splitConsensus = new ConsensusAnalysis<String>().analyze(split);
+
+        /* Assert */
+        assertEquals(2, consensus.getDeviations(0));
+        assertEquals(2, consensus.getDeviations(1));
+        // Tied nodes are kept with their first variation
+        assertTrue(host("hosts", "passwd").subtreeEquals(consensus.getTree()));
+        assertEquals(1, splitConsensus.getDeviations(0));
+        assertEquals(1, splitConsensus.getDeviations(1));
+        assertEquals("a", splitConsensus.getTree().getContent());
+    }
+
+    /**
+     * Ensures the parallel analysis of many trees is the same as a sequential one.
+     */
+    @Test
+    public void testManyTreesInParallel() {
+        /* Prepare */
+        int nbHosts = 300;
+        List<Node<String>> hosts = new ArrayList<>(nbHosts);
+        for (int h = 0; h < nbHosts; h++) {
+            Node<String> root = new Node<>("root");
+            for (int d = 0; d < 20; d++) {
+                Node<String> dir = new Node<>("dir" + d);
+                for (int f = 0; f < 20; f++) {
+                    // Host 42 is the odd one out
+                    dir.addChild(new Node<>(h == 42 && f % 2 == 0 ? "changed" + f : "file" + f));
+                }
+                root.addChild(dir);
+            }
+            hosts.add(root);
+        }
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>()).alignTrees(hosts);
+
+        /* Execute */
+        Consensus<String> parallel = new ConsensusAnalysis<String>(new ForkJoinPool(4)).analyze(aligned);
+        Consensus<String> sequential = new ConsensusAnalysis<String>(new ForkJoinPool(1)).analyze(aligned);
+
+        /* Assert */
+        assertEquals(42, parallel.getOutliers()[0]);
+        // 10 changed files seen as new, 10 original files missing, in each directory
+        assertEquals(20 * 20, parallel.getDeviations(42));
+        assertEquals(0, parallel.getDeviations(0));
+        assertEquals(sequential.getNodeCount(), parallel.getNodeCount());
+        assertTrue(hosts.get(0).subtreeEquals(parallel.getTree()));
+        assertTrue(sequential.getTree().subtreeEquals(parallel.getTree()));
+    }
+}
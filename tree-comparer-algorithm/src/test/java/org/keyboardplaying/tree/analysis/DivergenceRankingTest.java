@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Test class for {@link DivergenceRanking} and {@link DivergenceWeight}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class DivergenceRankingTest {
+
+    private Node<Variations<String>> root;
+    private Node<Variations<String>> a;
+    private Node<Variations<String>> b;
+
+    private static Node<Variations<String>> node(String... variations) {
+        return new Node<>(new Variations<>(Arrays.asList(variations)));
+    }
+
+    /**
+     * Builds the following aligned tree:
+     *
+     * <pre>
+     *           tree 0    tree 1
+     * root      root      root
+     * a         a         a
+     * a/a1      xx        xxxx
+     * a/a2      y         -
+     * a/a3      z         z
+     * b         b         b
+     * b/b1      w         ww
+     * c         c         cc
+     * </pre>
+     */
+    @Before
+    public void init() {
+        root = node("root", "root");
+        a = node("a", "a");
+        a.setChildren(Arrays.asList(node("xx", "xxxx"), node("y", null), node("z", "z")));
+        b = node("b", "b");
+        b.addChild(node("w", "ww"));
+        root.setChildren(Arrays.asList(a, b, node("c", "cc")));
+    }
+
+    /**
+     * Tests the ranking by changed nodes, with the default settings.
+     */
+    @Test
+    public void testChangedNodes() {
+        /* Prepare */
+        DivergenceRanking<String> ranking = new DivergenceRanking<>(5, DivergenceWeight.<String> changedNodes());
+
+        /* Execute */
+        List<RankedSubtree<String>> ranked = ranking.rank(root);
+
+        /* Assert */
+        // Neither the root nor the leaves are ranked
+        assertEquals(2, ranked.size());
+        assertSame(a, ranked.get(0).getNode());
+        assertEquals(2, ranked.get(0).getWeight());
+        assertEquals(1, ranked.get(0).getDepth());
+        assertSame(b, ranked.get(1).getNode());
+        assertEquals(1, ranked.get(1).getWeight());
+    }
+
+    /**
+     * Ensures only the K heaviest subtrees are kept.
+     */
+    @Test
+    public void testBounded() {
+        /* Prepare */
+        DivergenceRanking<String> ranking = new DivergenceRanking<>(2, DivergenceWeight.<String> changedNodes());
+        ranking.setMinDepth(0);
+        ranking.setLeavesRanked(true);
+
+        /* Execute */
+        List<RankedSubtree<String>> ranked = ranking.rank(root);
+
+        /* Assert */
+        assertEquals(2, ranked.size());
+        assertSame(root, ranked.get(0).getNode());
+        assertEquals(4, ranked.get(0).getWeight());
+        assertEquals(0, ranked.get(0).getDepth());
+        assertSame(a, ranked.get(1).getNode());
+    }
+
+    /**
+     * Tests the ranking by changed bytes.
+     */
+    @Test
+    public void testChangedBytes() {
+        /* Prepare */
+        DivergenceRanking<String> ranking = new DivergenceRanking<>(3, DivergenceWeight.changedBytes(String::length));
+        ranking.setLeavesRanked(true);
+
+        /* Execute */
+        List<RankedSubtree<String>> ranked = ranking.rank(root);
+
+        /* Assert */
+        assertSame(a, ranked.get(0).getNode());
+        assertEquals(5, ranked.get(0).getWeight());
+        assertEquals(4, ranked.get(1).getWeight());
+        assertEquals(2, ranked.get(2).getWeight());
+    }
+
+    /**
+     * Tests a custom weight and a tree without differences.
+     */
+    @Test
+    public void testCustomWeight() {
+        /* Prepare */
+        DivergenceRanking<String> absences = new DivergenceRanking<>(1,
+                variations -> variations.size() - variations.getPresence().cardinality());
+        Node<Variations<String>> identical = node("root", "root");
+        identical.addChild(node("a", "a"));
+
+        /* Execute */
+        List<RankedSubtree<String>> ranked = absences.rank(root);
+
+        /* Assert */
+        assertEquals(1, ranked.size());
+        assertSame(a, ranked.get(0).getNode());
+        assertEquals(1, ranked.get(0).getWeight());
+        assertTrue(absences.rank(identical).isEmpty());
+    }
+
+    /**
+     * Ensures a deep tree does not overflow the stack.
+     */
+    @Test
+    public void testDeepTree() {
+        /* Prepare */
+        Node<Variations<String>> deep = node("0", "0");
+        Node<Variations<String>> current = deep;
+        for (int i = 1; i < 100_000; i++) {
+            Node<Variations<String>> child = node("v", "w");
+            current.addChild(child);
+            current = child;
+        }
+        DivergenceRanking<String> ranking = new DivergenceRanking<>(1, DivergenceWeight.<String> changedNodes());
+
+        /* Execute */
+        List<RankedSubtree<String>> ranked = ranking.rank(deep);
+
+        /* Assert */
+        assertSame(deep.getChildren().get(0), ranked.get(0).getNode());
+        assertEquals(99_999, ranked.get(0).getWeight());
+    }
+
+    /**
+     * Ensures K must be positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSubtreeKept() {
+        new DivergenceRanking<>(0, DivergenceWeight.<String> changedNodes());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.sort.NodeContentComparator;
+import org.keyboardplaying.tree.util.NodeTestUtil;
+
+/**
+ * Test class for {@link EquivalenceGroups}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class EquivalenceGroupsTest {
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int i : indices) {
+            bits.set(i);
+        }
+        return bits;
+    }
+
+    private static Node<String> tree(String root, String... children) {
+        Node<String> tree = new Node<>(root);
+        tree.setChildren(NodeTestUtil.asNodes(children));
+        return tree;
+    }
+
+    /**
+     * Tests the groups of an aligned tree.
+     */
+    @Test
+    public void testGroups() {
+        /* Prepare */
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>()).alignTrees(
+                tree("A", "x"), tree("B", "x", "y"), tree("A", "y"), tree("B"), tree("C", "x"), tree("A"));
+        List<String> order = new ArrayList<>();
+
+        /* Execute */
+        Map<Node<Variations<String>>, List<BitSet>> groups = EquivalenceGroups.collect(aligned);
+        EquivalenceGroups.forEach(aligned, (node, g) -> order.add(node.getContent().toString()));
+
+        /* Assert */
+        assertEquals(3, groups.size());
+        assertEquals(Arrays.asList(bits(0, 2, 5), bits(1, 3), bits(4)), groups.get(aligned));
+        assertEquals(Arrays.asList(bits(0, 1, 4)), groups.get(aligned.getChildren().get(0)));
+        assertEquals(Arrays.asList(bits(1, 2)), groups.get(aligned.getChildren().get(1)));
+        assertEquals(aligned.getContent().toString(), order.get(0));
+        assertEquals(3, order.size());
+    }
+
+    /**
+     * Ensures the groups of many trees are computed during the alignment, whatever the storage of the variations.
+     */
+    @Test
+    public void testManyTrees() {
+        /* Prepare */
+        List<Node<String>> trees = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            trees.add(tree(i % 2 == 0 ? "even" : "odd", i == 3 ? "rare" : "common"));
+        }
+
+        /* Execute */
+        Node<Variations<String>> aligned = new TreeAligner<>(new NodeContentComparator<String>()).alignTrees(trees);
+        Map<Node<Variations<String>>, List<BitSet>> groups = EquivalenceGroups.collect(aligned);
+
+        /* Assert */
+        BitSet even = new BitSet();
+        BitSet odd = new BitSet();
+        BitSet common = new BitSet();
+        for (int i = 0; i < 40; i++) {
+            (i % 2 == 0 ? even : odd).set(i);
+            if (i != 3) {
+                common.set(i);
+            }
+        }
+        assertEquals(Arrays.asList(even, odd), groups.get(aligned));
+        assertEquals(Arrays.asList(common), groups.get(aligned.getChildren().get(0)));
+        assertEquals(Arrays.asList(bits(3)), groups.get(aligned.getChildren().get(1)));
+    }
+}
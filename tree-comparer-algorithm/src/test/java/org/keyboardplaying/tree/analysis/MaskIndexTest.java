@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.sort.NodeContentComparator;
+import org.keyboardplaying.tree.util.NodeTestUtil;
+
+/**
+ * Test class for {@link MaskIndex} and {@link MaskPredicate}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class MaskIndexTest {
+
+    private MaskIndex<String> index;
+    private Node<Variations<String>> aligned;
+
+    /**
+     * Aligns the following trees:
+     *
+     * <pre>
+     *        tree 0    tree 1    tree 2
+     * root   root      root      root'
+     * a      a         a         a
+     * a/x    x         -         x
+     * a/y    -         y         -
+     * b      b         -         b
+     * </pre>
+     */
+    @Before
+    public void init() {
+        Node<String> tree0 = new Node<>("root");
+        Node<String> a0 = new Node<>("a");
+        a0.setChildren(NodeTestUtil.asNodes("x"));
+        tree0.setChildren(Arrays.asList(a0, new Node<>("b")));
+
+        Node<String> tree1 = new Node<>("root");
+        Node<String> a1 = new Node<>("a");
+        a1.setChildren(NodeTestUtil.asNodes("y"));
+        tree1.addChild(a1);
+
+        Node<String> tree2 = new Node<>("root'");
+        Node<String> a2 = new Node<>("a");
+        a2.setChildren(NodeTestUtil.asNodes("x"));
+        tree2.setChildren(Arrays.asList(a2, new Node<>("b")));
+
+        TreeAligner<String> aligner = new TreeAligner<>(new NodeContentComparator<String>());
+        index = new MaskIndex<>();
+        aligner.addListener(index);
+        aligned = aligner.alignTrees(tree0, tree1, tree2);
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int i : indices) {
+            bits.set(i);
+        }
+        return bits;
+    }
+
+    private static List<Object> contents(List<Node<Variations<String>>> nodes) {
+        List<Object> contents = new ArrayList<>();
+        for (Node<Variations<String>> node : nodes) {
+            for (String variation : node.getContent()) {
+                if (variation != null) {
+                    contents.add(variation);
+                    break;
+                }
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Tests the masks of the nodes.
+     */
+    @Test
+    public void testMasks() {
+        /* Prepare */
+        Node<Variations<String>> a = aligned.getChildren().get(0);
+        Node<Variations<String>> y = a.getChildren().get(1);
+
+        /* Execute */
+        NodeMasks rootMasks = index.getMasks(aligned);
+        NodeMasks aMasks = index.getMasks(a);
+        NodeMasks yMasks = index.getMasks(y);
+
+        /* Assert */
+        assertEquals(bits(0, 1, 2), rootMasks.getPresence());
+        assertEquals(bits(2), rootMasks.getReferenceDisagreement());
+        assertEquals(bits(2), rootMasks.getMajorityDisagreement());
+        assertEquals(bits(1, 2), rootMasks.getReferenceDisagreementAnywhere());
+        assertEquals(bits(), rootMasks.getPresentEverywhere());
+        assertEquals(bits(), rootMasks.getAbsentEverywhere());
+
+        assertEquals(bits(), aMasks.getReferenceDisagreement());
+        assertEquals(bits(1), aMasks.getReferenceDisagreementAnywhere());
+
+        assertEquals(bits(1), yMasks.getPresence());
+        assertEquals(bits(0, 2), yMasks.getAbsence());
+        assertEquals(bits(1), yMasks.getReferenceDisagreement());
+        // Absence is the most common variation
+        assertEquals(bits(1), yMasks.getMajorityDisagreement());
+
+        assertNull(index.getMasks(new Node<>(new Variations<String>(3))));
+    }
+
+    /**
+     * Tests queries on presence.
+     */
+    @Test
+    public void testPresenceQueries() {
+        assertEquals(Arrays.asList("a", "x", "b"),
+                contents(index.select(MaskPredicate.presentIn(0, 2).and(MaskPredicate.absentFrom(1)).or(
+                        MaskPredicate.presentIn(0, 1, 2).and(MaskPredicate.differsFromReference(2).negate())))));
+        assertEquals(Arrays.asList("x", "b"),
+                contents(index.select(MaskPredicate.presentIn(0, 2).and(MaskPredicate.absentFrom(1)))));
+        assertEquals(Arrays.asList("y"), contents(index.select(MaskPredicate.absentFrom(0, 2))));
+        assertTrue(index.select(MaskPredicate.presentIn(0, 1).and(MaskPredicate.absentFrom(2))).isEmpty());
+    }
+
+    /**
+     * Tests queries on agreement.
+     */
+    @Test
+    public void testAgreementQueries() {
+        assertEquals(Arrays.asList("root"), contents(index.select(MaskPredicate.differsFromReference(2))));
+        assertEquals(Arrays.asList("x", "y", "b"), contents(index.select(MaskPredicate.differsFromMajority(1))));
+        assertTrue(index.select(MaskPredicate.differsFromMajority(0)).isEmpty());
+    }
+
+    /**
+     * Ensures subtrees which cannot match are pruned.
+     */
+    @Test
+    public void testPruning() {
+        /* Prepare */
+        NodeMasks bMasks = index.getMasks(aligned.getChildren().get(1));
+        NodeMasks aMasks = index.getMasks(aligned.getChildren().get(0));
+
+        /* Assert */
+        assertFalse(MaskPredicate.differsFromReference(2).mayMatchBelow(aMasks));
+        assertFalse(MaskPredicate.presentIn(1).mayMatchBelow(bMasks));
+        assertTrue(MaskPredicate.presentIn(1).negate().mayMatchBelow(bMasks));
+        assertFalse(MaskPredicate.absentFrom(0).mayMatchBelow(bMasks));
+    }
+
+    /**
+     * Ensures an index without alignment selects nothing.
+     */
+    @Test
+    public void testEmpty() {
+        assertTrue(new MaskIndex<String>(1).select(MaskPredicate.presentIn(0)).isEmpty());
+        assertEquals(1, new MaskIndex<String>(1).getReference());
+    }
+
+    /**
+     * Ensures a negative reference is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeReference() {
+        new MaskIndex<String>(-1);
+    }
+}
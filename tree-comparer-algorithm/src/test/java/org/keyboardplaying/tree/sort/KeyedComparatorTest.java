@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.model.Keyed;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Test class for {@link KeyedComparator}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class KeyedComparatorTest {
+
+    private final KeyedComparator<Keyed> comparator = new KeyedComparator<>();
+
+    private static Node<Keyed> node(String key, int occurrence) {
+        return new Node<>(new Keyed() {
+
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public int getOccurrence() {
+                return occurrence;
+            }
+        });
+    }
+
+    /**
+     * Tests the ordering by key, then occurrence.
+     */
+    @Test
+    public void testCompare() {
+        assertTrue(comparator.compare(node("item[id=a]", 1), node("item[id=b]", 0)) < 0);
+        assertTrue(comparator.compare(node("item", 2), node("item", 1)) > 0);
+        assertEquals(0, comparator.compare(node("item", 0), node(new String("item"), 0)));
+    }
+}
@@ -53,6 +53,31 @@ public class NodeSorterTest {
         assertOrder(expected, living);
     }
 
+    /**
+     * Ensures sorting a very deep tree does not overflow the stack.
+     */
+    @Test
+    public void testSortDeepTree() {
+        /* Prepare */
+        Node<String> root = new Node<>("root");
+        Node<String> current = root;
+        for (int i = 0; i < 100000; i++) {
+            Node<String> next = new Node<>("n" + i);
+            current.setChildren(Arrays.asList(new Node<>("z"), next));
+            current = next;
+        }
+
+        /* Execute */
+        new NodeSorter<>(new NodeContentComparator<String>()).sort(root);
+
+        /* Assert */
+        current = root;
+        for (int i = 0; i < 100000; i++) {
+            assertEquals("z", current.getChildren().get(1).getContent());
+            current = current.getChildren().get(0);
+        }
+    }
+
     private void assertOrder(Node<String> expected, Node<String> actual) {
         assertEquals(expected, actual);
 
@@ -20,11 +20,17 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+import org.keyboardplaying.tree.file.config.ConfigParser;
 import org.keyboardplaying.tree.file.filter.CompositeFileFilter;
+import org.keyboardplaying.tree.file.model.ComparisonLevel;
 import org.keyboardplaying.tree.file.model.FileSystemElement;
 import org.keyboardplaying.tree.model.Node;
 
@@ -41,6 +47,59 @@ public class FileNodeBuilder {
 
     private FileFilter filter;
 
+    private int parallelism = 1;
+
+    private ConfigParser configParser;
+
+    /**
+     * Sets the builder to use to create the {@link FileSystemElement} instances.
+     *
+     * @param builder the builder to use
+     */
+    public void setElementBuilder(FileSystemElementBuilder builder) {
+        Objects.requireNonNull(builder, "The element builder cannot be null.");
+        this.builder = builder;
+    }
+
+    /**
+     * Sets the level of detail to use when building the {@link FileSystemElement} instances.
+     *
+     * @param level the level of detail
+     * @see FileSystemElementBuilder#setComparisonLevel(ComparisonLevel)
+     */
+    public void setComparisonLevel(ComparisonLevel level) {
+        builder.setComparisonLevel(level);
+    }
+
+    /**
+     * Sets the number of workers to use to hash the files.
+     * <p/>
+     * When more than one worker is used, the tree is enumerated first, then the files are hashed largest first by a
+     * {@link HashingScheduler}.
+     *
+     * @param parallelism the number of workers; {@code 1} (the default) hashes the files sequentially while walking
+     *                    the tree
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the parser to use to expand configuration files into subtrees of their sections and entries.
+     * <p/>
+     * Configuration files are not expanded at the {@link ComparisonLevel#METADATA} level, whose point is not to read
+     * the content of files.
+     *
+     * @param configParser the parser to use; {@code null} (the default) keeps configuration files as leaves
+     * @see ConfigParser
+     */
+    public void setConfigParser(ConfigParser configParser) {
+        this.configParser = configParser;
+    }
+
     /**
      * Sets the {@link FileFilter} to use to determine which files should or should not be included in the tree.
      *
@@ -83,7 +142,18 @@ public class FileNodeBuilder {
         }
 
         // If directory, use . as a name to ease later comparison.
-        return buildNode(root.isDirectory() ? new File(root, ROOT_DIR_NAME) : root);
+        File start = root.isDirectory() ? new File(root, ROOT_DIR_NAME) : root;
+
+        // Nothing to hash at the metadata level.
+        if (parallelism == 1 || builder.getComparisonLevel() == ComparisonLevel.METADATA) {
+            return buildNode(start);
+        }
+
+        Map<File, File[]> listings = new HashMap<>();
+        List<File> files = new ArrayList<>();
+        enumerate(start, listings, files);
+        Map<File, FileSystemElement> elements = new HashingScheduler(parallelism).hash(files, builder);
+        return assembleNode(start, listings, elements);
     }
 
     /**
@@ -109,8 +179,66 @@ public class FileNodeBuilder {
         } else {
 
             node = new Node<>(builder.buildFileElement(file));
+            expandConfig(node);
         }
 
         return node;
     }
+
+    /**
+     * Recursively lists the directories and collects the files to hash, without reading any file.
+     *
+     * @param file     the file or directory to enumerate
+     * @param listings the content of each enumerated directory
+     * @param files    the enumerated files
+     */
+    private void enumerate(File file, Map<File, File[]> listings, List<File> files) {
+        if (file.isDirectory()) {
+            File[] childFiles = file.listFiles(filter);
+            listings.put(file, childFiles == null ? new File[0] : childFiles);
+            for (File childFile : listings.get(file)) {
+                enumerate(childFile, listings, files);
+            }
+        } else {
+            files.add(file);
+        }
+    }
+
+    /**
+     * Recursively builds a node from the enumerated directories and the hashed files.
+     *
+     * @param file     the file or directory to build a node for
+     * @param listings the content of each enumerated directory
+     * @param elements the hashed files
+     * @return the node for the supplied {@link File} with all children
+     * @throws IOException if a configuration file cannot be read
+     */
+    private Node<FileSystemElement> assembleNode(File file, Map<File, File[]> listings,
+                                                 Map<File, FileSystemElement> elements) throws IOException {
+        File[] childFiles = listings.get(file);
+        if (childFiles == null) {
+            Node<FileSystemElement> node = new Node<>(elements.get(file));
+            expandConfig(node);
+            return node;
+        }
+
+        Node<FileSystemElement> node = new Node<>(builder.buildDirectoryElement(file));
+        for (File childFile : childFiles) {
+            node.addChild(assembleNode(childFile, listings, elements));
+        }
+        return node;
+    }
+
+    /**
+     * Expands a configuration file into its sections and entries, if configured to and if the content of files is
+     * compared.
+     *
+     * @param node the node of a file
+     * @throws IOException if the configuration file cannot be read
+     */
+    private void expandConfig(Node<FileSystemElement> node) throws IOException {
+        if (configParser != null && builder.getComparisonLevel() != ComparisonLevel.METADATA) {
+            configParser.expand(node);
+        }
+    }
 }
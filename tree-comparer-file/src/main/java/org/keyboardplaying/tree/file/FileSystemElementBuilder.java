@@ -20,14 +20,31 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileOwnerAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 import javax.xml.bind.annotation.adapters.HexBinaryAdapter;
 
+import org.keyboardplaying.tree.file.model.ComparisonLevel;
+import org.keyboardplaying.tree.file.model.FileMetadata;
 import org.keyboardplaying.tree.file.model.FileSystemElement;
 import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.file.model.Normalization;
+import org.keyboardplaying.tree.model.NamePool;
 
 /**
  * A utility to create {@link FileSystemElement} representations of {@link File} instances.
@@ -50,9 +67,44 @@ public class FileSystemElementBuilder {
     public static final String CHECKSUM_ALGORITHM_SHA256 = "SHA-256";
 
     private static final int CHUNK_SIZE = 1024;
-    private static final float TXT_ASCII_DENSITY = 0.95F;
 
     private MessageDigest md;
+    private MessageDigest normalizedMd;
+
+    private ComparisonLevel level = ComparisonLevel.CONTENT;
+
+    private Set<Normalization> normalizations = EnumSet.allOf(Normalization.class);
+
+    private NamePool namePool = NamePool.getShared();
+
+    /**
+     * Creates a new instance, using MD5 as the checksum algorithm.
+     */
+    public FileSystemElementBuilder() {
+        // default configuration
+    }
+
+    /**
+     * Creates a new instance with the same configuration as the supplied builder.
+     * <p/>
+     * Builders are not thread-safe; this makes it possible to give each thread its own instance.
+     *
+     * @param template the builder to copy the configuration from
+     */
+    public FileSystemElementBuilder(FileSystemElementBuilder template) {
+        this.level = template.level;
+        this.normalizations = EnumSet.copyOf(template.normalizations);
+        this.namePool = template.namePool;
+        if (template.md != null) {
+            try {
+                setChecksumAlgorithm(template.md.getAlgorithm());
+            } catch (NoSuchAlgorithmException e) {
+                // this cannot happen, the template already uses it
+                throw new IllegalStateException("The algorithm <" + template.md.getAlgorithm()
+                        + "> could not be found.", e);
+            }
+        }
+    }
 
     /**
      * Sets the algorithm to use when building an element.
@@ -62,6 +114,62 @@ public class FileSystemElementBuilder {
      */
     public void setChecksumAlgorithm(String algorithm) throws NoSuchAlgorithmException {
         md = MessageDigest.getInstance(algorithm);
+        normalizedMd = MessageDigest.getInstance(algorithm);
+    }
+
+    /**
+     * Sets the rules to apply to the content of text files before computing their normalized checksum.
+     * <p/>
+     * The normalized checksum is computed in the same pass as the checksum. By default, all rules are applied.
+     *
+     * @param normalizations the rules to apply; no normalized checksum is computed if none is supplied
+     */
+    public void setNormalizations(Normalization... normalizations) {
+        setNormalizations(Arrays.asList(normalizations));
+    }
+
+    /**
+     * Sets the rules to apply to the content of text files before computing their normalized checksum.
+     * <p/>
+     * The normalized checksum is computed in the same pass as the checksum. By default, all rules are applied.
+     *
+     * @param normalizations the rules to apply; no normalized checksum is computed if none is supplied
+     */
+    public void setNormalizations(Collection<Normalization> normalizations) {
+        this.normalizations = normalizations.isEmpty() ? EnumSet.noneOf(Normalization.class)
+                : EnumSet.copyOf(normalizations);
+    }
+
+    /**
+     * Sets the level of detail to use when building an element.
+     *
+     * @param level the level of detail
+     */
+    public void setComparisonLevel(ComparisonLevel level) {
+        Objects.requireNonNull(level, "The comparison level cannot be null.");
+        this.level = level;
+    }
+
+    /**
+     * Returns the level of detail used when building an element.
+     *
+     * @return the level of detail
+     */
+    public ComparisonLevel getComparisonLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the pool the names of the elements are interned into.
+     * <p/>
+     * The builders of the trees to compare should share a pool, so that equal names are the same instance. By default,
+     * the {@link NamePool#getShared() shared pool} is used.
+     *
+     * @param namePool the pool to use
+     */
+    public void setNamePool(NamePool namePool) {
+        Objects.requireNonNull(namePool, "The name pool cannot be null.");
+        this.namePool = namePool;
     }
 
     private void initDefaultAlgorithm() {
@@ -69,7 +177,8 @@ public class FileSystemElementBuilder {
             setChecksumAlgorithm(CHECKSUM_ALGORITHM_MD5);
         } catch (NoSuchAlgorithmException e) {
             // this cannot happen
-            throw new IllegalStateException("The default algorithm <" + CHECKSUM_ALGORITHM_MD5 + "> could not be found.", e);
+            throw new IllegalStateException(
+                    "The default algorithm <" + CHECKSUM_ALGORITHM_MD5 + "> could not be found.", e);
         }
     }
 
@@ -80,57 +189,107 @@ public class FileSystemElementBuilder {
      * @return the {@link FileSystemElement} representation of the directory
      */
     public FileSystemElement buildDirectoryElement(File directory) {
-        return new FileSystemElement(directory, FileSystemElementType.DIRECTORY, null);
+        if (level == ComparisonLevel.METADATA) {
+            try {
+                return newElement(directory, FileSystemElementType.DIRECTORY, null, readMetadata(directory), null,
+                        null);
+            } catch (IOException e) {
+                // Keep the directory in the tree, its attributes will be read from the file if requested.
+                return newElement(directory, FileSystemElementType.DIRECTORY, null, null, null, null);
+            }
+        }
+        return newElement(directory, FileSystemElementType.DIRECTORY, null, null, null, null);
     }
 
     /**
      * Builds a {@link FileSystemElement} for a file.
      * <p/>
-     * This includes binary vs. text detection and MD5 checksum computation.
+     * At the {@link ComparisonLevel#CONTENT} level, this includes binary vs. text detection, charset detection, MD5
+     * checksum computation and, for text files, normalized checksum computation. At the
+     * {@link ComparisonLevel#METADATA} level, only the attributes of the file are read.
      *
      * @param file the {@link File} representation of the file
      * @return the {@link FileSystemElement} representation of the directory
+     * @throws IOException if the file cannot be read
      */
     public FileSystemElement buildFileElement(File file) throws IOException {
+        if (level == ComparisonLevel.METADATA) {
+            return newElement(file, FileSystemElementType.FILE, null, readMetadata(file), null, null);
+        }
         return doBuildFileElement(file);
     }
 
+    /**
+     * Reads the attributes of a file in a single bulk operation, without opening the file.
+     *
+     * @param file the file
+     * @return the attributes of the file
+     * @throws IOException if the attributes cannot be read
+     */
+    private FileMetadata readMetadata(File file) throws IOException {
+        Path path = file.toPath();
+        try {
+            PosixFileAttributes attrs = Files.readAttributes(path, PosixFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            return new FileMetadata(attrs.size(), attrs.lastModifiedTime().toMillis(),
+                    PosixFilePermissions.toString(attrs.permissions()), attrs.owner().getName());
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system, fall back to the basic attributes.
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            FileOwnerAttributeView ownerView = Files.getFileAttributeView(path, FileOwnerAttributeView.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            String owner = ownerView == null ? null : ownerView.getOwner().getName();
+            return new FileMetadata(attrs.size(), attrs.lastModifiedTime().toMillis(), null, owner);
+        }
+    }
+
     private FileSystemElement doBuildFileElement(File file) throws IOException {
         if (md == null) {
             initDefaultAlgorithm();
         }
 
-        FileSystemElementType type;
-        try (InputStream is = new FileInputStream(file); DigestInputStream dis = new DigestInputStream(is, md)) {
-            type = isAsciiFile(dis) ? FileSystemElementType.TEXT : FileSystemElementType.BINARY;
+        md.reset();
+        TextDetector detector = new TextDetector();
+        TextNormalizer normalizer = normalizations.isEmpty() ? null : new TextNormalizer(normalizedMd, normalizations);
+
+        // A single pass for the checksum, the text detection and the normalized checksum
+        long size = file.length();
+        try (InputStream is = new FileInputStream(file)) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while (0 < (read = is.read(buffer))) {
+                md.update(buffer, 0, read);
+                detector.update(buffer, 0, read);
+                if (normalizer != null && detector.isNeverAsciiText(size)) {
+                    // No need to normalize a content which will not be recognized as text
+                    normalizer = null;
+                }
+                if (normalizer != null) {
+                    normalizer.update(buffer, 0, read);
+                }
+            }
         }
         String digest = digestToHexString(md.digest());
 
-        return new FileSystemElement(file, type, digest);
-    }
-
-    private boolean isAsciiFile(InputStream is) throws IOException {
-        long asciiChars = 0;
-        long otherChars = 0;
-
-        byte[] buffer = new byte[CHUNK_SIZE];
-        int read;
-        while (0 < (read = is.read(buffer))) {
-            for (int i = 0; i < read; ++i) {
-                if (isAsciiCharacter(buffer[i])) {
-                    asciiChars++;
-                } else {
-                    otherChars++;
-                }
+        Charset charset = detector.getCharset();
+        String normalizedDigest = null;
+        if (normalizer != null) {
+            byte[] normalized = normalizer.digest();
+            // The normalization only makes sense for ASCII-compatible text
+            if (charset != null && charset != StandardCharsets.UTF_16BE && charset != StandardCharsets.UTF_16LE) {
+                normalizedDigest = digestToHexString(normalized);
             }
         }
 
-        // Text if the density of ASCII characters is over the threshold.
-        return otherChars == 0 || (float) asciiChars / (otherChars + asciiChars) > TXT_ASCII_DENSITY;
+        FileSystemElementType type = charset == null ? FileSystemElementType.BINARY : FileSystemElementType.TEXT;
+        return newElement(file, type, digest, null, charset, normalizedDigest);
     }
 
-    private boolean isAsciiCharacter(byte b) {
-        return Character.isWhitespace((char) b) || b >= 0x20 && b <= 0x7E;
+    private FileSystemElement newElement(File file, FileSystemElementType type, String checksum,
+                                         FileMetadata metadata, Charset charset, String normalizedChecksum) {
+        return new FileSystemElement(file, namePool.intern(file.getName()), type, checksum, metadata, charset,
+                normalizedChecksum);
     }
 
     private String digestToHexString(byte[] digest) {
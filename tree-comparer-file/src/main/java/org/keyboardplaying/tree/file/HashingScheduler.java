@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+
+/**
+ * Computes the {@link FileSystemElement} representations of a batch of files on several workers.
+ * <p/>
+ * Hashing is bound by the number of bytes to read, not by the number of files. The files are therefore ordered by
+ * size, largest first, and each worker picks the next file of the queue as soon as it is done with the previous one.
+ * This greedy largest-first scheduling prevents a few huge files picked up late from keeping a single core busy while
+ * the others are idle, and keeps the wall time close to the total number of bytes divided by the aggregate bandwidth.
+ * <p/>
+ * The bytes each worker processed during the last run are accounted for and can be retrieved through
+ * {@link #getHashedBytes()}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class HashingScheduler {
+
+    private final int nbWorkers;
+
+    private long[] hashedBytes = new long[0];
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nbWorkers the number of workers to spread the hashing on
+     */
+    public HashingScheduler(int nbWorkers) {
+        if (nbWorkers < 1) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.nbWorkers = nbWorkers;
+    }
+
+    /**
+     * Returns the number of workers the hashing is spread on.
+     *
+     * @return the number of workers
+     */
+    public int getNbWorkers() {
+        return nbWorkers;
+    }
+
+    /**
+     * Orders the files to hash by decreasing size.
+     *
+     * @param files the files to hash
+     * @return the files, largest first
+     */
+    public File[] schedule(Collection<File> files) {
+        File[] scheduled = files.toArray(new File[files.size()]);
+        sortLargestFirst(scheduled, sizesOf(scheduled));
+        return scheduled;
+    }
+
+    /**
+     * Stats each file once, so that its size is not read again on each comparison nor once hashed.
+     *
+     * @param files the files
+     * @return the size of each file
+     */
+    private static long[] sizesOf(File[] files) {
+        long[] sizes = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            sizes[i] = files[i].length();
+        }
+        return sizes;
+    }
+
+    /**
+     * Sorts files by decreasing size, keeping their sizes aligned with them.
+     *
+     * @param files the files to sort
+     * @param sizes the size of each file
+     */
+    private static void sortLargestFirst(File[] files, long[] sizes) {
+        Integer[] indices = new Integer[files.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+
+        File[] unsortedFiles = files.clone();
+        long[] unsortedSizes = sizes.clone();
+        for (int i = 0; i < indices.length; i++) {
+            files[i] = unsortedFiles[indices[i]];
+            sizes[i] = unsortedSizes[indices[i]];
+        }
+    }
+
+    /**
+     * Builds the {@link FileSystemElement} representations of the supplied files.
+     * <p/>
+     * Each worker uses its own copy of the supplied builder, so that the builder does not need to be thread-safe.
+     *
+     * @param files    the files to hash
+     * @param template the builder whose configuration should be used
+     * @return the elements, mapped by file
+     * @throws IOException if a file cannot be read
+     */
+    public Map<File, FileSystemElement> hash(Collection<File> files, FileSystemElementBuilder template)
+            throws IOException {
+        File[] queue = files.toArray(new File[files.size()]);
+        long[] sizes = sizesOf(queue);
+        sortLargestFirst(queue, sizes);
+        AtomicInteger next = new AtomicInteger();
+
+        int nbTasks = Math.min(nbWorkers, queue.length);
+        List<Worker> workers = new ArrayList<>(nbTasks);
+        for (int i = 0; i < nbTasks; i++) {
+            workers.add(new Worker(new FileSystemElementBuilder(template), queue, sizes, next));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(nbTasks, 1));
+        try {
+            List<Future<Map<File, FileSystemElement>>> futures = executor.invokeAll(workers);
+
+            Map<File, FileSystemElement> elements = new HashMap<>(queue.length * 4 / 3 + 1);
+            long[] bytes = new long[nbTasks];
+            for (int i = 0; i < nbTasks; i++) {
+                elements.putAll(futures.get(i).get());
+                bytes[i] = workers.get(i).hashedBytes;
+            }
+            hashedBytes = bytes;
+            return elements;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Hashing was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of bytes each worker hashed during the last run.
+     *
+     * @return the number of bytes, per worker
+     */
+    public long[] getHashedBytes() {
+        return hashedBytes.clone();
+    }
+
+    /**
+     * A worker picking files from the shared queue until it is empty.
+     */
+    private static class Worker implements Callable<Map<File, FileSystemElement>> {
+
+        private final FileSystemElementBuilder builder;
+        private final File[] queue;
+        /** The size of each file of the queue, as read when scheduling. */
+        private final long[] sizes;
+        private final AtomicInteger next;
+
+        private long hashedBytes;
+
+        Worker(FileSystemElementBuilder builder, File[] queue, long[] sizes, AtomicInteger next) {
+            this.builder = builder;
+            this.queue = queue;
+            this.sizes = sizes;
+            this.next = next;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.concurrent.Callable#call()
+         */
+        @Override
+        public Map<File, FileSystemElement> call() throws IOException {
+            Map<File, FileSystemElement> elements = new HashMap<>();
+            int i;
+            while ((i = next.getAndIncrement()) < queue.length) {
+                elements.put(queue[i], builder.buildFileElement(queue[i]));
+                hashedBytes += sizes[i];
+            }
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.keyboardplaying.tree.file.model.FileMetadata;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Reads a checksum manifest, as produced by {@code sha256sum} and the like, into a tree of {@link FileSystemElement}.
+ * <p/>
+ * The manifest is read line by line and never fully loaded into memory. Both the GNU format
+ * ({@code <checksum>  <path>}, or {@code <checksum> *<path>} for binary mode) and the BSD format
+ * ({@code SHA256 (<path>) = <checksum>}) are supported. Directories are not listed in manifests, they are inferred from
+ * the paths of the files.
+ * <p/>
+ * The files of the resulting tree are of type {@link FileSystemElementType#FILE} and are located relatively to the
+ * supplied base directory, so that the tree can be aligned with a tree built by a {@link FileNodeBuilder} from a live
+ * directory, or verified using a {@link ManifestVerifier}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ManifestReader {
+
+    private static final String ROOT_DIR_NAME = ".";
+    private static final char SEPARATOR = '/';
+
+    private static final Pattern GNU_LINE = Pattern.compile("^([0-9a-fA-F]+) [ *](.+)$");
+    private static final Pattern GNU_LINE_WITH_SIZE = Pattern.compile("^([0-9a-fA-F]+) ([0-9]+) [ *]?(.+)$");
+    private static final Pattern BSD_LINE = Pattern.compile("^[A-Za-z0-9-]+ \\((.+)\\) = ([0-9a-fA-F]+)$");
+
+    private boolean sizeColumn;
+
+    private NamePool namePool = NamePool.getShared();
+
+    /**
+     * Sets whether the lines of the manifest contain the size of the file between the checksum and the path
+     * ({@code <checksum> <size> <path>}).
+     * <p/>
+     * When sizes are known, a {@link ManifestVerifier} does not need to hash the files whose size differs.
+     *
+     * @param sizeColumn {@code true} if the manifest contains sizes, {@code false} otherwise (the default)
+     */
+    public void setSizeColumn(boolean sizeColumn) {
+        this.sizeColumn = sizeColumn;
+    }
+
+    /**
+     * Sets the pool the names of the elements are interned into.
+     * <p/>
+     * By default, the {@link NamePool#getShared() shared pool} is used.
+     *
+     * @param namePool the pool to use
+     * @see FileSystemElementBuilder#setNamePool(NamePool)
+     */
+    public void setNamePool(NamePool namePool) {
+        Objects.requireNonNull(namePool, "The name pool cannot be null.");
+        this.namePool = namePool;
+    }
+
+    /**
+     * Reads a manifest into a tree.
+     *
+     * @param manifest the manifest to read; it is not closed by this method
+     * @param base     the directory the paths of the manifest are relative to
+     * @return the root {@link Node} of the tree described by the manifest
+     * @throws IOException if the manifest cannot be read or is malformed
+     */
+    public Node<FileSystemElement> readTree(Reader manifest, File base) throws IOException {
+        Objects.requireNonNull(manifest, "A manifest must be supplied.");
+        Objects.requireNonNull(base, "A base directory must be supplied.");
+
+        File rootDir = new File(base, ROOT_DIR_NAME);
+        Node<FileSystemElement> root = new Node<>(newElement(rootDir, FileSystemElementType.DIRECTORY, null, null));
+
+        // Directories by relative path, to add each file in constant time
+        Map<String, Node<FileSystemElement>> directories = new HashMap<>();
+        directories.put("", root);
+
+        BufferedReader reader = manifest instanceof BufferedReader ? (BufferedReader) manifest
+                : new BufferedReader(manifest);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isEmpty()) {
+                addEntry(line, lineNumber, rootDir, directories);
+            }
+        }
+
+        return root;
+    }
+
+    private void addEntry(String line, int lineNumber, File rootDir,
+                          Map<String, Node<FileSystemElement>> directories) throws IOException {
+        // GNU tools escape the lines of paths containing a backslash or a new line
+        boolean escaped = line.charAt(0) == '\\';
+        String entry = escaped ? line.substring(1) : line;
+
+        String checksum;
+        String path;
+        long size = -1;
+        Matcher matcher;
+        if (sizeColumn && (matcher = GNU_LINE_WITH_SIZE.matcher(entry)).matches()) {
+            checksum = matcher.group(1);
+            size = Long.parseLong(matcher.group(2));
+            path = matcher.group(3);
+        } else if (!sizeColumn && (matcher = GNU_LINE.matcher(entry)).matches()) {
+            checksum = matcher.group(1);
+            path = matcher.group(2);
+        } else if ((matcher = BSD_LINE.matcher(entry)).matches()) {
+            path = matcher.group(1);
+            checksum = matcher.group(2);
+        } else {
+            throw new IOException("Malformed manifest entry at line " + lineNumber + ": " + line);
+        }
+
+        if (escaped) {
+            path = unescape(path);
+        }
+        path = normalizePath(path);
+
+        int lastSeparator = path.lastIndexOf(SEPARATOR);
+        Node<FileSystemElement> parent = getDirectory(lastSeparator < 0 ? "" : path.substring(0, lastSeparator),
+                rootDir, directories);
+
+        FileMetadata metadata = size < 0 ? null : new FileMetadata(size, 0L, null, null);
+        parent.addChild(new Node<>(newElement(new File(rootDir, path), FileSystemElementType.FILE,
+                checksum.toLowerCase(Locale.ROOT), metadata)));
+    }
+
+    private Node<FileSystemElement> getDirectory(String path, File rootDir,
+                                                 Map<String, Node<FileSystemElement>> directories) {
+        Node<FileSystemElement> directory = directories.get(path);
+        if (directory == null) {
+            int lastSeparator = path.lastIndexOf(SEPARATOR);
+            Node<FileSystemElement> parent = getDirectory(lastSeparator < 0 ? "" : path.substring(0, lastSeparator),
+                    rootDir, directories);
+            directory = new Node<>(newElement(new File(rootDir, path), FileSystemElementType.DIRECTORY, null, null));
+            parent.addChild(directory);
+            directories.put(path, directory);
+        }
+        return directory;
+    }
+
+    private FileSystemElement newElement(File file, FileSystemElementType type, String checksum,
+                                         FileMetadata metadata) {
+        return new FileSystemElement(file, namePool.intern(file.getName()), type, checksum, metadata, null, null);
+    }
+
+    private String normalizePath(String path) {
+        String normalized = path;
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        return normalized;
+    }
+
+    private String unescape(String path) {
+        StringBuilder sb = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' && i + 1 < path.length()) {
+                char next = path.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Verifies a live directory against a checksum manifest.
+ * <p/>
+ * The files whose size already disagrees with the manifest, when the manifest provides sizes, are reported without
+ * being read. The other files are hashed in parallel by a {@link HashingScheduler}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see ManifestReader
+ */
+public class ManifestVerifier {
+
+    /**
+     * The outcome of the verification of a file.
+     */
+    public enum Status {
+
+        /**
+         * The file matches the manifest.
+         */
+        VALID,
+
+        /**
+         * The file does not exist in the live directory.
+         */
+        MISSING,
+
+        /**
+         * The size of the file differs from the manifest; the file was not hashed.
+         */
+        SIZE_MISMATCH,
+
+        /**
+         * The checksum of the file differs from the manifest.
+         */
+        CHECKSUM_MISMATCH
+    }
+
+    private static final char SEPARATOR = '/';
+
+    private final FileSystemElementBuilder builder = new FileSystemElementBuilder();
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new instance, using SHA-256 as the checksum algorithm.
+     */
+    public ManifestVerifier() {
+        try {
+            builder.setChecksumAlgorithm(FileSystemElementBuilder.CHECKSUM_ALGORITHM_SHA256);
+        } catch (NoSuchAlgorithmException e) {
+            // this cannot happen
+            throw new IllegalStateException("The algorithm <" + FileSystemElementBuilder.CHECKSUM_ALGORITHM_SHA256
+                    + "> could not be found.", e);
+        }
+        // Only the raw checksum is needed
+        builder.setNormalizations();
+    }
+
+    /**
+     * Sets the algorithm the manifest checksums were computed with.
+     *
+     * @param algorithm the algorithm to use for checksum
+     * @throws NoSuchAlgorithmException if the supplied algorithm does not exist.
+     */
+    public void setChecksumAlgorithm(String algorithm) throws NoSuchAlgorithmException {
+        builder.setChecksumAlgorithm(algorithm);
+    }
+
+    /**
+     * Sets the number of workers to use to hash the files.
+     *
+     * @param parallelism the number of workers; defaults to the number of available processors
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Verifies the files of a live directory against a manifest.
+     * <p/>
+     * The outcomes follow the order of the manifest tree rather than the order of the lines of the manifest: the files
+     * are grouped by directory, each directory being walked before its next sibling. Within a directory, files and
+     * subdirectories keep the order of their first appearance in the manifest.
+     *
+     * @param manifest the tree read from the manifest
+     * @param root     the live directory
+     * @return the outcome of the verification of each file of the manifest, mapped by path relative to the root, in
+     *         the order of the manifest tree
+     * @throws IOException if a file cannot be read
+     */
+    public Map<String, Status> verify(Node<FileSystemElement> manifest, File root) throws IOException {
+        Objects.requireNonNull(manifest, "A manifest must be supplied.");
+        Objects.requireNonNull(root, "A live directory must be supplied.");
+
+        Map<String, FileSystemElement> entries = new LinkedHashMap<>();
+        for (Node<FileSystemElement> child : manifest.getChildren()) {
+            collectEntries(child, "", entries);
+        }
+
+        Map<String, Status> statuses = new LinkedHashMap<>();
+        Map<File, String> toHash = new LinkedHashMap<>();
+        for (Map.Entry<String, FileSystemElement> entry : entries.entrySet()) {
+            String path = entry.getKey();
+            File live = new File(root, path);
+            // Placeholder to keep the order of the manifest tree
+            statuses.put(path, null);
+
+            if (!live.isFile()) {
+                statuses.put(path, Status.MISSING);
+            } else if (entry.getValue().getMetadata() != null
+                    && entry.getValue().getMetadata().getSize() != live.length()) {
+                statuses.put(path, Status.SIZE_MISMATCH);
+            } else {
+                toHash.put(live, path);
+            }
+        }
+
+        List<File> files = new ArrayList<>(toHash.keySet());
+        Map<File, FileSystemElement> hashed = new HashingScheduler(parallelism).hash(files, builder);
+        for (Map.Entry<File, String> entry : toHash.entrySet()) {
+            String path = entry.getValue();
+            String expected = entries.get(path).getChecksum();
+            String actual = hashed.get(entry.getKey()).getChecksum();
+            statuses.put(path, expected.equalsIgnoreCase(actual) ? Status.VALID : Status.CHECKSUM_MISMATCH);
+        }
+
+        return statuses;
+    }
+
+    private void collectEntries(Node<FileSystemElement> node, String parentPath,
+                                Map<String, FileSystemElement> entries) {
+        String path = parentPath + node.getContent().getName();
+        if (node.getContent().getType() == FileSystemElementType.DIRECTORY) {
+            for (Node<FileSystemElement> child : node.getChildren()) {
+                collectEntries(child, path + SEPARATOR, entries);
+            }
+        } else {
+            entries.put(path, node.getContent());
+        }
+    }
+}
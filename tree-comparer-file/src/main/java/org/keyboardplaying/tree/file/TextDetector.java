@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A streaming classifier telling text files from binary files and detecting their charset.
+ * <p/>
+ * The bytes are fed chunk by chunk through {@link #update(byte[], int, int)}. The classifier validates the UTF-8
+ * encoding while counting the bytes which are not expected in a text, so that UTF-8 files with accented or CJK
+ * characters are recognized as text. Files which are not valid UTF-8 are considered as ISO-8859-1 if the density of
+ * non-text bytes is low enough. A UTF-16 byte order mark is trusted without further inspection.
+ * <p/>
+ * Pure ASCII runs are validated 8 bytes at a time using {@code long} word operations; the byte-by-byte state machine
+ * only processes the words containing control or non-ASCII characters.
+ * <p/>
+ * This is package-visible only because only the element builder should be able to use it.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see FileSystemElementBuilder
+ */
+// Package visible only
+class TextDetector {
+
+    private static final float TXT_DENSITY = 0.95F;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long SPACES = 0x2020202020202020L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long DELS = 0x7F7F7F7F7F7F7F7FL;
+
+    /** Bytes which are not expected in a text, whatever the charset. */
+    private static final boolean[] CONTROL = new boolean[256];
+
+    static {
+        for (int b = 0; b < 0x20; b++) {
+            CONTROL[b] = !Character.isWhitespace((char) b);
+        }
+        CONTROL[0x7F] = true;
+    }
+
+    private long total;
+    private long controls;
+    private long c1Controls;
+    private long nonAscii;
+
+    private boolean validUtf8 = true;
+    /** The number of continuation bytes still expected for the current UTF-8 sequence. */
+    private int pending;
+    /** The lowest value allowed for the next continuation byte. */
+    private int lower = 0x80;
+    /** The highest value allowed for the next continuation byte. */
+    private int upper = 0xBF;
+
+    private Charset bom;
+
+    /**
+     * Processes a chunk of the file.
+     *
+     * @param buffer the buffer containing the chunk
+     * @param offset the offset of the chunk in the buffer
+     * @param length the length of the chunk
+     */
+    public void update(byte[] buffer, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+
+        if (total == 0 && length > 0) {
+            bom = detectBom(buffer, offset, length);
+            if (bom == StandardCharsets.UTF_8) {
+                i += 3;
+            }
+        }
+        total += length;
+        if (bom == StandardCharsets.UTF_16BE || bom == StandardCharsets.UTF_16LE) {
+            // A text file, no need to inspect further
+            return;
+        }
+
+        while (i < end) {
+            if (pending == 0 && end - i >= Long.BYTES) {
+                long word = readLong(buffer, i);
+                if (isPlainAscii(word)) {
+                    i += Long.BYTES;
+                    continue;
+                }
+                // Slow path for this word only
+                for (int stop = i + Long.BYTES; i < stop; i++) {
+                    processByte(buffer[i] & 0xFF);
+                }
+            } else {
+                processByte(buffer[i++] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Returns the charset of the processed content.
+     *
+     * @return the detected charset, or {@code null} if the content seems to be binary
+     */
+    public Charset getCharset() {
+        if (bom == StandardCharsets.UTF_16BE || bom == StandardCharsets.UTF_16LE) {
+            return bom;
+        }
+
+        // A truncated sequence at the end is no valid UTF-8
+        if (validUtf8 && pending == 0 && isDenseEnough(controls)) {
+            return nonAscii == 0 && bom == null ? StandardCharsets.US_ASCII : StandardCharsets.UTF_8;
+        }
+        if (isDenseEnough(controls + c1Controls)) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the processed content seems to be text.
+     *
+     * @return {@code true} for text, {@code false} for binary content
+     */
+    public boolean isText() {
+        return getCharset() != null;
+    }
+
+    /**
+     * Returns {@code true} if the content cannot turn out to be an ASCII-compatible text, whatever the bytes still to
+     * be processed: either a UTF-16 byte order mark was found, or there are already too many control characters for
+     * the expected size.
+     *
+     * @param size the expected size of the whole content
+     * @return {@code true} if the content will not be detected as an ASCII-compatible text
+     */
+    public boolean isNeverAsciiText(long size) {
+        if (bom == StandardCharsets.UTF_16BE || bom == StandardCharsets.UTF_16LE) {
+            return true;
+        }
+        // Control characters make a content binary whatever its charset
+        long expected = Math.max(size, total);
+        return controls > 0 && (float) (expected - controls) / expected <= TXT_DENSITY;
+    }
+
+    private boolean isDenseEnough(long nonText) {
+        return nonText == 0 || (float) (total - nonText) / total > TXT_DENSITY;
+    }
+
+    private Charset detectBom(byte[] buffer, int offset, int length) {
+        int b0 = buffer[offset] & 0xFF;
+        int b1 = length > 1 ? buffer[offset + 1] & 0xFF : -1;
+        if (b0 == 0xFE && b1 == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        } else if (b0 == 0xEF && b1 == 0xBB && length > 2 && (buffer[offset + 2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        return null;
+    }
+
+    /**
+     * Reads 8 bytes as a little-endian {@code long}.
+     */
+    private static long readLong(byte[] b, int i) {
+        return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32 | (b[i + 5] & 0xFFL) << 40 | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    /**
+     * Returns {@code true} if the 8 bytes of the word are printable ASCII characters (no control character, no
+     * whitespace other than the space, no byte over 0x7E).
+     */
+    private static boolean isPlainAscii(long word) {
+        if ((word & HIGH_BITS) != 0) {
+            return false;
+        }
+        // No byte is over 0x7F here, so a byte below 0x20 makes its high bit appear after the subtraction.
+        if (((word - SPACES) & ~word & HIGH_BITS) != 0) {
+            return false;
+        }
+        // Look for a zero byte once DEL bytes are XOR-ed to 0.
+        long del = word ^ DELS;
+        return ((del - ONES) & ~del & HIGH_BITS) == 0;
+    }
+
+    private void processByte(int b) {
+        if (pending > 0) {
+            if (b >= lower && b <= upper) {
+                // Expected continuation byte
+                pending--;
+                lower = 0x80;
+                upper = 0xBF;
+                nonAscii++;
+                countC1(b);
+                return;
+            }
+            // Not UTF-8, process the byte for other charsets
+            validUtf8 = false;
+            pending = 0;
+            lower = 0x80;
+            upper = 0xBF;
+        }
+
+        if (b < 0x80) {
+            if (CONTROL[b]) {
+                controls++;
+            }
+            return;
+        }
+
+        nonAscii++;
+        countC1(b);
+        if (validUtf8) {
+            processLeadByte(b);
+        }
+    }
+
+    private void processLeadByte(int b) {
+        if (b >= 0xC2 && b <= 0xDF) {
+            pending = 1;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            pending = 2;
+            if (b == 0xE0) {
+                // overlong encodings
+                lower = 0xA0;
+            } else if (b == 0xED) {
+                // surrogates
+                upper = 0x9F;
+            }
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            pending = 3;
+            if (b == 0xF0) {
+                // overlong encodings
+                lower = 0x90;
+            } else if (b == 0xF4) {
+                // over U+10FFFF
+                upper = 0x8F;
+            }
+        } else {
+            validUtf8 = false;
+        }
+    }
+
+    private void countC1(int b) {
+        if (b >= 0x80 && b <= 0x9F) {
+            c1Controls++;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import java.security.MessageDigest;
+import java.util.Set;
+
+import org.keyboardplaying.tree.file.model.Normalization;
+
+/**
+ * Feeds a {@link MessageDigest} with the normalized version of a text content, chunk by chunk.
+ * <p/>
+ * Unchanged runs of bytes are passed to the digest as they are; only line endings and whitespace are buffered until
+ * it is known whether they should be kept. Past a few hundred bytes, whitespace is fed to the digest after saving a
+ * copy of it to revert to, so that the memory used does not depend on the content. The normalization works on bytes
+ * and therefore only supports charsets which are ASCII-compatible (ASCII, UTF-8, ISO-8859-1, ...).
+ * <p/>
+ * When only trailing whitespace is ignored, a {@code CR} is kept, but the whitespace before a {@code CRLF} is still
+ * trailing: the {@code CR} is therefore buffered along with the whitespace until the next byte is known.
+ * <p/>
+ * This is package-visible only because only the element builder should be able to use it.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see FileSystemElementBuilder
+ */
+// Package visible only
+class TextNormalizer {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    /** The maximal number of whitespace bytes kept in memory. */
+    private static final int MAX_PENDING_WS = 256;
+
+    private MessageDigest md;
+    private final boolean lineEndings;
+    private final boolean trailingWhitespace;
+
+    /** A carriage return which may be the first half of a CRLF. */
+    private boolean pendingCr;
+    /** Whitespace which may be trailing. */
+    private byte[] pendingWs = new byte[16];
+    private int pendingWsLength;
+    /**
+     * A copy of the digest taken before a long run of whitespace was fed to it, to revert to if the run turns out to be
+     * trailing; {@code null} if no whitespace was fed to the digest.
+     */
+    private MessageDigest beforeWs;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param md             the digest to feed; it is reset
+     * @param normalizations the rules to apply
+     */
+    public TextNormalizer(MessageDigest md, Set<Normalization> normalizations) {
+        this.md = md;
+        this.md.reset();
+        this.lineEndings = normalizations.contains(Normalization.LINE_ENDINGS);
+        this.trailingWhitespace = normalizations.contains(Normalization.TRAILING_WHITESPACE);
+    }
+
+    /**
+     * Processes a chunk of the file.
+     *
+     * @param buffer the buffer containing the chunk
+     * @param offset the offset of the chunk in the buffer
+     * @param length the length of the chunk
+     */
+    public void update(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        // start of the current run of unchanged bytes, -1 if none
+        int run = -1;
+
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            boolean ws = trailingWhitespace && (b == ' ' || b == '\t');
+            boolean cr = (lineEndings || trailingWhitespace) && b == CR;
+            boolean lf = b == LF;
+
+            if (!ws && !cr && !lf) {
+                if (run < 0) {
+                    resolvePending();
+                    run = i;
+                }
+                continue;
+            }
+
+            if (run >= 0) {
+                md.update(buffer, run, i - run);
+                run = -1;
+            }
+            if (ws) {
+                resolvePendingCr();
+                appendWhitespace(b);
+            } else if (cr) {
+                if (lineEndings) {
+                    discardWhitespace();
+                }
+                resolvePendingCr();
+                pendingCr = true;
+            } else {
+                discardWhitespace();
+                if (pendingCr && !lineEndings) {
+                    md.update(CR);
+                }
+                pendingCr = false;
+                md.update(LF);
+            }
+        }
+
+        if (run >= 0) {
+            md.update(buffer, run, end - run);
+        }
+    }
+
+    /**
+     * Completes the digest computation.
+     *
+     * @return the normalized digest
+     */
+    public byte[] digest() {
+        resolvePendingCr();
+        // Whitespace at the end of the file is trailing
+        if (!trailingWhitespace) {
+            resolvePending();
+        }
+        discardWhitespace();
+        return md.digest();
+    }
+
+    private void resolvePending() {
+        resolvePendingCr();
+        flushWhitespace();
+    }
+
+    private void flushWhitespace() {
+        if (pendingWsLength > 0) {
+            md.update(pendingWs, 0, pendingWsLength);
+            pendingWsLength = 0;
+        }
+        beforeWs = null;
+    }
+
+    private void discardWhitespace() {
+        pendingWsLength = 0;
+        if (beforeWs != null) {
+            md = beforeWs;
+            beforeWs = null;
+        }
+    }
+
+    private void resolvePendingCr() {
+        if (pendingCr) {
+            if (lineEndings) {
+                // A lone CR is a line ending
+                md.update(LF);
+            } else {
+                // Not followed by a LF, the CR ends no line and the whitespace before it is not trailing
+                flushWhitespace();
+                md.update(CR);
+            }
+            pendingCr = false;
+        }
+    }
+
+    private void appendWhitespace(byte b) {
+        if (pendingWsLength == pendingWs.length && (pendingWsLength < MAX_PENDING_WS || !spillWhitespace())) {
+            byte[] grown = new byte[pendingWs.length * 2];
+            System.arraycopy(pendingWs, 0, grown, 0, pendingWsLength);
+            pendingWs = grown;
+        }
+        pendingWs[pendingWsLength++] = b;
+    }
+
+    private boolean spillWhitespace() {
+        if (beforeWs == null) {
+            try {
+                beforeWs = (MessageDigest) md.clone();
+            } catch (CloneNotSupportedException e) {
+                // Keep buffering
+                return false;
+            }
+        }
+        md.update(pendingWs, 0, pendingWsLength);
+        pendingWsLength = 0;
+        return true;
+    }
+}
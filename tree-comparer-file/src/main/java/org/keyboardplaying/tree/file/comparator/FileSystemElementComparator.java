@@ -24,6 +24,10 @@ import org.keyboardplaying.tree.model.Node;
 
 /**
  * A comparator for {@link FileSystemElement} nodes.
+ * <p/>
+ * Elements are sorted by kind, then by name: directories come first, then files, then the sections and the entries of
+ * configuration files. Text, binary and unread files are of the same kind, so that a file whose type changed is
+ * still matched by name.
  *
  * @author Cyrille Chopelet (https://keyboardplaying.org)
  */
@@ -39,14 +43,28 @@ public class FileSystemElementComparator implements Comparator<Node<FileSystemEl
         FileSystemElement file1 = node1.getContent();
         FileSystemElement file2 = node2.getContent();
 
-        if (file1.getType() == FileSystemElementType.DIRECTORY) {
-            if (file2.getType() != FileSystemElementType.DIRECTORY) {
-                return -1;
-            }
-        } else if (file2.getType() == FileSystemElementType.DIRECTORY) {
-            return 1;
+        int kind = Integer.compare(kindOf(file1.getType()), kindOf(file2.getType()));
+        if (kind != 0) {
+            return kind;
         }
 
-        return file1.getName().compareTo(file2.getName());
+        String name1 = file1.getName();
+        String name2 = file2.getName();
+        // Names are pooled, equal names are usually the same instance
+        return name1 == name2 ? 0 : name1.compareTo(name2);
+    }
+
+    private static int kindOf(FileSystemElementType type) {
+        switch (type) {
+        case DIRECTORY:
+            return 0;
+        case CONFIG_SECTION:
+            return 2;
+        case CONFIG_ENTRY:
+            return 3;
+        default:
+            // Files, whether their content was read or not
+            return 1;
+        }
     }
 }
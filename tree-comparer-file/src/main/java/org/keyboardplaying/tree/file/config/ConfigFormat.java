@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.config;
+
+import java.util.Locale;
+
+/**
+ * The formats of configuration files which can be expanded into sections and entries.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public enum ConfigFormat {
+
+    /**
+     * Java properties files, read as defined by {@link java.util.Properties#load(java.io.InputStream)}.
+     */
+    PROPERTIES(".properties"),
+
+    /**
+     * INI files: {@code [section]} headers followed by {@code key=value} or {@code key: value} lines, {@code ;} and
+     * {@code #} starting comments. They are read as UTF-8.
+     */
+    INI(".ini");
+
+    private final String extension;
+
+    ConfigFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the extension of the files of this format.
+     *
+     * @return the extension, including the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the format of a file, from its extension.
+     *
+     * @param fileName the name of the file
+     * @return the format of the file, or {@code null} if it is not a known configuration format
+     */
+    public static ConfigFormat forFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        for (ConfigFormat format : values()) {
+            if (lowerCase.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
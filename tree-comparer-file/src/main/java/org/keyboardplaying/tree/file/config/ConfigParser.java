@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.keyboardplaying.tree.file.model.ConfigEntry;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Expands configuration files into subtrees of {@link ConfigEntry}, so that they are compared key by key rather than
+ * as a whole.
+ * <p/>
+ * The entries of a {@link ConfigFormat#PROPERTIES properties} file are the children of the file. The entries of an
+ * {@link ConfigFormat#INI INI} file are the children of their section, which is a child of the file; the entries
+ * preceding any section header are children of the file.
+ * <p/>
+ * Parsed files are cached by checksum, so that identical files across the compared trees are parsed once. Files
+ * without checksum are parsed each time. A parser may be shared between threads.
+ * <p/>
+ * Sections and entries are kinds of their own for the
+ * {@link org.keyboardplaying.tree.file.comparator.FileSystemElementComparator comparator}, so that a section and an
+ * entry of the same name are not taken for one another.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConfigParser {
+
+    private final Map<String, ParsedConfig> cache = new ConcurrentHashMap<>();
+    private final AtomicInteger parseCount = new AtomicInteger();
+
+    private NamePool namePool = NamePool.getShared();
+
+    /**
+     * Sets the pool the names of the sections and keys are interned into.
+     * <p/>
+     * By default, the {@link NamePool#getShared() shared pool} is used. The pool should be set before the parser is
+     * shared between threads.
+     *
+     * @param namePool the pool to use
+     */
+    public void setNamePool(NamePool namePool) {
+        Objects.requireNonNull(namePool, "The name pool cannot be null.");
+        this.namePool = namePool;
+    }
+
+    /**
+     * Adds the sections and entries of a configuration file to its node.
+     * <p/>
+     * Nodes which are not configuration files are left untouched.
+     *
+     * @param node the node of a file
+     * @throws IOException if the configuration file cannot be read or parsed
+     */
+    public void expand(Node<FileSystemElement> node) throws IOException {
+        FileSystemElement element = node.getContent();
+        ConfigFormat format = ConfigFormat.forFileName(element.getName());
+        if (format == null || element.getType() == FileSystemElementType.DIRECTORY
+                || element instanceof ConfigEntry) {
+            return;
+        }
+
+        File file = new File(element.getPath());
+        for (Map.Entry<String, Map<String, String>> section : parse(element, format).getSections().entrySet()) {
+            Node<FileSystemElement> parent = node;
+            File parentFile = file;
+            if (!ParsedConfig.NO_SECTION.equals(section.getKey())) {
+                parentFile = new File(file, section.getKey());
+                parent = new Node<>(new ConfigEntry(parentFile, namePool.intern(section.getKey()),
+                        FileSystemElementType.CONFIG_SECTION, null));
+                node.addChild(parent);
+            }
+            for (Map.Entry<String, String> entry : section.getValue().entrySet()) {
+                parent.addChild(new Node<>(new ConfigEntry(new File(parentFile, entry.getKey()),
+                        namePool.intern(entry.getKey()), FileSystemElementType.CONFIG_ENTRY, entry.getValue())));
+            }
+        }
+    }
+
+    private ParsedConfig parse(FileSystemElement element, ConfigFormat format) throws IOException {
+        String checksum = element.getChecksum();
+        if (checksum == null) {
+            return doParse(element, format);
+        }
+
+        // The same content may be parsed differently depending on the format
+        String key = format.name() + ':' + checksum;
+        ParsedConfig parsed = cache.get(key);
+        if (parsed == null) {
+            parsed = doParse(element, format);
+            // Threads racing on the same content parse it several times, but share the first result
+            ParsedConfig existing = cache.putIfAbsent(key, parsed);
+            if (existing != null) {
+                parsed = existing;
+            }
+        }
+        return parsed;
+    }
+
+    private ParsedConfig doParse(FileSystemElement element, ConfigFormat format) throws IOException {
+        parseCount.incrementAndGet();
+        return ParsedConfig.parse(element.getPath(), format);
+    }
+
+    /**
+     * Returns the number of distinct files in the cache.
+     *
+     * @return the number of cached files
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the number of files parsed so far, i.e. which were not found in the cache.
+     *
+     * @return the number of parsed files
+     */
+    public int getParseCount() {
+        return parseCount.get();
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+}
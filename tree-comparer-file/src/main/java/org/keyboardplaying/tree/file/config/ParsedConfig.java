@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.config;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The sections and entries of a configuration file, independent from the location of the file so that it can be
+ * shared between identical files.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+final class ParsedConfig {
+
+    /** The section of the entries which precede any section header. */
+    static final String NO_SECTION = "";
+
+    private final Map<String, Map<String, String>> sections;
+
+    private ParsedConfig(Map<String, Map<String, String>> sections) {
+        this.sections = Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * Returns the entries of the file, per section.
+     *
+     * @return the values, mapped by key, mapped by section; the entries outside any section are mapped to
+     *         {@link #NO_SECTION}
+     */
+    Map<String, Map<String, String>> getSections() {
+        return sections;
+    }
+
+    /**
+     * Parses a configuration file.
+     *
+     * @param path   the path of the file
+     * @param format the format of the file
+     * @return the parsed file
+     * @throws IOException if the file cannot be read or parsed
+     */
+    static ParsedConfig parse(String path, ConfigFormat format) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            return format == ConfigFormat.PROPERTIES ? parseProperties(in) : parseIni(in);
+        } catch (IllegalArgumentException e) {
+            // Thrown on malformed escapes or section headers
+            throw new IOException("Could not parse " + path + ".", e);
+        }
+    }
+
+    private static ParsedConfig parseProperties(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        Map<String, String> entries = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            entries.put(key, properties.getProperty(key));
+        }
+        return new ParsedConfig(Collections.singletonMap(NO_SECTION, Collections.unmodifiableMap(entries)));
+    }
+
+    private static ParsedConfig parseIni(InputStream in) throws IOException {
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, String> section = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) == ';' || trimmed.charAt(0) == '#') {
+                continue;
+            }
+            if (trimmed.charAt(0) == '[' && trimmed.charAt(trimmed.length() - 1) == ']') {
+                String name = trimmed.substring(1, trimmed.length() - 1).trim();
+                // It would be taken for the entries preceding any section header
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Section without name at line " + lineNumber + ".");
+                }
+                section = sections.computeIfAbsent(name, key -> new LinkedHashMap<>());
+                continue;
+            }
+            if (section == null) {
+                section = sections.computeIfAbsent(NO_SECTION, name -> new LinkedHashMap<>());
+            }
+
+            int separator = separatorIndex(trimmed);
+            // A key without value is a flag
+            if (separator < 0) {
+                section.put(trimmed, "");
+            } else {
+                section.put(trimmed.substring(0, separator).trim(), trimmed.substring(separator + 1).trim());
+            }
+        }
+
+        for (Map.Entry<String, Map<String, String>> entry : sections.entrySet()) {
+            entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+        }
+        return new ParsedConfig(sections);
+    }
+
+    private static int separatorIndex(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '=' || line.charAt(i) == ':') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
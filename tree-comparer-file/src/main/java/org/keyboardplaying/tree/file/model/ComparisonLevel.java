@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+/**
+ * The level of detail to use when building the representation of a file.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public enum ComparisonLevel {
+
+    /**
+     * Only the attributes of the files are read: size, last modification time, permissions and owner.
+     * <p/>
+     * No file is opened, which makes it possible to quickly tell what changed since a given point in time.
+     */
+    METADATA,
+
+    /**
+     * The content of the files is read to detect their type and compute their checksum.
+     */
+    CONTENT
+}
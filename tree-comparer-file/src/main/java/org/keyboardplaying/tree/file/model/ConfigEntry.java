@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A section or an entry of a configuration file, for comparisons down to the key level.
+ * <p/>
+ * Its {@link File} representation is a virtual path below the configuration file, e.g.
+ * {@code app.ini/server/port}, which does not exist on the file system. Its name is the name of the section or the
+ * key of the entry.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConfigEntry extends FileSystemElement {
+
+    /** The value of an entry. */
+    private final String value;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file
+     *            the virtual path of the section or entry
+     * @param name
+     *            the name of the section, or the key of the entry
+     * @param type
+     *            {@link FileSystemElementType#CONFIG_SECTION} or {@link FileSystemElementType#CONFIG_ENTRY}
+     * @param value
+     *            the value of an entry; expected to be {@code null} for sections
+     */
+    public ConfigEntry(File file, String name, FileSystemElementType type, String value) {
+        super(file, name, type, null, null, null, null);
+        if (type != FileSystemElementType.CONFIG_SECTION && type != FileSystemElementType.CONFIG_ENTRY) {
+            throw new IllegalArgumentException("A configuration entry cannot be of type " + type + ".");
+        }
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of this entry.
+     *
+     * @return the value, or {@code null} for a section
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.file.model.FileSystemElement#getFileSize()
+     */
+    @Override
+    public long getFileSize() {
+        return value == null ? 0 : value.length();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.file.model.FileSystemElement#getLastModified()
+     */
+    @Override
+    public long getLastModified() {
+        return 0;
+    }
+
+    /**
+     * Returns a key identifying a section by its name, and an entry by its key and value.
+     *
+     * @return the content key of this section or entry
+     */
+    @Override
+    public Object getContentKey() {
+        return Arrays.asList(getType(), getName(), value);
+    }
+
+    /**
+     * Compares the value of this entry to the value of another entry.
+     *
+     * @param other the element to compare this one to
+     * @return {@link ContentComparison#IDENTICAL} if both are entries with the same value, or sections,
+     *         {@link ContentComparison#DIFFERENT} otherwise
+     */
+    @Override
+    public ContentComparison compareContent(FileSystemElement other) {
+        return other instanceof ConfigEntry && Objects.equals(value, ((ConfigEntry) other).value)
+                ? ContentComparison.IDENTICAL : ContentComparison.DIFFERENT;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+/**
+ * The result of the comparison of the contents of two files.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see FileSystemElement#compareContent(FileSystemElement)
+ */
+public enum ContentComparison {
+
+    /**
+     * The contents have the same checksum.
+     */
+    IDENTICAL,
+
+    /**
+     * The contents differ, but have the same normalized checksum (e.g. they only differ by their line endings).
+     */
+    EQUIVALENT,
+
+    /**
+     * The contents really differ.
+     */
+    DIFFERENT,
+
+    /**
+     * The contents cannot be compared, because at least one of them was not read (directories, metadata-only
+     * elements).
+     */
+    UNKNOWN
+}
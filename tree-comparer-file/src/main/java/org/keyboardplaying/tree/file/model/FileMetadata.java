@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+import java.util.Objects;
+
+/**
+ * The attributes of a file system element, as read in bulk from the file system.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class FileMetadata {
+
+    /** The size of the element, in bytes. */
+    private final long size;
+
+    /** The last modification time of the element, in milliseconds since the epoch. */
+    private final long lastModified;
+
+    /** The POSIX permissions of the element, {@code null} if the file system does not support them. */
+    private final String permissions;
+
+    /** The name of the owner of the element, {@code null} if unknown. */
+    private final String owner;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param size
+     *            the size of the element, in bytes
+     * @param lastModified
+     *            the last modification time of the element, in milliseconds since the epoch
+     * @param permissions
+     *            the POSIX permissions of the element (e.g. {@code rwxr-xr-x}), {@code null} if the file system does
+     *            not support them
+     * @param owner
+     *            the name of the owner of the element, {@code null} if unknown
+     */
+    public FileMetadata(long size, long lastModified, String permissions, String owner) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.permissions = permissions;
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the size of the element.
+     *
+     * @return the size of the element, in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the last modification time of the element.
+     *
+     * @return the last modification time of the element, in milliseconds since the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the POSIX permissions of the element.
+     *
+     * @return the permissions (e.g. {@code rwxr-xr-x}), or {@code null} if the file system does not support them
+     */
+    public String getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Returns the name of the owner of the element.
+     *
+     * @return the name of the owner, or {@code null} if unknown
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, lastModified, permissions, owner);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FileMetadata)) {
+            return false;
+        }
+        FileMetadata other = (FileMetadata) obj;
+        return size == other.size && lastModified == other.lastModified
+                && Objects.equals(permissions, other.permissions) && Objects.equals(owner, other.owner);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "FileMetadata[size=" + size + ", lastModified=" + lastModified + ", permissions=" + permissions
+                + ", owner=" + owner + "]";
+    }
+}
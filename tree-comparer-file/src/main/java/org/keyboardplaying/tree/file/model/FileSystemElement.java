@@ -17,10 +17,17 @@
 package org.keyboardplaying.tree.file.model;
 
 import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Objects;
 
+import org.keyboardplaying.tree.model.NamePool;
+
 /**
  * A representation of a file system element for comparison.
+ * <p/>
+ * Two elements are equal if they represent the same {@link File}, so that the same relative path under two roots, e.g.
+ * on two hosts, gives different elements. Use {@link #getContentKey()} to compare them by content.
  *
  * @author Cyrille Chopelet (https://keyboardplaying.org)
  */
@@ -29,12 +36,27 @@ public class FileSystemElement {
     /** The {@link File} representation of this file system element. */
     private final File file;
 
+    /**
+     * The name of the element, kept apart from the {@link File} so that builders can supply a {@link NamePool pooled}
+     * instance.
+     */
+    private final String name;
+
     /** The type of this element. */
     private final FileSystemElementType type;
 
     /** A checksum for the file. */
     private final String checksum;
 
+    /** The attributes of the file, if they were read in bulk when building this element. */
+    private final FileMetadata metadata;
+
+    /** The charset detected for a text file. */
+    private final Charset charset;
+
+    /** A checksum for the normalized content of a text file. */
+    private final String normalizedChecksum;
+
     /**
      * Creates a new instance representing a file.
      *
@@ -46,11 +68,69 @@ public class FileSystemElement {
      *            a checksum for the file; expected to be {@code null} for directories
      */
     public FileSystemElement(File file, FileSystemElementType type, String checksum) {
+        this(file, type, checksum, null, null, null);
+    }
+
+    /**
+     * Creates a new instance representing a file.
+     *
+     * @param file
+     *            the {@link File} representation of this file system element
+     * @param type
+     *            the type of this element
+     * @param checksum
+     *            a checksum for the file; expected to be {@code null} for directories
+     * @param metadata
+     *            the attributes of the file, or {@code null} if they should be read from the file when requested
+     * @param charset
+     *            the charset detected for a text file; expected to be {@code null} for directories and binary files
+     * @param normalizedChecksum
+     *            a checksum for the normalized content of a text file; expected to be {@code null} for directories and
+     *            binary files
+     */
+    public FileSystemElement(File file, FileSystemElementType type, String checksum, FileMetadata metadata,
+            Charset charset, String normalizedChecksum) {
+        this(file, nameOf(file), type, checksum, metadata, charset, normalizedChecksum);
+    }
+
+    /**
+     * Creates a new instance with the supplied name.
+     * <p/>
+     * Builders use it to supply {@link NamePool pooled} names, and elements inside a file to supply a name which is
+     * not the name of their file.
+     *
+     * @param file
+     *            the {@link File} representation of this element
+     * @param name
+     *            the name of this element
+     * @param type
+     *            the type of this element
+     * @param checksum
+     *            a checksum for the element, or {@code null}
+     * @param metadata
+     *            the attributes of the element, or {@code null}
+     * @param charset
+     *            the charset of the element, or {@code null}
+     * @param normalizedChecksum
+     *            a checksum for the normalized content of the element, or {@code null}
+     */
+    public FileSystemElement(File file, String name, FileSystemElementType type, String checksum,
+            FileMetadata metadata, Charset charset, String normalizedChecksum) {
         Objects.requireNonNull(file, "The file cannot be null.");
+        Objects.requireNonNull(name, "The name cannot be null.");
         Objects.requireNonNull(type, "The type cannot be null.");
         this.file = file;
+        this.name = name;
         this.type = type;
         this.checksum = checksum;
+        this.metadata = metadata;
+        this.charset = charset;
+        this.normalizedChecksum = normalizedChecksum;
+    }
+
+    private static String nameOf(File file) {
+        Objects.requireNonNull(file, "The file cannot be null.");
+        return file.getName();
     }
 
     /**
@@ -66,11 +146,15 @@ public class FileSystemElement {
      * Returns the name of the file or directory denoted by this abstract pathname. This is just the last name in the
      * pathname's name sequence. If the pathname's name sequence is empty, then the empty string is returned.
      *
+     * <p/>
+     * The name is the same instance for all elements whose builder shares a {@link NamePool}.
+     *
      * @return the name of the file or directory denoted by this abstract pathname, or the empty string if this
      *         pathname's name sequence is empty
+     * @see NamePool
      */
     public String getName() {
-        return file.getName();
+        return name;
     }
 
     /**
@@ -90,7 +174,7 @@ public class FileSystemElement {
      *         as devices or pipes.
      */
     public long getFileSize() {
-        return file.length();
+        return metadata == null ? file.length() : metadata.getSize();
     }
 
     /**
@@ -100,7 +184,7 @@ public class FileSystemElement {
      *         epoch (00:00:00 GMT, January 1, 1970), or {@code 0L} if the file does not exist or if an I/O error occurs
      */
     public long getLastModified() {
-        return file.lastModified();
+        return metadata == null ? file.lastModified() : metadata.getLastModified();
     }
 
     /**
@@ -121,6 +205,90 @@ public class FileSystemElement {
         return checksum;
     }
 
+    /**
+     * Returns the checksum of the normalized content of this text file.
+     * <p/>
+     * Two files with different checksums but the same normalized checksum only differ by details such as their line
+     * endings or trailing whitespace.
+     *
+     * @return the normalized checksum, or {@code null} for directories, binary files and files whose content was not
+     *         read
+     * @see Normalization
+     */
+    public String getNormalizedChecksum() {
+        return normalizedChecksum;
+    }
+
+    /**
+     * Compares the content of this file to the content of another file, using the checksums computed when reading
+     * them.
+     * <p/>
+     * Both elements are expected to have been built using the same checksum algorithm and normalization rules.
+     *
+     * @param other the element to compare this one to
+     * @return the result of the comparison
+     */
+    public ContentComparison compareContent(FileSystemElement other) {
+        if (checksum == null || other.checksum == null) {
+            return ContentComparison.UNKNOWN;
+        } else if (checksum.equals(other.checksum)) {
+            return ContentComparison.IDENTICAL;
+        } else if (normalizedChecksum != null && normalizedChecksum.equals(other.normalizedChecksum)) {
+            return ContentComparison.EQUIVALENT;
+        }
+        return ContentComparison.DIFFERENT;
+    }
+
+    /**
+     * Returns a key identifying what this element holds, regardless of where it was read from.
+     * <p/>
+     * Two elements have equal keys if they are of the same type, have the same name and:
+     * <ul>
+     * <li>are directories, whose content is their children;</li>
+     * <li>otherwise, have the same checksum if they have one;</li>
+     * <li>otherwise, have the same attributes if they were read;</li>
+     * <li>otherwise, are equal, as nothing is known of their content.</li>
+     * </ul>
+     * It can be supplied as the equivalence of a {@link org.keyboardplaying.tree.align.TreeAligner}, so that the trees
+     * of several hosts are compared by content. Elements of the same type and name are equal according to the
+     * {@link org.keyboardplaying.tree.file.comparator.FileSystemElementComparator comparator}.
+     *
+     * @return the content key of this element
+     */
+    public Object getContentKey() {
+        Object content;
+        if (type == FileSystemElementType.DIRECTORY) {
+            content = null;
+        } else if (checksum != null) {
+            content = checksum;
+        } else if (metadata != null) {
+            content = metadata;
+        } else {
+            content = this;
+        }
+        return Arrays.asList(type, name, content);
+    }
+
+    /**
+     * Returns the charset detected for this text file.
+     *
+     * @return the charset of this file, or {@code null} for directories, binary files and files whose content was not
+     *         read
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the attributes read in bulk when building this element.
+     *
+     * @return the attributes of this element, or {@code null} if they were not read
+     * @see ComparisonLevel#METADATA
+     */
+    public FileMetadata getMetadata() {
+        return metadata;
+    }
+
     /*
      * (non-Javadoc)
      *
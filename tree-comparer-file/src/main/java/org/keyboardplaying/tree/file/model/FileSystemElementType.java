@@ -36,5 +36,26 @@ public enum FileSystemElementType {
     /**
      * Text files.
      */
-    TEXT
+    TEXT,
+
+    /**
+     * Files whose content was not read, so that it is unknown whether they are binary or text files.
+     *
+     * @see ComparisonLevel#METADATA
+     */
+    FILE,
+
+    /**
+     * Sections of configuration files.
+     *
+     * @see ConfigEntry
+     */
+    CONFIG_SECTION,
+
+    /**
+     * Entries of configuration files, i.e. keys and their values.
+     *
+     * @see ConfigEntry
+     */
+    CONFIG_ENTRY
 }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.sketch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The estimated pairwise Jaccard similarities of a set of trees, computed from their {@link TreeSketch}.
+ * <p/>
+ * Only the upper triangle of the matrix is stored, as single-precision values: the matrix of 2000 trees takes 8 MB.
+ * The rows are computed in parallel.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class SimilarityMatrix {
+
+    private final int size;
+    /** The similarities of the pairs {@code i < j}, row by row. */
+    private final float[] similarities;
+
+    private SimilarityMatrix(int size, float[] similarities) {
+        this.size = size;
+        this.similarities = similarities;
+    }
+
+    /**
+     * Computes the similarity matrix of the trees whose sketches are supplied.
+     *
+     * @param sketches the sketches of the trees, all of the same size
+     * @return the similarity matrix, in the order of the sketches
+     */
+    public static SimilarityMatrix compute(List<TreeSketch> sketches) {
+        int size = sketches.size();
+        TreeSketch[] array = sketches.toArray(new TreeSketch[size]);
+        float[] similarities = new float[size * (size - 1) / 2];
+        // Each row writes its own range, no synchronization is needed
+        IntStream.range(0, size).parallel().forEach(i -> {
+            int offset = offset(size, i) - i - 1;
+            for (int j = i + 1; j < size; j++) {
+                similarities[offset + j] = (float) array[i].similarity(array[j]);
+            }
+        });
+        return new SimilarityMatrix(size, similarities);
+    }
+
+    /** Returns the index of the first pair of a row. */
+    private static int offset(int size, int row) {
+        return row * (2 * size - row - 1) / 2;
+    }
+
+    /**
+     * Returns the number of trees.
+     *
+     * @return the number of rows and columns of the matrix
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the estimated similarity of two trees.
+     *
+     * @param i the index of the first tree
+     * @param j the index of the second tree
+     * @return the estimated similarity, between {@code 0} and {@code 1}
+     */
+    public double get(int i, int j) {
+        if (i < 0 || j < 0 || i >= size || j >= size) {
+            throw new IndexOutOfBoundsException("No pair (" + i + ", " + j + ") among " + size + " trees");
+        }
+        if (i == j) {
+            return 1;
+        }
+        int row = Math.min(i, j);
+        int column = Math.max(i, j);
+        return similarities[offset(size, row) + column - row - 1];
+    }
+
+    /**
+     * Groups the trees which are transitively similar, i.e. linked by a chain of pairs whose similarity reaches the
+     * threshold.
+     *
+     * @param threshold the minimal similarity for two trees to be grouped
+     * @return the groups of tree indices, each in increasing order, ordered by their first tree
+     */
+    public List<List<Integer>> group(double threshold) {
+        // Union-find, linking each root to the smallest index
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            int offset = offset(size, i) - i - 1;
+            for (int j = i + 1; j < size; j++) {
+                if (similarities[offset + j] >= threshold) {
+                    int rootI = find(parents, i);
+                    int rootJ = find(parents, j);
+                    parents[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int find(int[] parents, int i) {
+        int root = i;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Path compression
+        int current = i;
+        while (parents[current] != root) {
+            int next = parents[current];
+            parents[current] = root;
+            current = next;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.sketch;
+
+import java.util.Arrays;
+
+/**
+ * A bottom-k MinHash sketch of a tree: the smallest hashes among those of its elements.
+ * <p/>
+ * Two sketches built with the same {@link TreeSketcher} estimate the Jaccard similarity of their trees in time
+ * proportional to their size, whatever the size of the trees.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public final class TreeSketch {
+
+    private final long[] hashes;
+    private final int k;
+    private final long elementCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param hashes       the smallest hashes of the elements, sorted and distinct; not copied
+     * @param k            the maximal number of hashes in the sketch
+     * @param elementCount the number of elements which were sketched
+     */
+    TreeSketch(long[] hashes, int k, long elementCount) {
+        this.hashes = hashes;
+        this.k = k;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Returns the maximal number of hashes in this sketch.
+     *
+     * @return the size of the sketch
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of elements of the sketched tree.
+     *
+     * @return the number of elements
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the hashes of this sketch.
+     *
+     * @return the hashes, sorted
+     */
+    public long[] getHashes() {
+        return hashes.clone();
+    }
+
+    /**
+     * Estimates the Jaccard similarity between the tree of this sketch and the tree of another one, i.e. the number of
+     * elements they share divided by the number of distinct elements in both.
+     * <p/>
+     * The k smallest hashes of the union of both trees are the k smallest of both sketches; the estimate is the
+     * proportion of these which are in both sketches.
+     *
+     * @param other the sketch of the other tree
+     * @return the estimated similarity, between {@code 0} and {@code 1}
+     */
+    public double similarity(TreeSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Sketches of size " + k + " and " + other.k + " cannot be compared.");
+        }
+        long[] a = hashes;
+        long[] b = other.hashes;
+        int i = 0;
+        int j = 0;
+        int union = 0;
+        int shared = 0;
+        // Merge both sorted sketches until k distinct hashes were seen
+        while (union < k && (i < a.length || j < b.length)) {
+            if (j == b.length || i < a.length && a[i] < b[j]) {
+                i++;
+            } else if (i == a.length || b[j] < a[i]) {
+                j++;
+            } else {
+                i++;
+                j++;
+                shared++;
+            }
+            union++;
+        }
+        return union == 0 ? 1 : (double) shared / union;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(hashes);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof TreeSketch && ((TreeSketch) obj).k == k
+                && Arrays.equals(((TreeSketch) obj).hashes, hashes);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.sketch;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Computes the {@link TreeSketch} of file trees, to find near-duplicate trees before aligning them.
+ * <p/>
+ * Each element of a tree is hashed from its path relative to the root of the tree and its checksum, so that a file
+ * present in two trees with the same content counts as a shared element, wherever the trees are located. Directories,
+ * which have no checksum, are hashed from their path only.
+ * <p/>
+ * Sketching a tree takes a single walk, and its memory only grows with the size of the sketch and the depth of the
+ * tree.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class TreeSketcher {
+
+    /**
+     * The default size of the sketches, for an error of about 6% on the estimated similarity.
+     */
+    public static final int DEFAULT_K = 256;
+
+    private static final char SEPARATOR = '/';
+
+    private final int k;
+
+    /**
+     * Creates a new instance, building sketches of {@link #DEFAULT_K} hashes.
+     */
+    public TreeSketcher() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p/>
+     * The error on the estimated similarity is about {@code 1/sqrt(k)}.
+     *
+     * @param k the size of the sketches
+     */
+    public TreeSketcher(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("A sketch must contain at least one hash.");
+        }
+        this.k = k;
+    }
+
+    /**
+     * Returns the size of the sketches.
+     *
+     * @return the maximal number of hashes per sketch
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Computes the sketch of a tree.
+     * <p/>
+     * The root itself is not part of the sketch, so that trees stored under different names can be compared.
+     *
+     * @param root the root of the tree
+     * @return the sketch of the tree
+     */
+    public TreeSketch sketch(Node<FileSystemElement> root) {
+        Objects.requireNonNull(root, "The root cannot be null.");
+        TreeSet<Long> smallest = new TreeSet<>();
+        long count = 0;
+
+        Deque<Node<FileSystemElement>> nodes = new ArrayDeque<>();
+        Deque<String> paths = new ArrayDeque<>();
+        for (Node<FileSystemElement> child : root.getChildren()) {
+            nodes.push(child);
+            paths.push("");
+        }
+        while (!nodes.isEmpty()) {
+            Node<FileSystemElement> node = nodes.pop();
+            String path = paths.pop() + node.getContent().getName();
+            count++;
+
+            long hash = hash(path, node.getContent().getChecksum());
+            if (smallest.size() < k) {
+                smallest.add(hash);
+            } else if (hash < smallest.last() && smallest.add(hash)) {
+                smallest.pollLast();
+            }
+
+            String prefix = path + SEPARATOR;
+            for (Node<FileSystemElement> child : node.getChildren()) {
+                nodes.push(child);
+                paths.push(prefix);
+            }
+        }
+
+        long[] hashes = new long[smallest.size()];
+        int i = 0;
+        for (long hash : smallest) {
+            hashes[i++] = hash;
+        }
+        return new TreeSketch(hashes, k, count);
+    }
+
+    /**
+     * Computes the sketches of several trees in parallel.
+     *
+     * @param roots the roots of the trees
+     * @return the sketches, in the order of the trees
+     */
+    public List<TreeSketch> sketchAll(List<Node<FileSystemElement>> roots) {
+        return roots.parallelStream().map(this::sketch).collect(Collectors.toList());
+    }
+
+    /**
+     * Hashes an element on 64 bits, with FNV-1a followed by the finalizer of MurmurHash3.
+     */
+    static long hash(String path, String checksum) {
+        long h = 0xCBF29CE484222325L;
+        h = fnv(h, path);
+        // A NUL character separates the path from the checksum
+        h *= 0x100000001B3L;
+        if (checksum != null) {
+            h = fnv(h, checksum);
+        }
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long fnv(long hash, String value) {
+        long h = hash;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
@@ -24,15 +24,30 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Iterator;
+import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.analysis.Consensus;
+import org.keyboardplaying.tree.analysis.ConsensusAnalysis;
+import org.keyboardplaying.tree.analysis.DivergenceRanking;
+import org.keyboardplaying.tree.analysis.DivergenceWeight;
+import org.keyboardplaying.tree.analysis.RankedSubtree;
 import org.keyboardplaying.tree.file.comparator.FileSystemElementComparator;
+import org.keyboardplaying.tree.file.config.ConfigParser;
 import org.keyboardplaying.tree.file.filter.DirectoryFilter;
 import org.keyboardplaying.tree.file.filter.HiddenFileFilter;
+import org.keyboardplaying.tree.file.model.ComparisonLevel;
+import org.keyboardplaying.tree.file.model.ConfigEntry;
 import org.keyboardplaying.tree.file.model.FileSystemElement;
 import org.keyboardplaying.tree.file.model.FileSystemElementType;
 import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
 import org.keyboardplaying.tree.sort.NodeSorter;
 
 /**
@@ -42,6 +57,12 @@ import org.keyboardplaying.tree.sort.NodeSorter;
  */
 public class FileNodeBuilderTest {
 
+    /**
+     * A temporary folder for the trees of the tests.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private FileNodeBuilder builder = new FileNodeBuilder();
     private NodeSorter<FileSystemElement> sorter = new NodeSorter<>(new FileSystemElementComparator());
 
@@ -125,6 +146,84 @@ public class FileNodeBuilderTest {
         assertFalse(iter.hasNext());
     }
 
+    /**
+     * Tests the tree building when hashing is spread on several workers.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testParallelTreeBuilding() throws IOException {
+        /* Prepare */
+        File file = new File("src/test/resources/version1");
+        builder.setParallelism(2);
+
+        /* Execute */
+        Node<FileSystemElement> tree = builder.buildTree(file);
+        sorter.sort(tree);
+
+        /* Assert */
+        assertEquals(".", tree.getContent().getName());
+        Iterator<Node<FileSystemElement>> iter = tree.getChildren().iterator();
+        Node<FileSystemElement> child = iter.next();
+        assertEquals("directory", child.getContent().getName());
+        assertEquals(2, child.getChildren().size());
+        assertEquals("692d1c94b50b9076398f67bd24e2f0f3", iter.next().getContent().getChecksum());
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", iter.next().getContent().getChecksum());
+        assertEquals("9e60e9c13569a9ece7ae20fd5798e0cd", iter.next().getContent().getChecksum());
+        assertFalse(iter.hasNext());
+    }
+
+    /**
+     * Tests the expansion of configuration files, parsed once per content.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testConfigExpansion() throws IOException {
+        /* Prepare */
+        ConfigParser parser = new ConfigParser();
+        builder.setConfigParser(parser);
+
+        /* Execute */
+        Node<FileSystemElement> tree = builder.buildTree(new File("src/test/resources/version1"));
+        builder.setParallelism(2);
+        Node<FileSystemElement> parallelTree = builder.buildTree(new File("src/test/resources/version1"));
+        sorter.sort(tree);
+        sorter.sort(parallelTree);
+
+        /* Assert */
+        Node<FileSystemElement> properties = tree.getChildren().get(3);
+        assertEquals("hello.properties", properties.getContent().getName());
+        assertEquals(2, properties.getChildren().size());
+        ConfigEntry hello = (ConfigEntry) properties.getChildren().get(0).getContent();
+        assertEquals("hello", hello.getName());
+        assertEquals("world!", hello.getValue());
+        assertEquals(2, parallelTree.getChildren().get(3).getChildren().size());
+        assertEquals(1, parser.getParseCount());
+        // Other files are not expanded
+        assertTrue(tree.getChildren().get(2).getChildren().isEmpty());
+    }
+
+    /**
+     * Ensures configuration files are not expanded at the metadata level.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testNoConfigExpansionForMetadata() throws IOException {
+        /* Prepare */
+        ConfigParser parser = new ConfigParser();
+        builder.setConfigParser(parser);
+        builder.setComparisonLevel(ComparisonLevel.METADATA);
+
+        /* Execute */
+        Node<FileSystemElement> tree = builder.buildTree(new File("src/test/resources/version1"));
+        sorter.sort(tree);
+
+        /* Assert */
+        Node<FileSystemElement> properties = tree.getChildren().get(3);
+        assertEquals("hello.properties", properties.getContent().getName());
+        assertTrue(properties.getChildren().isEmpty());
+        assertEquals(0, parser.getParseCount());
+    }
+
     /**
      * Tests the tree building when the supplied file is not a directory.
      */
@@ -159,4 +258,92 @@ public class FileNodeBuilderTest {
         /* Execute */
         builder.buildTree(file);
     }
+
+    private File writeFile(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private File host(String name, String config) throws IOException {
+        File root = folder.newFolder(name);
+        writeFile(root, "readme.txt", "Same everywhere");
+        writeFile(root, "conf/app.txt", config);
+        return root;
+    }
+
+    /**
+     * Ensures trees read from different locations are aligned by content when using the content key.
+     *
+     * @throws IOException if a file cannot be read
+     */
+    @Test
+    public void testAlignmentByContent() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> host1 = builder.buildTree(host("host1", "mode=fast"));
+        Node<FileSystemElement> host2 = builder.buildTree(host("host2", "mode=fast"));
+        Node<FileSystemElement> host3 = builder.buildTree(host("host3", "mode=safe"));
+
+        /* Execute */
+        Node<Variations<FileSystemElement>> byFile = new TreeAligner<>(new FileSystemElementComparator())
+                .alignTrees(host1, host2, host3);
+        Node<Variations<FileSystemElement>> byContent = new TreeAligner<>(new FileSystemElementComparator(),
+                FileSystemElement::getContentKey).alignTrees(host1, host2, host3);
+
+        /* Assert */
+        // Each host is a class of its own when comparing files
+        assertFalse(byFile.getChildren().get(1).getContent().isConstant());
+        assertEquals(3, byFile.getChildren().get(1).getContent().getEquivalenceClassCount());
+
+        // The content key tells the files that differ
+        assertTrue(byContent.getContent().isConstant());
+        Node<Variations<FileSystemElement>> conf = byContent.getChildren().get(0);
+        assertEquals("conf", conf.getContent().get(0).getName());
+        assertTrue(conf.getContent().isConstant());
+        Variations<FileSystemElement> app = conf.getChildren().get(0).getContent();
+        assertFalse(app.isConstant());
+        assertEquals(2, app.getEquivalenceClassCount());
+        assertEquals(app.getEquivalenceClass(0), app.getEquivalenceClass(1));
+        Variations<FileSystemElement> readme = byContent.getChildren().get(1).getContent();
+        assertEquals("readme.txt", readme.get(0).getName());
+        assertTrue(readme.isConstant());
+    }
+
+    /**
+     * Ensures the consensus of file trees read from different locations is computed on their content.
+     *
+     * @throws IOException if a file cannot be read
+     */
+    @Test
+    public void testConsensusByContent() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> host1 = builder.buildTree(host("host1", "mode=fast"));
+        Node<FileSystemElement> host2 = builder.buildTree(host("host2", "mode=fast"));
+        Node<FileSystemElement> host3 = builder.buildTree(host("host3", "mode=safe, then slow"));
+        Node<Variations<FileSystemElement>> aligned = new TreeAligner<>(new FileSystemElementComparator(),
+                FileSystemElement::getContentKey).alignTrees(host1, host2, host3);
+
+        /* Execute */
+        Consensus<FileSystemElement> consensus = new ConsensusAnalysis<FileSystemElement>().analyze(aligned);
+        List<RankedSubtree<FileSystemElement>> byNodes = new DivergenceRanking<>(5,
+                DivergenceWeight.<FileSystemElement> changedNodes()).rank(aligned);
+        List<RankedSubtree<FileSystemElement>> byBytes = new DivergenceRanking<>(5,
+                DivergenceWeight.changedBytes(FileSystemElement::getFileSize)).rank(aligned);
+
+        /* Assert */
+        assertEquals(4, consensus.getNodeCount());
+        assertEquals(0, consensus.getDeviations(0));
+        assertEquals(0, consensus.getDeviations(1));
+        assertEquals(1, consensus.getDeviations(2));
+        assertEquals(2, consensus.getOutliers()[0]);
+        assertEquals(host1.getChildren().size(), consensus.getTree().getChildren().size());
+
+        // Only the directory holding the changed file is ranked
+        assertEquals(1, byNodes.size());
+        assertEquals("conf", byNodes.get(0).getNode().getContent().get(0).getName());
+        assertEquals(1, byNodes.get(0).getWeight());
+        assertEquals(1, byBytes.size());
+        assertEquals("mode=safe, then slow".length(), byBytes.get(0).getWeight());
+    }
 }
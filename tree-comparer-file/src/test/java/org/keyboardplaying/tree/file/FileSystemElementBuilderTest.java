@@ -17,15 +17,24 @@
 package org.keyboardplaying.tree.file;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.NoSuchAlgorithmException;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.keyboardplaying.tree.file.model.ComparisonLevel;
+import org.keyboardplaying.tree.file.model.ContentComparison;
 import org.keyboardplaying.tree.file.model.FileSystemElement;
 import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.NamePool;
 
 /**
  * Test class for {@link FileSystemElementBuilder}.
@@ -34,6 +43,12 @@ import org.keyboardplaying.tree.file.model.FileSystemElementType;
  */
 public class FileSystemElementBuilderTest {
 
+    /**
+     * A folder for files created during the tests.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private FileSystemElementBuilder builder = new FileSystemElementBuilder();
 
     /**
@@ -66,6 +81,7 @@ public class FileSystemElementBuilderTest {
 
         /* Assert */
         assertEquals(FileSystemElementType.TEXT, fse.getType());
+        assertEquals(StandardCharsets.ISO_8859_1, fse.getCharset());
         assertEquals("9e60e9c13569a9ece7ae20fd5798e0cd", fse.getChecksum());
     }
 
@@ -83,6 +99,7 @@ public class FileSystemElementBuilderTest {
 
         /* Assert */
         assertEquals(FileSystemElementType.BINARY, fse.getType());
+        assertNull(fse.getCharset());
         assertEquals("454a02dcd0e797bd93737b92cad0652d", fse.getChecksum());
     }
 
@@ -103,6 +120,91 @@ public class FileSystemElementBuilderTest {
         assertEquals("d41d8cd98f00b204e9800998ecf8427e", fse.getChecksum());
     }
 
+    /**
+     * Tests the normalized checksum of {@link FileSystemElementBuilder#buildFileElement(File)}.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testNormalizedChecksum() throws IOException {
+        /* Prepare */
+        File unix = folder.newFile("unix.txt");
+        Files.write(unix.toPath(), "hello=world\nbye=world\n".getBytes(StandardCharsets.US_ASCII));
+        File windows = folder.newFile("windows.txt");
+        Files.write(windows.toPath(), "hello=world  \r\nbye=world\r\n".getBytes(StandardCharsets.US_ASCII));
+        File other = folder.newFile("other.txt");
+        Files.write(other.toPath(), "hello=world\r\nbye=you\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        /* Execute */
+        FileSystemElement unixElm = builder.buildFileElement(unix);
+        FileSystemElement windowsElm = builder.buildFileElement(windows);
+        FileSystemElement otherElm = builder.buildFileElement(other);
+
+        /* Assert */
+        assertEquals(unixElm.getChecksum(), unixElm.getNormalizedChecksum());
+        assertEquals(ContentComparison.IDENTICAL, unixElm.compareContent(unixElm));
+        assertEquals(ContentComparison.EQUIVALENT, unixElm.compareContent(windowsElm));
+        assertEquals(ContentComparison.DIFFERENT, windowsElm.compareContent(otherElm));
+        assertEquals(ContentComparison.UNKNOWN,
+                unixElm.compareContent(builder.buildDirectoryElement(folder.getRoot())));
+
+        // Without normalization
+        builder.setNormalizations();
+        assertNull(builder.buildFileElement(unix).getNormalizedChecksum());
+        assertEquals(ContentComparison.DIFFERENT, builder.buildFileElement(unix).compareContent(
+                builder.buildFileElement(windows)));
+    }
+
+    /**
+     * Ensures no normalized checksum is computed for binary files.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testNoNormalizedChecksumForBinaries() throws IOException {
+        File file = new File("src/test/resources/version1/directory/clouded-lava.jpg");
+        assertNull(builder.buildFileElement(file).getNormalizedChecksum());
+    }
+
+    /**
+     * Tests {@link FileSystemElementBuilder#buildFileElement(File)} at the {@link ComparisonLevel#METADATA} level.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testBuildMetadataFileElement() throws IOException {
+        /* Prepare */
+        File file = new File("src/test/resources/version1/hello.properties");
+
+        /* Execute */
+        builder.setComparisonLevel(ComparisonLevel.METADATA);
+        FileSystemElement fse = builder.buildFileElement(file);
+
+        /* Assert */
+        assertEquals(FileSystemElementType.FILE, fse.getType());
+        assertNull(fse.getChecksum());
+        assertNotNull(fse.getMetadata());
+        assertEquals(file.length(), fse.getMetadata().getSize());
+        assertEquals(file.length(), fse.getFileSize());
+        assertEquals(file.lastModified(), fse.getLastModified());
+    }
+
+    /**
+     * Tests {@link FileSystemElementBuilder#buildDirectoryElement(File)} at the {@link ComparisonLevel#METADATA}
+     * level.
+     */
+    @Test
+    public void testBuildMetadataDirectoryElement() {
+        /* Prepare */
+        File file = new File("src/test/resources/version1");
+
+        /* Execute */
+        builder.setComparisonLevel(ComparisonLevel.METADATA);
+        FileSystemElement fse = builder.buildDirectoryElement(file);
+
+        /* Assert */
+        assertEquals(FileSystemElementType.DIRECTORY, fse.getType());
+        assertNotNull(fse.getMetadata());
+        assertEquals(file.lastModified(), fse.getLastModified());
+    }
+
     /**
      * Tests {@link FileSystemElementBuilder#buildFileElement(File)} with SHA-1 as checksum algorithm.
      */
@@ -146,4 +248,27 @@ public class FileSystemElementBuilderTest {
         /* Execute */
         builder.setChecksumAlgorithm("theBestAlgorithmEver");
     }
+
+    /**
+     * Ensures elements of the same name share their name when their builders share a pool.
+     *
+     * @throws IOException if a file cannot be read
+     */
+    @Test
+    public void testSharedByBuilders() throws IOException {
+        /* Prepare */
+        NamePool pool = new NamePool();
+        FileSystemElementBuilder builder1 = new FileSystemElementBuilder();
+        builder1.setNamePool(pool);
+        FileSystemElementBuilder builder2 = new FileSystemElementBuilder(builder1);
+
+        /* Execute */
+        FileSystemElement element1 = builder1.buildDirectoryElement(new File("src/test/resources/version1/directory"));
+        FileSystemElement element2 = builder2.buildDirectoryElement(new File("src/test/resources/version2/directory"));
+
+        /* Assert */
+        assertEquals("directory", element1.getName());
+        assertSame(element1.getName(), element2.getName());
+        assertEquals(1, pool.size());
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+
+/**
+ * Test class for {@link HashingScheduler}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class HashingSchedulerTest {
+
+    private static final File JPG = new File("src/test/resources/version1/directory/clouded-lava.jpg");
+    private static final File HTACCESS = new File("src/test/resources/version1/.htaccess");
+    private static final File EMPTY = new File("src/test/resources/version1/empty.log");
+    private static final File PROPERTIES = new File("src/test/resources/version1/hello.properties");
+
+    /**
+     * Ensures a scheduler cannot be created without workers.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorWithoutWorker() {
+        new HashingScheduler(0);
+    }
+
+    /**
+     * Tests {@link HashingScheduler#schedule(java.util.Collection)} orders the files largest first.
+     */
+    @Test
+    public void testSchedule() {
+        /* Prepare */
+        List<File> files = Arrays.asList(EMPTY, PROPERTIES, JPG, HTACCESS);
+
+        /* Execute */
+        File[] scheduled = new HashingScheduler(2).schedule(files);
+
+        /* Assert */
+        assertArrayEquals(new File[] {JPG, HTACCESS, PROPERTIES, EMPTY}, scheduled);
+    }
+
+    /**
+     * Tests {@link HashingScheduler#hash(java.util.Collection, FileSystemElementBuilder)} and the byte accounting.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testHash() throws IOException {
+        /* Prepare */
+        List<File> files = Arrays.asList(EMPTY, PROPERTIES, JPG, HTACCESS);
+        HashingScheduler scheduler = new HashingScheduler(3);
+
+        /* Execute */
+        Map<File, FileSystemElement> elements = scheduler.hash(files, new FileSystemElementBuilder());
+
+        /* Assert */
+        assertEquals(4, elements.size());
+        assertEquals("454a02dcd0e797bd93737b92cad0652d", elements.get(JPG).getChecksum());
+        assertEquals("9e60e9c13569a9ece7ae20fd5798e0cd", elements.get(PROPERTIES).getChecksum());
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", elements.get(EMPTY).getChecksum());
+
+        long[] bytes = scheduler.getHashedBytes();
+        assertEquals(3, bytes.length);
+        long total = 0;
+        for (long b : bytes) {
+            total += b;
+        }
+        assertEquals(JPG.length() + HTACCESS.length() + PROPERTIES.length() + EMPTY.length(), total);
+    }
+}
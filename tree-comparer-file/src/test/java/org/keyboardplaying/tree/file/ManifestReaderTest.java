@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.file.comparator.FileSystemElementComparator;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.sort.NodeSorter;
+
+/**
+ * Test class for {@link ManifestReader}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ManifestReaderTest {
+
+    private static final File BASE = new File("src/test/resources/version1");
+
+    private ManifestReader reader = new ManifestReader();
+    private NodeSorter<FileSystemElement> sorter = new NodeSorter<>(new FileSystemElementComparator());
+
+    /**
+     * Tests the reading of a GNU manifest.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testReadTree() throws IOException {
+        /* Execute */
+        Node<FileSystemElement> tree;
+        try (Reader manifest = new FileReader("src/test/resources/manifests/version1.sha256")) {
+            tree = reader.readTree(manifest, BASE);
+        }
+        sorter.sort(tree);
+
+        /* Assert */
+        assertEquals(".", tree.getContent().getName());
+        Iterator<Node<FileSystemElement>> iter = tree.getChildren().iterator();
+
+        Node<FileSystemElement> child = iter.next();
+        assertEquals("directory", child.getContent().getName());
+        assertEquals(FileSystemElementType.DIRECTORY, child.getContent().getType());
+        assertEquals(2, child.getChildren().size());
+        assertEquals("88b8cdf37965ed2dc4c4a6837e255ce5f5b0a7ec1073acbec275ff2dee79c4f4",
+                child.getChildren().get(0).getContent().getChecksum());
+
+        child = iter.next();
+        assertEquals(".htaccess", child.getContent().getName());
+        assertEquals(FileSystemElementType.FILE, child.getContent().getType());
+        assertNull(child.getContent().getMetadata());
+
+        assertEquals("empty.log", iter.next().getContent().getName());
+        assertEquals("03a414fafc012133e3ed48953590ae76feb50a6e4143decc3dc086ed9e0fe71c",
+                iter.next().getContent().getChecksum());
+        assertFalse(iter.hasNext());
+    }
+
+    /**
+     * Tests the reading of BSD and escaped entries, and of sizes.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testReadFormats() throws IOException {
+        /* Prepare */
+        String manifest = "SHA256 (a/b.txt) = CA978112CA1BBDCAFAC231B39A23DC4DA786EFF8147C4E72B9807785AFEE48BB\n"
+                + "\\ca978112ca1bbdcafac231b39a23dc4da786eff8147c4e72b9807785afee48bb 1 a/new\\\\line\n";
+        reader.setSizeColumn(true);
+
+        /* Execute */
+        Node<FileSystemElement> tree = reader.readTree(new StringReader(manifest), BASE);
+
+        /* Assert */
+        assertEquals(1, tree.getChildren().size());
+        Node<FileSystemElement> dir = tree.getChildren().get(0);
+        assertEquals("a", dir.getContent().getName());
+        assertEquals("b.txt", dir.getChildren().get(0).getContent().getName());
+        assertEquals("ca978112ca1bbdcafac231b39a23dc4da786eff8147c4e72b9807785afee48bb",
+                dir.getChildren().get(0).getContent().getChecksum());
+        assertEquals("new\\line", dir.getChildren().get(1).getContent().getName());
+        assertEquals(1L, dir.getChildren().get(1).getContent().getFileSize());
+    }
+
+    /**
+     * Ensures malformed manifests are rejected.
+     */
+    @SuppressWarnings("javadoc")
+    @Test(expected = IOException.class)
+    public void testMalformedManifest() throws IOException {
+        reader.readTree(new StringReader("this is not a manifest\n"), BASE);
+    }
+
+    /**
+     * Ensures a manifest tree aligns with the tree of a live directory.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testAlignWithLiveTree() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> manifestTree;
+        try (Reader manifest = new FileReader("src/test/resources/manifests/version1.sha256")) {
+            manifestTree = reader.readTree(manifest, BASE);
+        }
+        Node<FileSystemElement> liveTree = new FileNodeBuilder().buildTree(BASE);
+
+        /* Execute */
+        Node<Variations<FileSystemElement>> aligned = new TreeAligner<>(new FileSystemElementComparator())
+                .alignTrees(manifestTree, liveTree);
+
+        /* Assert */
+        // Every entry was found on both sides
+        assertEquals(4, aligned.getChildren().size());
+        for (Node<Variations<FileSystemElement>> node : aligned.getChildren()) {
+            assertEquals(node.getContent().get(0).getName(), node.getContent().get(1).getName());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.file.ManifestVerifier.Status;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Test class for {@link ManifestVerifier}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ManifestVerifierTest {
+
+    private static final File BASE = new File("src/test/resources/version1");
+
+    private ManifestReader reader = new ManifestReader();
+    private ManifestVerifier verifier = new ManifestVerifier();
+
+    /**
+     * Tests the verification of a valid directory.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testValidDirectory() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> manifest = read("version1.sha256");
+        verifier.setParallelism(2);
+
+        /* Execute */
+        Map<String, Status> statuses = verifier.verify(manifest, BASE);
+
+        /* Assert */
+        assertEquals(5, statuses.size());
+        for (Status status : statuses.values()) {
+            assertEquals(Status.VALID, status);
+        }
+    }
+
+    /**
+     * Tests the verification of a directory which drifted from its manifest.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testDriftedDirectory() throws IOException {
+        /* Prepare */
+        reader.setSizeColumn(true);
+        Node<FileSystemElement> manifest = read("drifted.sha256");
+
+        /* Execute */
+        Map<String, Status> statuses = verifier.verify(manifest, BASE);
+
+        /* Assert */
+        assertEquals(4, statuses.size());
+        assertEquals(Status.VALID, statuses.get(".htaccess"));
+        assertEquals(Status.SIZE_MISMATCH, statuses.get("directory/clouded-lava.jpg"));
+        assertEquals(Status.CHECKSUM_MISMATCH, statuses.get("directory/something-in-here.txt"));
+        assertEquals(Status.MISSING, statuses.get("deleted.log"));
+    }
+
+    private Node<FileSystemElement> read(String name) throws IOException {
+        try (Reader manifest = new FileReader("src/test/resources/manifests/" + name)) {
+            return reader.readTree(manifest, BASE);
+        }
+    }
+}
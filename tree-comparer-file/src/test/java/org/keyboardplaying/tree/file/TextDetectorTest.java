@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link TextDetector}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class TextDetectorTest {
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet,\tconsectetur adipiscing elit.\r\n";
+
+    /**
+     * Tests the detection of an empty content.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(StandardCharsets.US_ASCII, detect(new byte[0]));
+    }
+
+    /**
+     * Tests the detection of pure ASCII text.
+     */
+    @Test
+    public void testAscii() {
+        assertEquals(StandardCharsets.US_ASCII, detect(LOREM.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Tests the detection of UTF-8 text with accented and CJK characters.
+     */
+    @Test
+    public void testUtf8() {
+        String text = "Déjà vu, à la française. 日本語のテキスト、漢字とかなが混じっている。" + LOREM;
+        assertEquals(StandardCharsets.UTF_8, detect(text.getBytes(StandardCharsets.UTF_8)));
+
+        // Mostly non-ASCII characters
+        assertEquals(StandardCharsets.UTF_8, detect("日本語のテキスト".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Ensures multi-byte sequences split between two chunks are validated.
+     */
+    @Test
+    public void testUtf8AcrossChunks() {
+        byte[] bytes = "Voilà".getBytes(StandardCharsets.UTF_8);
+        TextDetector detector = new TextDetector();
+        // split inside the 'à'
+        detector.update(bytes, 0, 5);
+        detector.update(bytes, 5, bytes.length - 5);
+        assertEquals(StandardCharsets.UTF_8, detector.getCharset());
+    }
+
+    /**
+     * Tests the detection of ISO-8859-1 text, which is not valid UTF-8.
+     */
+    @Test
+    public void testLatin1() {
+        String text = "Déjà vu, à la française, c'était l'été. " + LOREM;
+        assertEquals(StandardCharsets.ISO_8859_1, detect(text.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    /**
+     * Ensures a UTF-8 sequence truncated at the end of the content is not considered as UTF-8.
+     */
+    @Test
+    public void testTruncatedUtf8() {
+        byte[] bytes = "Déjà".getBytes(StandardCharsets.UTF_8);
+        TextDetector detector = new TextDetector();
+        detector.update(bytes, 0, bytes.length - 1);
+        assertEquals(StandardCharsets.ISO_8859_1, detector.getCharset());
+    }
+
+    /**
+     * Tests the detection of UTF-16 contents through their byte order mark.
+     */
+    @Test
+    public void testUtf16Bom() {
+        assertEquals(StandardCharsets.UTF_16BE, detect(("﻿" + LOREM).getBytes(StandardCharsets.UTF_16BE)));
+        assertEquals(StandardCharsets.UTF_16LE, detect(("﻿" + LOREM).getBytes(StandardCharsets.UTF_16LE)));
+    }
+
+    /**
+     * Tests the detection of UTF-8 contents with a byte order mark.
+     */
+    @Test
+    public void testUtf8Bom() {
+        assertEquals(StandardCharsets.UTF_8, detect(("﻿" + LOREM).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests the detection of binary contents.
+     */
+    @Test
+    public void testBinary() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        TextDetector detector = new TextDetector();
+        detector.update(bytes, 0, bytes.length);
+        assertNull(detector.getCharset());
+        assertFalse(detector.isText());
+
+        // UTF-16 without BOM is full of NUL bytes
+        assertNull(detect(LOREM.getBytes(StandardCharsets.UTF_16LE)));
+    }
+
+    /**
+     * Ensures a few control characters in a long text are tolerated.
+     */
+    @Test
+    public void testSparseControlCharacters() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            sb.append(LOREM);
+        }
+        sb.append('\u0000');
+
+        TextDetector detector = new TextDetector();
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        detector.update(bytes, 0, bytes.length);
+        assertTrue(detector.isText());
+    }
+
+    /**
+     * Tests the early detection of contents which cannot be ASCII-compatible texts.
+     */
+    @Test
+    public void testNeverAsciiText() {
+        /* Prepare */
+        byte[] bytes = new byte[100];
+        Arrays.fill(bytes, (byte) ' ');
+        bytes[0] = 0x01;
+        TextDetector controls = new TextDetector();
+        TextDetector utf16 = new TextDetector();
+        byte[] utf16Bytes = ("\uFEFF" + LOREM).getBytes(StandardCharsets.UTF_16LE);
+
+        /* Execute */
+        controls.update(bytes, 0, 10);
+        utf16.update(utf16Bytes, 0, utf16Bytes.length);
+
+        /* Assert */
+        // One control character is tolerated in 100 bytes, not in 10
+        assertFalse(controls.isNeverAsciiText(100));
+        assertTrue(controls.isNeverAsciiText(10));
+        assertTrue(utf16.isNeverAsciiText(utf16Bytes.length));
+    }
+
+    private Charset detect(byte[] bytes) {
+        TextDetector detector = new TextDetector();
+        detector.update(bytes, 0, bytes.length);
+        return detector.getCharset();
+    }
+}
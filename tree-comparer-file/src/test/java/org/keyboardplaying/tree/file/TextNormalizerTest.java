@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.file.model.Normalization;
+
+/**
+ * Test class for {@link TextNormalizer}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class TextNormalizerTest {
+
+    private static final Set<Normalization> ALL = EnumSet.allOf(Normalization.class);
+
+    /**
+     * Tests the normalization of line endings.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testLineEndings() throws NoSuchAlgorithmException {
+        Set<Normalization> rules = EnumSet.of(Normalization.LINE_ENDINGS);
+        byte[] expected = expected("hello\nworld\n\nbye");
+
+        assertArrayEquals(expected, normalize(rules, "hello\r\nworld\r\n\r\nbye"));
+        assertArrayEquals(expected, normalize(rules, "hello\rworld\r\rbye"));
+        assertArrayEquals(expected, normalize(rules, "hello\nworld\n\nbye"));
+        // trailing whitespace is kept
+        assertFalse(Arrays.equals(expected, normalize(rules, "hello \r\nworld\r\n\r\nbye")));
+    }
+
+    /**
+     * Tests the removal of trailing whitespace.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testTrailingWhitespace() throws NoSuchAlgorithmException {
+        Set<Normalization> rules = EnumSet.of(Normalization.TRAILING_WHITESPACE);
+        byte[] expected = expected("hello world\n\tindented\n");
+
+        assertArrayEquals(expected, normalize(rules, "hello world  \n\tindented\t\n  \t"));
+        // line endings are kept
+        assertFalse(Arrays.equals(expected, normalize(rules, "hello world\r\n\tindented\r\n")));
+    }
+
+    /**
+     * Ensures whitespace before a kept CRLF is trailing, while whitespace before a lone CR is not.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testTrailingWhitespaceBeforeCrlf() throws NoSuchAlgorithmException {
+        Set<Normalization> rules = EnumSet.of(Normalization.TRAILING_WHITESPACE);
+
+        assertArrayEquals(expected("a\r\nb\r\n"), normalize(rules, "a  \r\nb\t\r\n"));
+        assertArrayEquals(expected("a \rb\r \r\r\n"), normalize(rules, "a \rb\r \r \t\r\n"));
+        assertArrayEquals(expected("a \r"), normalize(rules, "a \r  "));
+    }
+
+    /**
+     * Tests the combination of all rules, with contents split in several chunks.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testAllRulesAcrossChunks() throws NoSuchAlgorithmException {
+        byte[] expected = expected("key = value\nother = value\n");
+        byte[] content = "key = value \t\r\nother = value\r\n ".getBytes(StandardCharsets.US_ASCII);
+
+        for (int split = 0; split <= content.length; split++) {
+            TextNormalizer normalizer = new TextNormalizer(MessageDigest.getInstance("MD5"), ALL);
+            normalizer.update(content, 0, split);
+            normalizer.update(content, split, content.length - split);
+            assertArrayEquals("Split at " + split, expected, normalizer.digest());
+        }
+    }
+
+    /**
+     * Ensures long runs of whitespace are normalized the same way as short ones.
+     */
+    @SuppressWarnings("javadoc")
+    @Test
+    public void testLongWhitespace() throws NoSuchAlgorithmException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append(i % 3 == 0 ? '\t' : ' ');
+        }
+        String ws = sb.toString();
+
+        // Trailing, the run is dropped
+        assertArrayEquals(expected("a\nb\n"), normalize(ALL, "a" + ws + "\r\nb" + ws + "\n"));
+        assertArrayEquals(expected("a"), normalize(ALL, "a" + ws));
+        // Otherwise, the run is kept
+        assertArrayEquals(expected("a" + ws + "b\n"), normalize(ALL, "a" + ws + "b" + ws + "\n"));
+    }
+
+    private byte[] expected(String content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private byte[] normalize(Set<Normalization> rules, String content) throws NoSuchAlgorithmException {
+        TextNormalizer normalizer = new TextNormalizer(MessageDigest.getInstance("MD5"), rules);
+        byte[] bytes = content.getBytes(StandardCharsets.US_ASCII);
+        normalizer.update(bytes, 0, bytes.length);
+        return normalizer.digest();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.keyboardplaying.tree.file.FileSystemElementBuilder;
+import org.keyboardplaying.tree.file.comparator.FileSystemElementComparator;
+import org.keyboardplaying.tree.file.model.ConfigEntry;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.sort.NodeSorter;
+
+/**
+ * Test class for {@link ConfigParser}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConfigParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConfigParser parser = new ConfigParser();
+
+    private Node<FileSystemElement> fileNode(String name, String content) throws IOException {
+        File file = new File(folder.newFolder(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new Node<>(new FileSystemElementBuilder().buildFileElement(file));
+    }
+
+    private static ConfigEntry entry(Node<FileSystemElement> node) {
+        return (ConfigEntry) node.getContent();
+    }
+
+    /**
+     * Tests the expansion of an INI file.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testIni() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> node = fileNode("app.INI", "; comment\nglobal = 1\n\n[server]\nport: 8080\n"
+                + "# comment\nhost=example.org = main\nverbose\n[ empty ]\n[server]\nport=8443\n");
+
+        /* Execute */
+        parser.expand(node);
+
+        /* Assert */
+        List<Node<FileSystemElement>> children = node.getChildren();
+        assertEquals(3, children.size());
+        assertEquals("global", entry(children.get(0)).getName());
+        assertEquals("1", entry(children.get(0)).getValue());
+
+        ConfigEntry server = entry(children.get(1));
+        assertEquals("server", server.getName());
+        assertEquals(FileSystemElementType.CONFIG_SECTION, server.getType());
+        assertNull(server.getValue());
+        assertTrue(server.getPath().endsWith("app.INI" + File.separator + "server"));
+
+        List<Node<FileSystemElement>> entries = children.get(1).getChildren();
+        assertEquals(3, entries.size());
+        // The last value wins
+        assertEquals("8443", entry(entries.get(0)).getValue());
+        assertEquals("example.org = main", entry(entries.get(1)).getValue());
+        assertEquals("verbose", entry(entries.get(2)).getName());
+        assertEquals("", entry(entries.get(2)).getValue());
+        assertEquals(FileSystemElementType.CONFIG_ENTRY, entry(entries.get(2)).getType());
+
+        assertEquals("empty", entry(children.get(2)).getName());
+        assertTrue(children.get(2).getChildren().isEmpty());
+    }
+
+    /**
+     * Ensures a section and an entry of the same name are told apart when sorted.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testSectionAndEntryOfSameName() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> node = fileNode("app.ini", "db = 1\n[db]\nhost = example.org\n");
+        FileSystemElementComparator comparator = new FileSystemElementComparator();
+
+        /* Execute */
+        parser.expand(node);
+        new NodeSorter<>(comparator).sort(node);
+
+        /* Assert */
+        List<Node<FileSystemElement>> children = node.getChildren();
+        assertEquals(2, children.size());
+        assertEquals(FileSystemElementType.CONFIG_SECTION, children.get(0).getContent().getType());
+        assertEquals(FileSystemElementType.CONFIG_ENTRY, children.get(1).getContent().getType());
+        assertEquals("db", children.get(1).getContent().getName());
+        assertTrue(comparator.compare(children.get(0), children.get(1)) < 0);
+    }
+
+    /**
+     * Tests the expansion of a properties file.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testProperties() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> node = fileNode("app.properties",
+                "# comment\nb = two \\\n    lines\na:\\u00e9\n");
+
+        /* Execute */
+        parser.expand(node);
+
+        /* Assert */
+        List<Node<FileSystemElement>> children = node.getChildren();
+        assertEquals(2, children.size());
+        assertEquals("a", entry(children.get(0)).getName());
+        assertEquals("\u00e9", entry(children.get(0)).getValue());
+        assertEquals("two lines", entry(children.get(1)).getValue());
+    }
+
+    /**
+     * Ensures identical files are parsed once.
+     *
+     * @throws IOException if the files cannot be read
+     */
+    @Test
+    public void testCache() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> node1 = fileNode("app.properties", "key=value\n");
+        Node<FileSystemElement> node2 = fileNode("app.properties", "key=value\n");
+        Node<FileSystemElement> node3 = fileNode("app.properties", "key=other\n");
+
+        /* Execute */
+        parser.expand(node1);
+        parser.expand(node2);
+        parser.expand(node3);
+
+        /* Assert */
+        assertEquals(2, parser.getParseCount());
+        assertEquals(2, parser.getCacheSize());
+        // The entries are located below their own file, but share the parsed strings
+        String path1 = node1.getChildren().get(0).getContent().getPath();
+        String path2 = node2.getChildren().get(0).getContent().getPath();
+        assertNotEquals(path1, path2);
+        assertSame(entry(node1.getChildren().get(0)).getValue(), entry(node2.getChildren().get(0)).getValue());
+        assertEquals("other", entry(node3.getChildren().get(0)).getValue());
+
+        parser.clearCache();
+        assertEquals(0, parser.getCacheSize());
+    }
+
+    /**
+     * Ensures other files are not expanded.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testOtherFile() throws IOException {
+        /* Prepare */
+        Node<FileSystemElement> node = fileNode("app.txt", "key=value\n");
+
+        /* Execute */
+        parser.expand(node);
+
+        /* Assert */
+        assertTrue(node.getChildren().isEmpty());
+        assertEquals(0, parser.getParseCount());
+        assertEquals(ConfigFormat.INI, ConfigFormat.forFileName("php.ini"));
+        assertNull(ConfigFormat.forFileName("properties"));
+    }
+
+    /**
+     * Ensures malformed files are rejected.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        parser.expand(fileNode("app.properties", "key=\\u00G0\n"));
+    }
+
+    /**
+     * Ensures a section without name is rejected rather than merged with the entries preceding any section.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expected = IOException.class)
+    public void testSectionWithoutName() throws IOException {
+        parser.expand(fileNode("app.ini", "mode = fast\n[ ]\nmode = safe\n"));
+    }
+}
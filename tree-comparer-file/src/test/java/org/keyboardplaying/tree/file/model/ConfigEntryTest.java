@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link ConfigEntry}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class ConfigEntryTest {
+
+    /**
+     * Tests the name, size and content comparison of entries.
+     */
+    @Test
+    public void testEntry() {
+        /* Prepare */
+        File file = new File("app.ini");
+        ConfigEntry entry = new ConfigEntry(new File(file, "a/b"), "a/b", FileSystemElementType.CONFIG_ENTRY, "1");
+
+        /* Assert */
+        assertEquals("a/b", entry.getName());
+        assertEquals(1, entry.getFileSize());
+        assertEquals(0, entry.getLastModified());
+        assertEquals(ContentComparison.IDENTICAL, entry.compareContent(
+                new ConfigEntry(new File("other.ini", "a/b"), "a/b", FileSystemElementType.CONFIG_ENTRY, "1")));
+        assertEquals(ContentComparison.DIFFERENT, entry.compareContent(
+                new ConfigEntry(new File(file, "a/b"), "a/b", FileSystemElementType.CONFIG_ENTRY, "2")));
+        assertEquals(ContentComparison.DIFFERENT,
+                entry.compareContent(new FileSystemElement(file, FileSystemElementType.TEXT, "1")));
+    }
+
+    /**
+     * Ensures a configuration entry cannot be a file.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidType() {
+        new ConfigEntry(new File("app.ini"), "key", FileSystemElementType.TEXT, "1");
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link FileMetadata}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class FileMetadataTest {
+
+    /**
+     * Tests {@link FileMetadata#equals(Object)} and {@link FileMetadata#hashCode()}.
+     */
+    @Test
+    public void testEqualsAndHashCode() {
+        /* Prepare */
+        FileMetadata meta1 = new FileMetadata(25L, 1500000000000L, "rw-r--r--", "deploy");
+        FileMetadata meta2 = new FileMetadata(25L, 1500000000000L, "rw-r--r--", "deploy");
+        FileMetadata meta3 = new FileMetadata(25L, 1500000000000L, "rwxr--r--", "deploy");
+        FileMetadata meta4 = new FileMetadata(25L, 1500000000000L, null, null);
+
+        /* Assert */
+        assertTrue(meta1.equals(meta2));
+        assertEquals(meta1.hashCode(), meta2.hashCode());
+        assertFalse(meta1.equals(meta3));
+        assertFalse(meta1.equals(meta4));
+        assertFalse(meta4.equals(meta1));
+        assertTrue(meta4.equals(new FileMetadata(25L, 1500000000000L, null, null)));
+        assertFalse(meta1.equals("deploy"));
+    }
+}
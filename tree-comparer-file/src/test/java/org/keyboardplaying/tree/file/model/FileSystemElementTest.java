@@ -18,6 +18,7 @@ package org.keyboardplaying.tree.file.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -125,4 +126,46 @@ public class FileSystemElementTest {
         // hashcode
         assertTrue(elm2.hashCode() == elm3.hashCode());
     }
+
+    /**
+     * Tests {@link FileSystemElement#getContentKey()}.
+     */
+    @Test
+    public void testContentKey() {
+        /* Prepare */
+        FileSystemElement file1 = new FileSystemElement(new File("host1/app.txt"), FileSystemElementType.TEXT, "abc");
+        FileSystemElement file2 = new FileSystemElement(new File("host2/app.txt"), FileSystemElementType.TEXT, "abc");
+        FileSystemElement file3 = new FileSystemElement(new File("host3/app.txt"), FileSystemElementType.TEXT, "def");
+        FileSystemElement renamed = new FileSystemElement(new File("host1/app.bak"), FileSystemElementType.TEXT, "abc");
+        FileSystemElement unknown1 = new FileSystemElement(new File("host1/app.txt"), FileSystemElementType.FILE, null);
+        FileSystemElement unknown2 = new FileSystemElement(new File("host2/app.txt"), FileSystemElementType.FILE, null);
+        FileSystemElement dir1 = new FileSystemElement(new File("host1/conf"), FileSystemElementType.DIRECTORY, null);
+        FileSystemElement dir2 = new FileSystemElement(new File("host2/conf"), FileSystemElementType.DIRECTORY, null);
+
+        /* Assert */
+        assertFalse(file1.equals(file2));
+        assertEquals(file1.getContentKey(), file2.getContentKey());
+        assertFalse(file1.getContentKey().equals(file3.getContentKey()));
+        assertFalse(file1.getContentKey().equals(renamed.getContentKey()));
+        // Nothing is known of the content
+        assertFalse(unknown1.getContentKey().equals(unknown2.getContentKey()));
+        assertEquals(unknown1.getContentKey(), unknown1.getContentKey());
+        assertEquals(dir1.getContentKey(), dir2.getContentKey());
+    }
+
+    /**
+     * Ensures elements built directly keep the name of their file, without being pooled.
+     */
+    @Test
+    public void testNotPooledByElements() {
+        /* Prepare */
+        FileSystemElement element1 = new FileSystemElement(new File("version1/pom.xml"), FileSystemElementType.FILE,
+                null);
+        FileSystemElement element2 = new FileSystemElement(new File("version2/pom.xml"), FileSystemElementType.FILE,
+                null);
+
+        /* Assert */
+        assertEquals(element1.getName(), element2.getName());
+        assertNotSame(element1.getName(), element2.getName());
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.sketch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Test class for {@link SimilarityMatrix}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class SimilarityMatrixTest {
+
+    /**
+     * Tests the computation and the grouping of similar trees.
+     */
+    @Test
+    public void testMatrix() {
+        /* Prepare */
+        List<Node<FileSystemElement>> trees = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            // Two families of three trees, each with a few changes
+            int family = i % 2 * 1000;
+            trees.add(TreeSketcherTest.tree("v" + i, family, family + 500, family + i * 10));
+        }
+        List<TreeSketch> sketches = new TreeSketcher().sketchAll(trees);
+
+        /* Execute */
+        SimilarityMatrix matrix = SimilarityMatrix.compute(sketches);
+
+        /* Assert */
+        assertEquals(6, matrix.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(1, matrix.get(i, i), 0);
+            for (int j = 0; j < 6; j++) {
+                assertEquals((float) sketches.get(i).similarity(sketches.get(j)), matrix.get(i, j), 0);
+                assertEquals(matrix.get(i, j), matrix.get(j, i), 0);
+            }
+        }
+        assertEquals(Arrays.asList(Arrays.asList(0, 2, 4), Arrays.asList(1, 3, 5)), matrix.group(0.8));
+        assertEquals(6, matrix.group(1.01).size());
+    }
+
+    /**
+     * Ensures an empty list of sketches is supported.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0, SimilarityMatrix.compute(new ArrayList<TreeSketch>()).size());
+    }
+
+    /**
+     * Ensures indices are checked.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        SimilarityMatrix.compute(new ArrayList<TreeSketch>()).get(0, 0);
+    }
+}
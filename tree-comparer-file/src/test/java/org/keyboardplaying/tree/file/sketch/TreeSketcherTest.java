@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.file.sketch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.file.model.FileSystemElement;
+import org.keyboardplaying.tree.file.model.FileSystemElementType;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Test class for {@link TreeSketcher} and {@link TreeSketch}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class TreeSketcherTest {
+
+    /**
+     * Builds a directory containing a sub-directory with the specified files, file {@code i} having checksum
+     * {@code "c" + i}, except for the files below {@code changed}.
+     */
+    static Node<FileSystemElement> tree(String name, int from, int to, int changed) {
+        File root = new File(name);
+        Node<FileSystemElement> rootNode = new Node<>(
+                new FileSystemElement(root, FileSystemElementType.DIRECTORY, null));
+        File dir = new File(root, "dir");
+        Node<FileSystemElement> dirNode = new Node<>(new FileSystemElement(dir, FileSystemElementType.DIRECTORY, null));
+        rootNode.addChild(dirNode);
+        for (int i = from; i < to; i++) {
+            String checksum = i < changed ? "changed" + i : "c" + i;
+            dirNode.addChild(new Node<>(
+                    new FileSystemElement(new File(dir, "file" + i), FileSystemElementType.FILE, checksum)));
+        }
+        return rootNode;
+    }
+
+    /**
+     * Tests the estimated similarity of trees.
+     */
+    @Test
+    public void testSimilarity() {
+        /* Prepare */
+        TreeSketcher sketcher = new TreeSketcher();
+
+        /* Execute */
+        List<TreeSketch> sketches = sketcher.sketchAll(Arrays.asList(tree("v1", 0, 1000, 0),
+                tree("v2", 0, 1000, 100), tree("v3", 1000, 2000, 0), tree("v4", 0, 1000, 0)));
+
+        /* Assert */
+        assertEquals(1001, sketches.get(0).getElementCount());
+        assertEquals(TreeSketcher.DEFAULT_K, sketches.get(0).getHashes().length);
+        // 901 shared elements among 1101
+        assertEquals(0.818, sketches.get(0).similarity(sketches.get(1)), 0.1);
+        // Only the directory is shared
+        assertEquals(0, sketches.get(0).similarity(sketches.get(2)), 0.02);
+        // The name of the root does not matter
+        assertEquals(1, sketches.get(0).similarity(sketches.get(3)), 0);
+        assertEquals(sketches.get(0), sketches.get(3));
+    }
+
+    /**
+     * Ensures a tree smaller than the sketch is sketched exactly.
+     */
+    @Test
+    public void testSmallTree() {
+        /* Prepare */
+        TreeSketcher sketcher = new TreeSketcher(16);
+
+        /* Execute */
+        TreeSketch small = sketcher.sketch(tree("v1", 0, 3, 0));
+        TreeSketch other = sketcher.sketch(tree("v2", 0, 3, 1));
+        TreeSketch empty = sketcher.sketch(new Node<>(
+                new FileSystemElement(new File("empty"), FileSystemElementType.DIRECTORY, null)));
+
+        /* Assert */
+        assertEquals(4, small.getHashes().length);
+        long[] hashes = small.getHashes();
+        long[] sorted = hashes.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, hashes);
+        // 3 shared elements among 5
+        assertEquals(0.6, small.similarity(other), 1e-9);
+        assertEquals(1, empty.similarity(empty), 0);
+    }
+
+    /**
+     * Ensures the checksum is part of the hash.
+     */
+    @Test
+    public void testHash() {
+        assertEquals(TreeSketcher.hash("dir/file", "abc"), TreeSketcher.hash("dir/file", "abc"));
+        assertNotEquals(TreeSketcher.hash("dir/file", "abc"), TreeSketcher.hash("dir/file", "abd"));
+        assertNotEquals(TreeSketcher.hash("dir/file", null), TreeSketcher.hash("dir/fil", "e"));
+        assertEquals(8, new TreeSketcher(8).getK());
+    }
+
+    /**
+     * Ensures sketches of different sizes cannot be compared.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentSizes() {
+        new TreeSketcher(8).sketch(tree("v1", 0, 1, 0)).similarity(new TreeSketcher(16).sketch(tree("v1", 0, 1, 0)));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+import org.keyboardplaying.tree.json.model.JsonElement;
+import org.keyboardplaying.tree.json.model.JsonType;
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.OccurrenceCounter;
+
+/**
+ * This class contains the algorithm to build a node from a JSON document.
+ * <p/>
+ * The document is streamed with a {@link JsonTokenizer}: besides the resulting tree, the memory used only grows with
+ * the depth of the document.
+ * <p/>
+ * Object members are identified by their name. Array elements are identified by the value of their first identity
+ * field, e.g. {@code [name=web]} for an element {@code {"name": "web", ...}} if {@code name} is an identity field,
+ * so that the elements with the same value are compared wherever they are in the array. Elements without identity
+ * share the key {@value #ARRAY_ELEMENT_KEY} and are compared in the order of the document.
+ * <p/>
+ * The member names are interned in a {@link NamePool}, so that the trees of all the compared documents share them.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonNodeBuilder {
+
+    /**
+     * The key of the root value.
+     */
+    public static final String ROOT_KEY = "$";
+    /**
+     * The key of the array elements without identity.
+     */
+    public static final String ARRAY_ELEMENT_KEY = "[]";
+
+    private static final String[] NONE = new String[0];
+
+    private NamePool namePool = NamePool.getShared();
+
+    private String[] identityFields = NONE;
+
+    /**
+     * Sets the pool in which the member names are interned.
+     * <p/>
+     * By default, the {@link NamePool#getShared() shared pool} is used.
+     *
+     * @param namePool the pool to use
+     */
+    public void setNamePool(NamePool namePool) {
+        Objects.requireNonNull(namePool, "The name pool cannot be null.");
+        this.namePool = namePool;
+    }
+
+    /**
+     * Sets the fields identifying the objects of an array.
+     * <p/>
+     * When an object has several of these fields, the first one in this list is used. Only scalar values are
+     * considered.
+     *
+     * @param fields the names of the identity fields, by decreasing priority
+     */
+    public void setIdentityFields(String... fields) {
+        Objects.requireNonNull(fields, "The fields cannot be null.");
+        this.identityFields = fields.clone();
+    }
+
+    /**
+     * Builds the tree of a JSON file, encoded in UTF-8.
+     *
+     * @param file the file to read
+     * @return the root value
+     * @throws IOException if the file cannot be read or is not a well-formed JSON document
+     */
+    public Node<JsonElement> build(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return build(reader);
+        }
+    }
+
+    /**
+     * Builds the tree of a JSON document, encoded in UTF-8.
+     * <p/>
+     * The stream is not closed.
+     *
+     * @param in the stream to read the document from
+     * @return the root value
+     * @throws IOException if the stream cannot be read or is not a well-formed JSON document
+     */
+    public Node<JsonElement> build(InputStream in) throws IOException {
+        return build(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Builds the tree of a JSON document.
+     * <p/>
+     * The reader is not closed.
+     *
+     * @param reader the reader to read the document from
+     * @return the root value
+     * @throws IOException if the reader cannot be read or is not a well-formed JSON document
+     */
+    public Node<JsonElement> build(Reader reader) throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(reader);
+        Deque<Frame> open = new ArrayDeque<>();
+        Node<JsonElement> root = null;
+        String name = null;
+
+        JsonToken token;
+        while ((token = tokenizer.next()) != JsonToken.END_DOCUMENT) {
+            switch (token) {
+            case BEGIN_OBJECT:
+                Frame object = new Frame(JsonType.OBJECT, name);
+                // Only the objects of an array need an identity
+                object.identified = !open.isEmpty() && open.peek().type == JsonType.ARRAY;
+                open.push(object);
+                break;
+            case BEGIN_ARRAY:
+                open.push(new Frame(JsonType.ARRAY, name));
+                break;
+            case NAME:
+                name = namePool.intern(tokenizer.getText());
+                continue;
+            case STRING:
+            case NUMBER:
+                root = complete(open, new Frame(token == JsonToken.STRING ? JsonType.STRING : JsonType.NUMBER, name),
+                        tokenizer.getText(), root);
+                break;
+            case TRUE:
+            case FALSE:
+                root = complete(open, new Frame(JsonType.BOOLEAN, name), token == JsonToken.TRUE ? "true" : "false",
+                        root);
+                break;
+            case NULL:
+                root = complete(open, new Frame(JsonType.NULL, name), null, root);
+                break;
+            default:
+                // END_OBJECT or END_ARRAY
+                root = complete(open, open.pop(), null, root);
+                break;
+            }
+            name = null;
+        }
+        return root;
+    }
+
+    /**
+     * Creates the node of a complete value and adds it to its parent.
+     *
+     * @return the root, once the complete value is the root
+     */
+    private Node<JsonElement> complete(Deque<Frame> open, Frame frame, String value, Node<JsonElement> root) {
+        Frame parent = open.peek();
+        String key;
+        if (parent == null) {
+            key = ROOT_KEY;
+        } else if (parent.type == JsonType.OBJECT) {
+            key = frame.name;
+        } else {
+            key = frame.identity == null ? ARRAY_ELEMENT_KEY : frame.identity;
+        }
+        int occurrence = parent == null ? 0 : parent.occurrences.next(key);
+
+        Node<JsonElement> node = new Node<>(new JsonElement(key, occurrence, frame.type, value));
+        node.setChildren(frame.children);
+        if (parent == null) {
+            return node;
+        }
+        parent.addChild(node);
+        if (parent.identified && value != null) {
+            identify(parent, key, value);
+        }
+        return root;
+    }
+
+    private void identify(Frame object, String field, String value) {
+        for (int i = 0; i < identityFields.length && i < object.identityRank; i++) {
+            if (identityFields[i].equals(field)) {
+                object.identity = '[' + field + '=' + value + ']';
+                object.identityRank = i;
+                return;
+            }
+        }
+    }
+
+    /**
+     * A value whose end has not been read yet.
+     */
+    private static final class Frame {
+
+        private final JsonType type;
+        /** The name of the value if it is an object member. */
+        private final String name;
+
+        private List<Node<JsonElement>> children;
+        private final OccurrenceCounter occurrences = new OccurrenceCounter();
+
+        /** {@code true} for an object in an array, which is identified by its identity fields. */
+        private boolean identified;
+        /** The identity of an object in an array, from its identity field of highest priority so far. */
+        private String identity;
+        private int identityRank = Integer.MAX_VALUE;
+
+        Frame(JsonType type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        void addChild(Node<JsonElement> child) {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            children.add(child);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json;
+
+/**
+ * The tokens read by a {@link JsonTokenizer}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public enum JsonToken {
+    /** The start of an object. */
+    BEGIN_OBJECT,
+    /** The end of an object. */
+    END_OBJECT,
+    /** The start of an array. */
+    BEGIN_ARRAY,
+    /** The end of an array. */
+    END_ARRAY,
+    /** The name of an object member. */
+    NAME,
+    /** A string value. */
+    STRING,
+    /** A number value. */
+    NUMBER,
+    /** The {@code true} literal. */
+    TRUE,
+    /** The {@code false} literal. */
+    FALSE,
+    /** The {@code null} literal. */
+    NULL,
+    /** The end of the document. */
+    END_DOCUMENT
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A streaming tokenizer for JSON documents, as defined by RFC 8259.
+ * <p/>
+ * The document is read through a fixed-size buffer, and the text of names, strings and numbers is accumulated in a
+ * single reusable builder: the only objects allocated per token are the strings returned by {@link #getText()}. The
+ * structure of the document is validated as it is read, keeping one {@code int} per level of nesting.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonTokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /* === The scopes of the nesting stack === */
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    /** An object whose last token was a name. */
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private int lineNumber = 1;
+
+    private int[] scopes = new int[32];
+    private int depth = 1;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param reader the reader to read the document from; it is not closed by the tokenizer
+     */
+    public JsonTokenizer(Reader reader) {
+        Objects.requireNonNull(reader, "The reader cannot be null.");
+        this.reader = reader;
+        scopes[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Returns the text of the last token.
+     *
+     * @return the unescaped name or string, or the number as written; undefined for other tokens
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Returns the line the tokenizer is at.
+     *
+     * @return the line number, starting at {@code 1}
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the next token, {@link JsonToken#END_DOCUMENT} once the document was read completely
+     * @throws IOException if the reader cannot be read or the document is malformed
+     */
+    public JsonToken next() throws IOException {
+        int c;
+        switch (scopes[depth - 1]) {
+        case EMPTY_DOCUMENT:
+            scopes[depth - 1] = NONEMPTY_DOCUMENT;
+            c = nextNonWhitespace();
+            if (c == -1) {
+                throw syntaxError("Empty document");
+            }
+            return value(c);
+
+        case NONEMPTY_DOCUMENT:
+            c = nextNonWhitespace();
+            if (c != -1) {
+                throw syntaxError("Unexpected content after the document");
+            }
+            return JsonToken.END_DOCUMENT;
+
+        case EMPTY_OBJECT:
+        case NONEMPTY_OBJECT:
+            c = nextNonWhitespace();
+            if (c == '}') {
+                depth--;
+                return JsonToken.END_OBJECT;
+            }
+            if (scopes[depth - 1] == NONEMPTY_OBJECT) {
+                expect(c, ',');
+                c = nextNonWhitespace();
+            }
+            expect(c, '"');
+            readString();
+            scopes[depth - 1] = DANGLING_NAME;
+            return JsonToken.NAME;
+
+        case DANGLING_NAME:
+            expect(nextNonWhitespace(), ':');
+            scopes[depth - 1] = NONEMPTY_OBJECT;
+            return value(nextNonWhitespace());
+
+        case EMPTY_ARRAY:
+        case NONEMPTY_ARRAY:
+            c = nextNonWhitespace();
+            if (c == ']') {
+                depth--;
+                return JsonToken.END_ARRAY;
+            }
+            if (scopes[depth - 1] == NONEMPTY_ARRAY) {
+                expect(c, ',');
+                c = nextNonWhitespace();
+            }
+            scopes[depth - 1] = NONEMPTY_ARRAY;
+            return value(c);
+
+        default:
+            throw new IllegalStateException("Unknown scope " + scopes[depth - 1]);
+        }
+    }
+
+    private JsonToken value(int c) throws IOException {
+        switch (c) {
+        case '{':
+            push(EMPTY_OBJECT);
+            return JsonToken.BEGIN_OBJECT;
+        case '[':
+            push(EMPTY_ARRAY);
+            return JsonToken.BEGIN_ARRAY;
+        case '"':
+            readString();
+            return JsonToken.STRING;
+        case 't':
+            readLiteral("rue");
+            return JsonToken.TRUE;
+        case 'f':
+            readLiteral("alse");
+            return JsonToken.FALSE;
+        case 'n':
+            readLiteral("ull");
+            return JsonToken.NULL;
+        default:
+            if (c == '-' || c >= '0' && c <= '9') {
+                readNumber(c);
+                return JsonToken.NUMBER;
+            }
+            throw syntaxError(c == -1 ? "Unexpected end of document" : "Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    private void expect(int c, char expected) throws IOException {
+        if (c != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw syntaxError("Invalid literal");
+            }
+        }
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            // Copy the runs without escape in bulk
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+
+            int c = read();
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else if (c == -1) {
+                throw syntaxError("Unterminated string");
+            } else if (c < 0x20) {
+                throw syntaxError("Unescaped control character in string");
+            } else {
+                // The buffer was exhausted
+                text.append((char) c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+            return (char) c;
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'u':
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw syntaxError("Invalid unicode escape");
+                }
+                code = code << 4 | digit;
+            }
+            return (char) code;
+        default:
+            throw syntaxError("Invalid escape");
+        }
+    }
+
+    private void readNumber(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        int c = first;
+        if (c == '-') {
+            c = appendRead();
+        }
+        if (c == '0') {
+            c = peek();
+        } else if (c >= '1' && c <= '9') {
+            c = appendDigits();
+        } else {
+            throw syntaxError("Invalid number");
+        }
+        if (c == '.') {
+            consumePeeked();
+            if (!isDigit(appendRead())) {
+                throw syntaxError("Invalid number");
+            }
+            c = appendDigits();
+        }
+        if (c == 'e' || c == 'E') {
+            consumePeeked();
+            c = appendRead();
+            if (c == '+' || c == '-') {
+                c = appendRead();
+            }
+            if (!isDigit(c)) {
+                throw syntaxError("Invalid number");
+            }
+            appendDigits();
+        }
+    }
+
+    /** Reads a character and appends it to the text. */
+    private int appendRead() throws IOException {
+        int c = read();
+        if (c != -1) {
+            text.append((char) c);
+        }
+        return c;
+    }
+
+    /** Returns the next character without consuming it. */
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    /** Consumes the peeked character and appends it to the text. */
+    private void consumePeeked() {
+        text.append(buffer[pos++]);
+    }
+
+    /** Consumes the digits following the last character and returns the first character after them, unconsumed. */
+    private int appendDigits() throws IOException {
+        int c;
+        while (isDigit(c = peek())) {
+            consumePeeked();
+        }
+        return c;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '\n') {
+                lineNumber++;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        pos = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at line " + lineNumber + '.');
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json.model;
+
+import java.util.Objects;
+
+import org.keyboardplaying.tree.model.Keyed;
+
+/**
+ * A representation of a JSON value for comparison.
+ * <p/>
+ * Two values are equal if they have the same key, type and value. Their identity, i.e. which value of a version is
+ * compared to which value of another version, is defined by their {@link #getKey() key} and
+ * {@link #getOccurrence() occurrence}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonElement implements Keyed {
+
+    /** The identity of the value among its siblings. */
+    private final String key;
+
+    /** The number of previous siblings with the same key. */
+    private final int occurrence;
+
+    /** The type of the value. */
+    private final JsonType type;
+
+    /** The text of a scalar value. */
+    private final String value;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param key        the identity of the value among its siblings
+     * @param occurrence the number of previous siblings with the same key
+     * @param type       the type of the value
+     * @param value      the text of a scalar value; expected to be {@code null} for objects, arrays and {@code null}
+     */
+    public JsonElement(String key, int occurrence, JsonType type, String value) {
+        Objects.requireNonNull(key, "The key cannot be null.");
+        Objects.requireNonNull(type, "The type cannot be null.");
+        this.key = key;
+        this.occurrence = occurrence;
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * Returns the identity of this value among its siblings: the name of an object member, or the identity of an
+     * array element.
+     *
+     * @return the key
+     */
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the number of previous siblings with the same key, so that array elements without identity are compared
+     * in the order of the document.
+     *
+     * @return the occurrence, {@code 0} for the first value with this key
+     */
+    @Override
+    public int getOccurrence() {
+        return occurrence;
+    }
+
+    /**
+     * Returns the type of this value.
+     *
+     * @return the type
+     */
+    public JsonType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the text of this scalar value.
+     * <p/>
+     * Strings are unescaped; numbers are kept as written, so that {@code 1} and {@code 1.0} differ.
+     *
+     * @return the text of the value, or {@code null} for objects, arrays and {@code null}
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (key.hashCode() * 31 + type.hashCode()) * 31 + Objects.hashCode(value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof JsonElement)) {
+            return false;
+        }
+        JsonElement other = (JsonElement) obj;
+        return key.equals(other.key) && type == other.type && Objects.equals(value, other.value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        String id = occurrence == 0 ? key : key + '#' + occurrence;
+        return value == null ? id : id + ": " + value;
+    }
+}
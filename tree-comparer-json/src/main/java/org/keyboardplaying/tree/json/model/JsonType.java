@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json.model;
+
+/**
+ * The type of a JSON value.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public enum JsonType {
+    /**
+     * An object, whose members are the children of the node.
+     */
+    OBJECT,
+    /**
+     * An array, whose elements are the children of the node.
+     */
+    ARRAY,
+    /**
+     * A string.
+     */
+    STRING,
+    /**
+     * A number, kept as written in the document.
+     */
+    NUMBER,
+    /**
+     * {@code true} or {@code false}.
+     */
+    BOOLEAN,
+    /**
+     * {@code null}.
+     */
+    NULL
+}
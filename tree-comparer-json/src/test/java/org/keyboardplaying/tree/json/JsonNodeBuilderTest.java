@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.json.comparator.JsonElementComparator;
+import org.keyboardplaying.tree.json.model.JsonElement;
+import org.keyboardplaying.tree.json.model.JsonType;
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+
+/**
+ * Test class for {@link JsonNodeBuilder}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonNodeBuilderTest {
+
+    private static Node<JsonElement> parse(JsonNodeBuilder builder, String json) throws IOException {
+        return builder.build(new StringReader(json));
+    }
+
+    /**
+     * Tests the values built from a file.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testBuildFile() throws IOException {
+        /* Execute */
+        Node<JsonElement> root = new JsonNodeBuilder().build(new File("src/test/resources/cluster.json"));
+
+        /* Assert */
+        assertEquals(new JsonElement(JsonNodeBuilder.ROOT_KEY, 0, JsonType.OBJECT, null), root.getContent());
+        List<Node<JsonElement>> members = root.getChildren();
+        assertEquals(4, members.size());
+        assertEquals(new JsonElement("cluster", 0, JsonType.STRING, "prod"), members.get(0).getContent());
+        assertEquals(new JsonElement("healthy", 0, JsonType.BOOLEAN, "true"), members.get(2).getContent());
+        assertEquals(new JsonElement("license", 0, JsonType.NULL, null), members.get(3).getContent());
+
+        Node<JsonElement> nodes = members.get(1);
+        assertEquals(JsonType.ARRAY, nodes.getContent().getType());
+        JsonElement node2 = nodes.getChildren().get(1).getContent();
+        assertEquals(JsonNodeBuilder.ARRAY_ELEMENT_KEY, node2.getKey());
+        assertEquals(1, node2.getOccurrence());
+        Node<JsonElement> heap = nodes.getChildren().get(0).getChildren().get(2);
+        assertEquals("31.5", heap.getContent().getValue());
+        assertEquals(JsonType.NUMBER, heap.getContent().getType());
+        // Names are pooled
+        assertSame(heap.getContent().getKey(), nodes.getChildren().get(1).getChildren().get(2).getContent().getKey());
+    }
+
+    /**
+     * Ensures documents built separately share their member names when their builders share a pool.
+     *
+     * @throws IOException if the documents cannot be read
+     */
+    @Test
+    public void testNamePool() throws IOException {
+        /* Prepare */
+        NamePool pool = new NamePool();
+        JsonNodeBuilder builder1 = new JsonNodeBuilder();
+        builder1.setNamePool(pool);
+        JsonNodeBuilder builder2 = new JsonNodeBuilder();
+        builder2.setNamePool(pool);
+
+        /* Execute */
+        JsonElement element1 = parse(builder1, "{\"heap\": 512}").getChildren().get(0).getContent();
+        JsonElement element2 = parse(builder2, "{\"heap\": 1024}").getChildren().get(0).getContent();
+
+        /* Assert */
+        assertSame(element1.getKey(), element2.getKey());
+        assertEquals(1, pool.size());
+    }
+
+    /**
+     * Tests the identity of array elements.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testIdentity() throws IOException {
+        /* Prepare */
+        JsonNodeBuilder builder = new JsonNodeBuilder();
+        builder.setIdentityFields("id", "name");
+
+        /* Execute */
+        Node<JsonElement> root = parse(builder, "{\"id\": \"root\", \"items\": [{\"name\": \"a\", \"id\": 1},"
+                + " {\"name\": \"b\"}, {\"other\": 1}, {\"id\": {}}, 3, {\"name\": \"b\"}]}");
+
+        /* Assert */
+        // Only array elements are identified
+        assertEquals(JsonNodeBuilder.ROOT_KEY, root.getContent().getKey());
+        List<Node<JsonElement>> items = root.getChildren().get(1).getChildren();
+        assertEquals("[id=1]", items.get(0).getContent().getKey());
+        assertEquals("[name=b]", items.get(1).getContent().getKey());
+        assertEquals(JsonNodeBuilder.ARRAY_ELEMENT_KEY, items.get(2).getContent().getKey());
+        assertEquals(JsonNodeBuilder.ARRAY_ELEMENT_KEY, items.get(3).getContent().getKey());
+        assertEquals(2, items.get(4).getContent().getOccurrence());
+        assertEquals(1, items.get(5).getContent().getOccurrence());
+    }
+
+    /**
+     * Ensures array elements are aligned by identity.
+     *
+     * @throws IOException if the documents cannot be read
+     */
+    @Test
+    public void testAlignment() throws IOException {
+        /* Prepare */
+        JsonNodeBuilder builder = new JsonNodeBuilder();
+        builder.setIdentityFields("name");
+        Node<JsonElement> v1 = builder.build(new ByteArrayInputStream(
+                "[{\"name\": \"a\", \"v\": 1}, {\"name\": \"b\", \"v\": 2}]".getBytes(StandardCharsets.UTF_8)));
+        Node<JsonElement> v2 = parse(builder, "[{\"name\": \"b\", \"v\": 2}, {\"name\": \"a\", \"v\": 3}]");
+
+        /* Execute */
+        Node<Variations<JsonElement>> aligned = new TreeAligner<>(new JsonElementComparator()).alignTrees(v1, v2);
+
+        /* Assert */
+        assertEquals(2, aligned.getChildren().size());
+        Node<Variations<JsonElement>> a = aligned.getChildren().get(0);
+        assertEquals("[name=a]", a.getContent().get(1).getKey());
+        assertTrue(a.getChildren().get(0).getContent().isConstant());
+        assertFalse(a.getChildren().get(1).getContent().isConstant());
+        assertTrue(aligned.getChildren().get(1).getChildren().get(1).getContent().isConstant());
+    }
+
+    /**
+     * Tests a scalar document.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testScalar() throws IOException {
+        /* Execute */
+        Node<JsonElement> root = parse(new JsonNodeBuilder(), "\"text\"");
+
+        /* Assert */
+        assertEquals("text", root.getContent().getValue());
+        assertTrue(root.getChildren().isEmpty());
+        assertNull(parse(new JsonNodeBuilder(), "null").getContent().getValue());
+    }
+
+    /**
+     * Ensures a deep document does not overflow the stack.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testDeepDocument() throws IOException {
+        /* Prepare */
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            json.append("{\"e\":");
+        }
+        json.append("0");
+        for (int i = 0; i < 50_000; i++) {
+            json.append('}');
+        }
+
+        /* Execute */
+        Node<JsonElement> root = parse(new JsonNodeBuilder(), json.toString());
+
+        /* Assert */
+        int depth = 0;
+        for (Node<JsonElement> node = root; !node.getChildren().isEmpty(); node = node.getChildren().get(0)) {
+            depth++;
+        }
+        assertEquals(50_000, depth);
+    }
+
+    /**
+     * Ensures malformed documents are rejected.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        parse(new JsonNodeBuilder(), "{\"a\": [1, 2}");
+    }
+}
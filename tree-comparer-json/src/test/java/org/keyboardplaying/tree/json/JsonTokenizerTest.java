@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link JsonTokenizer}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonTokenizerTest {
+
+    private static List<String> tokenize(String json) throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(json));
+        List<String> tokens = new ArrayList<>();
+        JsonToken token;
+        while ((token = tokenizer.next()) != JsonToken.END_DOCUMENT) {
+            switch (token) {
+            case NAME:
+            case STRING:
+            case NUMBER:
+                tokens.add(token + ":" + tokenizer.getText());
+                break;
+            default:
+                tokens.add(token.toString());
+                break;
+            }
+        }
+        return tokens;
+    }
+
+    private static void assertMalformed(String json) {
+        try {
+            tokenize(json);
+            fail("Malformed document accepted: " + json);
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Tests the tokens of a document.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testTokens() throws IOException {
+        assertEquals("[BEGIN_OBJECT, NAME:a, BEGIN_ARRAY, NUMBER:1, NUMBER:-2.5e+3, TRUE, FALSE, NULL, END_ARRAY, "
+                + "NAME:b, BEGIN_OBJECT, END_OBJECT, NAME:c, STRING:text, END_OBJECT]",
+                tokenize(" {\"a\": [1, -2.5e+3, true, false, null],\n\"b\": {}, \"c\": \"text\"} ").toString());
+        assertEquals("[NUMBER:0]", tokenize("0").toString());
+        assertEquals("[BEGIN_ARRAY, END_ARRAY]", tokenize("[]").toString());
+    }
+
+    /**
+     * Tests escapes in strings.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testEscapes() throws IOException {
+        assertEquals("[STRING:a\"b\\c/d\ne\tf\u00e9]",
+                tokenize("\"a\\\"b\\\\c\\/d\\ne\\tf\\u00E9\"").toString());
+    }
+
+    /**
+     * Ensures strings and numbers longer than the buffer are read.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testLongTokens() throws IOException {
+        /* Prepare */
+        StringBuilder string = new StringBuilder();
+        StringBuilder number = new StringBuilder("1");
+        for (int i = 0; i < 20_000; i++) {
+            string.append(i % 10 == 0 ? "\\n" : "x");
+            number.append(i % 10);
+        }
+
+        /* Execute */
+        JsonTokenizer tokenizer = new JsonTokenizer(
+                new StringReader("[\"" + string + "\", " + number + "]"));
+
+        /* Assert */
+        assertEquals(JsonToken.BEGIN_ARRAY, tokenizer.next());
+        assertEquals(JsonToken.STRING, tokenizer.next());
+        assertEquals(20_000, tokenizer.getText().length());
+        assertEquals(JsonToken.NUMBER, tokenizer.next());
+        assertEquals(number.toString(), tokenizer.getText());
+        assertEquals(JsonToken.END_ARRAY, tokenizer.next());
+        assertEquals(JsonToken.END_DOCUMENT, tokenizer.next());
+    }
+
+    /**
+     * Tests the line numbers.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testLineNumber() throws IOException {
+        /* Prepare */
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader("[\n1,\n\n2]"));
+
+        /* Execute */
+        tokenizer.next();
+        tokenizer.next();
+        tokenizer.next();
+
+        /* Assert */
+        assertEquals(4, tokenizer.getLineNumber());
+    }
+
+    /**
+     * Ensures malformed documents are rejected.
+     */
+    @Test
+    public void testMalformed() {
+        assertMalformed("");
+        assertMalformed("{");
+        assertMalformed("[1,]");
+        assertMalformed("{\"a\":1,}");
+        assertMalformed("{\"a\" 1}");
+        assertMalformed("{1: 2}");
+        assertMalformed("[1 2]");
+        assertMalformed("01");
+        assertMalformed("-");
+        assertMalformed("1.");
+        assertMalformed("1e");
+        assertMalformed("tru");
+        assertMalformed("\"unterminated");
+        assertMalformed("\"a\nb\"");
+        assertMalformed("\"\\x\"");
+        assertMalformed("\"\\u00G0\"");
+        assertMalformed("[] []");
+        assertMalformed("'single'");
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.json.model.JsonElement;
+import org.keyboardplaying.tree.json.model.JsonType;
+import org.keyboardplaying.tree.model.Node;
+
+/**
+ * Test class for {@link JsonElementComparator}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonElementComparatorTest {
+
+    private final JsonElementComparator comparator = new JsonElementComparator();
+
+    private static Node<JsonElement> node(String key, int occurrence, String value) {
+        return new Node<>(new JsonElement(key, occurrence, JsonType.STRING, value));
+    }
+
+    /**
+     * Tests the ordering by key, then occurrence.
+     */
+    @Test
+    public void testCompare() {
+        assertTrue(comparator.compare(node("[id=a]", 1, null), node("[id=b]", 0, null)) < 0);
+        assertTrue(comparator.compare(node("[]", 2, null), node("[]", 1, null)) > 0);
+        // The value does not matter
+        assertEquals(0, comparator.compare(node("name", 0, "1"), node("name", 0, "2")));
+    }
+}
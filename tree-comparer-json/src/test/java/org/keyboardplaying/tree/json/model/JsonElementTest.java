@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.json.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link JsonElement}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class JsonElementTest {
+
+    /**
+     * Ensures equality considers the key, type and value, but not the occurrence.
+     */
+    @Test
+    public void testEquals() {
+        /* Prepare */
+        JsonElement element = new JsonElement("size", 0, JsonType.NUMBER, "1");
+
+        /* Assert */
+        assertEquals(element, new JsonElement("size", 3, JsonType.NUMBER, "1"));
+        assertEquals(element.hashCode(), new JsonElement("size", 3, JsonType.NUMBER, "1").hashCode());
+        assertNotEquals(element, new JsonElement("size", 0, JsonType.NUMBER, "1.0"));
+        assertNotEquals(element, new JsonElement("size", 0, JsonType.STRING, "1"));
+        assertNotEquals(element, new JsonElement("length", 0, JsonType.NUMBER, "1"));
+        assertEquals("size: 1", element.toString());
+        assertEquals("[]#2", new JsonElement("[]", 2, JsonType.OBJECT, null).toString());
+    }
+
+    /**
+     * Ensures the type is required.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testNoType() {
+        new JsonElement("size", 0, null, "1");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * An {@link Iterator} returning the nodes of a tree level by level.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see Node#breadthFirstIterator()
+ */
+// Package visible only
+class BreadthFirstIterator<T> implements Iterator<Node<T>> {
+
+    private final Queue<Node<T>> queue = new ArrayDeque<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param root the root of the tree to walk
+     */
+    public BreadthFirstIterator(Node<T> root) {
+        queue.add(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public Node<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Node<T> node = queue.remove();
+        queue.addAll(node.getChildren());
+        return node;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#remove()
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
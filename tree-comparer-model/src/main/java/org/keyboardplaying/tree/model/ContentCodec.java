@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts node contents to and from bytes, so that they can be stored outside of the heap.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see OffHeapTree
+ */
+public interface ContentCodec<T> {
+
+    /**
+     * Serializes a content.
+     *
+     * @param content the content to serialize
+     * @return the serialized content
+     */
+    byte[] encode(T content);
+
+    /**
+     * Deserializes a content.
+     * <p/>
+     * Implementations must only use absolute reads, or read from a duplicate of the buffer: the buffer is shared by
+     * many contents and may be read by several threads.
+     *
+     * @param buffer the buffer containing the serialized content
+     * @param offset the position of the serialized content in the buffer
+     * @param length the length of the serialized content
+     * @return the content
+     */
+    T decode(ByteBuffer buffer, int offset, int length);
+}
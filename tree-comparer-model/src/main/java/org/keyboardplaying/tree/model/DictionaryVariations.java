@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * {@link Variations} storing each distinct variation once, along with a small per-version index.
+ * <p/>
+ * The index of a version is {@code 0} if the element is absent from it, or its equivalence class plus one. It is
+ * stored on one byte per version as long as there are fewer than 256 distinct variations, on two bytes below 65536,
+ * and on four bytes otherwise. Index arrays are never modified once built, so that a {@link VariationsFactory} may
+ * share a single array between all the nodes which agree and differ between the same versions; memory for each node
+ * then grows with the number of distinct variations rather than with the number of compared versions.
+ * <p/>
+ * As the variations are already sorted into equivalence classes, the analysis methods answer without any further
+ * computation, unless an {@link #setEquivalence(java.util.function.Function) equivalence} is set: the dictionary
+ * holds the distinct variations, so that equivalent variations may still be stored several times. Setting a variation,
+ * however, re-encodes the whole set: these variations are meant to be built once, from a complete list.
+ *
+ * @param <T> the type of node
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class DictionaryVariations<T> extends Variations<T> {
+
+    /** The distinct variations, in order of first appearance. */
+    private Object[] dictionary;
+    /** The index of each version, on {@link #width} bytes, big-endian. */
+    private byte[] indices;
+    private int width;
+    private int presentCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param variations the variations
+     */
+    public DictionaryVariations(List<T> variations) {
+        encode(variations, variations.size());
+    }
+
+    /**
+     * Creates a new instance from variations already sorted into equivalence classes.
+     *
+     * @param dictionary   the distinct variations, in order of first appearance
+     * @param indices      the encoded index of each version; it is not copied and must not be modified afterwards
+     * @param presentCount the number of versions containing the element
+     */
+    DictionaryVariations(Object[] dictionary, byte[] indices, int presentCount) {
+        this.dictionary = dictionary;
+        this.indices = indices;
+        this.width = widthFor(dictionary.length);
+        this.presentCount = presentCount;
+    }
+
+    /**
+     * Returns the number of bytes needed to store an index among the specified number of distinct variations.
+     *
+     * @param classCount the number of distinct variations
+     * @return the width of an index, in bytes
+     */
+    static int widthFor(int classCount) {
+        // Index 0 is reserved for absent variations
+        if (classCount < 0xFF) {
+            return 1;
+        } else if (classCount < 0xFFFF) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /**
+     * Encodes the index of each version.
+     *
+     * @param classes    the equivalence class of each version, {@code -1} for absent ones
+     * @param classCount the number of equivalence classes
+     * @return the encoded indices
+     */
+    static byte[] encodeIndices(int[] classes, int classCount) {
+        int width = widthFor(classCount);
+        byte[] indices = new byte[classes.length * width];
+        for (int i = 0, offset = 0; i < classes.length; i++) {
+            int index = classes[i] + 1;
+            for (int shift = (width - 1) << 3; shift >= 0; shift -= 8) {
+                indices[offset++] = (byte) (index >>> shift);
+            }
+        }
+        return indices;
+    }
+
+    private void encode(Iterable<T> variations, int size) {
+        int[] classes = new int[size];
+        Object[] representatives = new Object[size];
+        int count = classify(variations, null, classes, representatives);
+
+        int present = 0;
+        for (int cls : classes) {
+            if (cls >= 0) {
+                present++;
+            }
+        }
+
+        this.dictionary = Arrays.copyOf(representatives, count);
+        this.indices = encodeIndices(classes, count);
+        this.width = widthFor(count);
+        this.presentCount = present;
+    }
+
+    private int index(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("No version " + id + " among " + size());
+        }
+        int offset = id * width;
+        int index = 0;
+        for (int i = 0; i < width; i++) {
+            index = index << 8 | indices[offset + i] & 0xFF;
+        }
+        return index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#set(int, java.lang.Object)
+     */
+    @Override
+    public void set(int id, T variation) {
+        int size = size();
+        @SuppressWarnings("unchecked")
+        T[] variations = (T[]) new Object[size];
+        for (int i = 0; i < size; i++) {
+            variations[i] = get(i);
+        }
+        variations[id] = variation;
+        encode(Arrays.asList(variations), size);
+        clearAnalysis();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#get(int)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        int index = index(id);
+        return index == 0 ? null : (T) dictionary[index - 1];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#size()
+     */
+    @Override
+    public int size() {
+        return indices.length / width;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#isConstant()
+     */
+    @Override
+    public boolean isConstant() {
+        if (getEquivalence() != null) {
+            return super.isConstant();
+        }
+        return dictionary.length == 0 || dictionary.length == 1 && presentCount == size();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#isPresent(int)
+     */
+    @Override
+    public boolean isPresent(int id) {
+        return index(id) != 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getPresence()
+     */
+    @Override
+    public BitSet getPresence() {
+        int size = size();
+        BitSet presence = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (index(i) != 0) {
+                presence.set(i);
+            }
+        }
+        return presence;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getEquivalenceClass(int)
+     */
+    @Override
+    public int getEquivalenceClass(int id) {
+        if (getEquivalence() != null) {
+            return super.getEquivalenceClass(id);
+        }
+        return index(id) - 1;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getSignature()
+     */
+    @Override
+    public int[] getSignature() {
+        if (getEquivalence() != null) {
+            return super.getSignature();
+        }
+        int[] signature = new int[size()];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = index(i) - 1;
+        }
+        return signature;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getEquivalenceClassCount()
+     */
+    @Override
+    public int getEquivalenceClassCount() {
+        if (getEquivalence() != null) {
+            return super.getEquivalenceClassCount();
+        }
+        return dictionary.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#iterator()
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new IndexedIterator<>(this);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A compact implementation for a tree, storing its structure in arrays rather than in one object per node.
+ * <p/>
+ * Each node is identified by an {@code int} index; the root has index {@code 0}. The structure is stored as three
+ * {@code int} columns (parent, first child and next sibling) and the contents in a fourth column. Compared to a tree
+ * of {@link Node}, this saves the object header and the children list of each node, and traversals read contiguous
+ * memory. Trees converted from a {@link Node} are laid out in pre-order, so that each subtree occupies a contiguous
+ * range of indices.
+ * <p/>
+ * Children are always appended after their existing siblings, so that the children of a node have increasing indices.
+ *
+ * @param <T> the type of nodes for this tree
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see Node
+ */
+public class FlatTree<T> implements IndexedTree<T> {
+
+    /**
+     * The index denoting the absence of a node (parent of the root, child of a leaf, sibling of the last child).
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    /** Only used while building, to append children in constant time. */
+    private int[] lastChild;
+    private Object[] contents;
+
+    private int size = 0;
+
+    /**
+     * Creates a new empty tree.
+     */
+    public FlatTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty tree.
+     *
+     * @param capacity the number of nodes the tree is expected to contain
+     */
+    public FlatTree(int capacity) {
+        int initial = Math.max(capacity, 1);
+        parent = new int[initial];
+        firstChild = new int[initial];
+        nextSibling = new int[initial];
+        lastChild = new int[initial];
+        contents = new Object[initial];
+    }
+
+    /**
+     * Creates a flat copy of a tree of {@link Node}.
+     * <p/>
+     * The nodes are laid out in pre-order. The tree is walked iteratively, so that deep trees can be converted.
+     *
+     * @param root the root of the tree to copy
+     * @param <T>  the type of nodes for this tree
+     * @return the flat tree
+     */
+    public static <T> FlatTree<T> fromNode(Node<T> root) {
+        FlatTree<T> tree = new FlatTree<>();
+
+        IndexedTree.copy(root, tree);
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Creates a tree of {@link Node} from this tree.
+     * <p/>
+     * The nodes are created iteratively, so that deep trees can be converted.
+     *
+     * @return the root of the tree of {@link Node}, or {@code null} if this tree is empty
+     */
+    public Node<T> toNode() {
+        return IndexedTree.toNode(this);
+    }
+
+    /**
+     * Adds the root of this tree.
+     *
+     * @param content the content of the root
+     * @return the index of the root
+     */
+    @Override
+    public int addRoot(T content) {
+        if (size > 0) {
+            throw new IllegalStateException("This tree already has a root.");
+        }
+        return append(NONE, content);
+    }
+
+    /**
+     * Adds a node as the last child of another one.
+     *
+     * @param parentIndex the index of the parent node
+     * @param content     the content of the new node
+     * @return the index of the new node
+     */
+    @Override
+    public int addChild(int parentIndex, T content) {
+        checkIndex(parentIndex);
+
+        int index = append(parentIndex, content);
+        if (firstChild[parentIndex] == NONE) {
+            firstChild[parentIndex] = index;
+        } else {
+            nextSibling[lastChild[parentIndex]] = index;
+        }
+        lastChild[parentIndex] = index;
+        return index;
+    }
+
+    private int append(int parentIndex, T content) {
+        Objects.requireNonNull(content, "A node content may not be null.");
+        ensureLastChildren();
+        ensureCapacity(size + 1);
+
+        int index = size++;
+        parent[index] = parentIndex;
+        firstChild[index] = NONE;
+        nextSibling[index] = NONE;
+        lastChild[index] = NONE;
+        contents[index] = content;
+        return index;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > parent.length) {
+            int newCapacity = Math.max(capacity, parent.length + (parent.length >> 1));
+            parent = Arrays.copyOf(parent, newCapacity);
+            firstChild = Arrays.copyOf(firstChild, newCapacity);
+            nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+            lastChild = Arrays.copyOf(lastChild, newCapacity);
+            contents = Arrays.copyOf(contents, newCapacity);
+        }
+    }
+
+    /**
+     * Rebuilds the last-child column dropped by {@link #trimToSize()}.
+     */
+    private void ensureLastChildren() {
+        if (lastChild == null) {
+            lastChild = new int[parent.length];
+            Arrays.fill(lastChild, NONE);
+            for (int i = 1; i < size; i++) {
+                lastChild[parent[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Releases the memory reserved for nodes that were not added, as well as the memory used only while building.
+     */
+    public void trimToSize() {
+        int capacity = Math.max(size, 1);
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        contents = Arrays.copyOf(contents, capacity);
+        lastChild = null;
+    }
+
+    /**
+     * Returns the number of nodes in this tree.
+     *
+     * @return the number of nodes
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the content of a node.
+     *
+     * @param index the index of the node
+     * @return the content of the node
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getContent(int index) {
+        checkIndex(index);
+        return (T) contents[index];
+    }
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the parent, or {@link #NONE} for the root
+     */
+    @Override
+    public int getParent(int index) {
+        checkIndex(index);
+        return parent[index];
+    }
+
+    /**
+     * Returns the first child of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the first child, or {@link #NONE} for a leaf
+     */
+    public int getFirstChild(int index) {
+        checkIndex(index);
+        return firstChild[index];
+    }
+
+    /**
+     * Returns the next sibling of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the next sibling, or {@link #NONE} for the last child
+     */
+    public int getNextSibling(int index) {
+        checkIndex(index);
+        return nextSibling[index];
+    }
+
+    /**
+     * Returns {@code true} if a node has no child.
+     *
+     * @param index the index of the node
+     * @return {@code true} for a leaf, {@code false} otherwise
+     */
+    public boolean isLeaf(int index) {
+        return getFirstChild(index) == NONE;
+    }
+
+    /**
+     * Returns the number of children of a node.
+     *
+     * @param index the index of the node
+     * @return the number of children
+     */
+    public int getChildCount(int index) {
+        int count = 0;
+        for (int child = getFirstChild(index); child != NONE; child = nextSibling[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the indices of the children of a node.
+     *
+     * @param index the index of the node
+     * @return the indices of the children, in order
+     */
+    public int[] getChildren(int index) {
+        int[] children = new int[getChildCount(index)];
+        int i = 0;
+        for (int child = firstChild[index]; child != NONE; child = nextSibling[child]) {
+            children[i++] = child;
+        }
+        return children;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No node at index " + index);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A tree whose nodes are identified by {@code int} indices, the root having index {@code 0} and children being
+ * appended after their existing siblings.
+ * <p/>
+ * This interface holds the conversions from and to trees of {@link Node} shared by its implementations.
+ *
+ * @param <T> the type of nodes for this tree
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see FlatTree
+ * @see OffHeapTree
+ */
+interface IndexedTree<T> {
+
+    /**
+     * The index denoting the absence of a node.
+     */
+    int NONE = -1;
+
+    /**
+     * Adds the root of this tree.
+     *
+     * @param content the content of the root
+     * @return the index of the root
+     */
+    int addRoot(T content);
+
+    /**
+     * Adds a node as the last child of another one.
+     *
+     * @param parentIndex the index of the parent node
+     * @param content     the content of the new node
+     * @return the index of the new node
+     */
+    int addChild(int parentIndex, T content);
+
+    /**
+     * Returns the number of nodes in this tree.
+     *
+     * @return the number of nodes
+     */
+    int size();
+
+    /**
+     * Returns the content of a node.
+     *
+     * @param index the index of the node
+     * @return the content of the node
+     */
+    T getContent(int index);
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the parent, or {@link #NONE} for the root
+     */
+    int getParent(int index);
+
+    /**
+     * Copies a tree of {@link Node} into an empty tree.
+     * <p/>
+     * The nodes are laid out in pre-order, so that each subtree occupies a contiguous range of indices. The tree is
+     * walked iteratively, so that deep trees can be converted.
+     *
+     * @param root   the root of the tree to copy
+     * @param target the tree to copy the nodes to
+     * @param <T>    the type of nodes for this tree
+     */
+    static <T> void copy(Node<T> root, IndexedTree<T> target) {
+        Objects.requireNonNull(root, "A root must be supplied.");
+
+        // The parent of each pending node, kept as an int stack alongside the nodes to avoid boxing
+        Deque<Node<T>> nodes = new ArrayDeque<>();
+        int[] parents = new int[16];
+        nodes.push(root);
+        parents[0] = NONE;
+        while (!nodes.isEmpty()) {
+            Node<T> node = nodes.pop();
+            int parentIndex = parents[nodes.size()];
+            int index = parentIndex == NONE ? target.addRoot(node.getContent())
+                    : target.addChild(parentIndex, node.getContent());
+
+            // Push the children in reverse order to pop them in order
+            List<Node<T>> children = node.getChildren();
+            if (nodes.size() + children.size() > parents.length) {
+                parents = Arrays.copyOf(parents, Math.max(parents.length * 2, nodes.size() + children.size()));
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                parents[nodes.size()] = index;
+                nodes.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Creates a tree of {@link Node} from a tree.
+     * <p/>
+     * The nodes are created iteratively, so that deep trees can be converted.
+     *
+     * @param source the tree to copy
+     * @param <T>    the type of nodes for this tree
+     * @return the root of the tree of {@link Node}, or {@code null} if the tree is empty
+     */
+    static <T> Node<T> toNode(IndexedTree<T> source) {
+        int size = source.size();
+        if (size == 0) {
+            return null;
+        }
+
+        List<Node<T>> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(new Node<>(source.getContent(i)));
+        }
+        // Children have increasing indices, iterating in order preserves the order of siblings
+        for (int i = 1; i < size; i++) {
+            nodes.get(source.getParent(i)).addChild(nodes.get(i));
+        }
+        return nodes.get(0);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+/**
+ * A node content identified among its siblings by a key and an occurrence.
+ * <p/>
+ * The key tells which content of a version is compared to which content of another version, such as the name of an
+ * element. Siblings sharing a key are told apart by their occurrence, so that they are compared in the order of their
+ * document.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public interface Keyed {
+
+    /**
+     * Returns the identity of this content among its siblings.
+     *
+     * @return the key
+     */
+    String getKey();
+
+    /**
+     * Returns the number of previous siblings with the same key.
+     *
+     * @return the occurrence, {@code 0} for the first content with this key
+     * @see OccurrenceCounter
+     */
+    int getOccurrence();
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of names, so that equal names share a single {@link String} instance.
+ * <p/>
+ * The compared trees mostly contain the same names, be they file, element or member names: when their builders share
+ * a pool, comparisons of equal names end on a reference check. Names are only weakly referenced, so that the pool
+ * does not keep them alive once all trees using them are discarded.
+ * <p/>
+ * The pool is thread-safe. It is split into stripes, each guarded by its own lock, so that trees built concurrently
+ * rarely wait for each other.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class NamePool {
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private static final NamePool SHARED = new NamePool();
+
+    private final Stripe[] stripes;
+
+    /**
+     * Creates a new pool.
+     */
+    public NamePool() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param concurrency the number of threads expected to use the pool simultaneously; it is rounded up to a power of
+     *                    two
+     */
+    public NamePool(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(concurrency, 1) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the pool the builders use unless they are given another one, so that trees built separately share their
+     * names.
+     *
+     * @return the shared pool
+     */
+    public static NamePool getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the pooled instance of a name.
+     *
+     * @param name the name
+     * @return a string equal to the name, which is the same instance for all equal names as long as it is referenced
+     */
+    public String intern(String name) {
+        Objects.requireNonNull(name, "A name cannot be null.");
+        Stripe stripe = stripeFor(name);
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(name);
+            String pooled = ref == null ? null : ref.get();
+            if (pooled == null) {
+                // The value must not reference the key strongly, or it would never be collected
+                stripe.put(name, new WeakReference<>(name));
+                pooled = name;
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * Returns the number of names currently in the pool.
+     *
+     * @return the number of pooled names, including the ones about to be collected
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String name) {
+        int h = name.hashCode();
+        // Spread the high bits, as the stripe only depends on the low ones
+        h ^= h >>> 16;
+        return stripes[h & stripes.length - 1];
+    }
+
+    /**
+     * A stripe of the pool, named so that an array of stripes can be created without an unchecked conversion.
+     */
+    private static final class Stripe extends WeakHashMap<String, WeakReference<String>> {
+    }
+}
@@ -16,10 +16,16 @@
  */
 package org.keyboardplaying.tree.model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Simple implementation for a tree.
@@ -27,6 +33,13 @@ import java.util.Objects;
  * The tree is a root node with children nodes the same type.
  * <p/>
  * There is no difference of implementation between nodes and leaves. A leaf will simply be a childless node.
+ * <p/>
+ * {@link #hashCode()} and {@link #equals(Object)} only consider the content of the node. To compare whole subtrees,
+ * use {@link #subtreeEquals(Node)}, or {@link SubtreeHashes} to compare many of them.
+ * <p/>
+ * The nodes of a tree may be walked in {@link #preOrderIterator() pre-order}, {@link #postOrderIterator() post-order}
+ * or {@link #breadthFirstIterator() breadth-first}, or {@link #stream() streamed}. None of these uses recursion, so
+ * that the depth of a tree is only limited by the memory.
  *
  * @param <T> the type of nodes for this tree
  * @author Cyrille Chopelet (https://keyboardplaying.org)
@@ -38,9 +51,13 @@ public class Node<T> {
 
     /* === The tree part === */
     /**
-     * This node's children.
+     * This node's children; leaves share the same immutable empty list.
+     */
+    private List<Node<T>> children = Collections.emptyList();
+    /**
+     * A read-only view on this node's children, created once rather than on each access.
      */
-    private final List<Node<T>> children = new ArrayList<>();
+    private List<Node<T>> childrenView = children;
 
     /**
      * Creates a new node.
@@ -68,30 +85,131 @@ public class Node<T> {
      */
     public void addChild(Node<T> child) {
         Objects.requireNonNull(child, "The node cannot have null children");
+        if (this.children.isEmpty()) {
+            replaceChildren(new ArrayList<>());
+        }
         this.children.add(child);
     }
 
     /**
      * Sets the children for this node.
+     * <p/>
+     * The supplied list is copied in bulk; later changes to it are not reflected on this node.
      *
      * @param children the children for this node
      */
     public void setChildren(List<Node<T>> children) {
-        this.children.clear();
-        if (children != null) {
-            for (Node<T> child : children) {
-                addChild(child);
+        if (children == null || children.isEmpty()) {
+            replaceChildren(Collections.<Node<T>>emptyList());
+        } else {
+            List<Node<T>> copy = new ArrayList<>(children);
+            if (copy.contains(null)) {
+                throw new NullPointerException("The node cannot have null children");
             }
+            replaceChildren(copy);
         }
     }
 
+    private void replaceChildren(List<Node<T>> children) {
+        this.children = children;
+        // The shared empty list is immutable already
+        this.childrenView = children == Collections.<Node<T>>emptyList() ? children
+                : Collections.unmodifiableList(children);
+    }
+
     /**
      * Returns this node's children.
+     * <p/>
+     * The returned list is read-only. It is not copied, so that calling this method does not allocate anything.
      *
      * @return the children
      */
     public List<Node<T>> getChildren() {
-        return Collections.unmodifiableList(children);
+        return childrenView;
+    }
+
+    /**
+     * Returns an iterator over the nodes of the tree rooted at this node, each node coming before its children.
+     *
+     * @return a pre-order iterator, starting with this node
+     */
+    public Iterator<Node<T>> preOrderIterator() {
+        return new PreOrderIterator<>(this);
+    }
+
+    /**
+     * Returns an iterator over the nodes of the tree rooted at this node, each node coming after its children.
+     *
+     * @return a post-order iterator, ending with this node
+     */
+    public Iterator<Node<T>> postOrderIterator() {
+        return new PostOrderIterator<>(this);
+    }
+
+    /**
+     * Returns an iterator over the nodes of the tree rooted at this node, level by level.
+     *
+     * @return a breadth-first iterator, starting with this node
+     */
+    public Iterator<Node<T>> breadthFirstIterator() {
+        return new BreadthFirstIterator<>(this);
+    }
+
+    /**
+     * Returns a spliterator over the nodes of the tree rooted at this node, in pre-order.
+     * <p/>
+     * The spliterator splits the tree by subtrees, so that parallel streams spread them across threads.
+     *
+     * @return a pre-order spliterator
+     */
+    public Spliterator<Node<T>> spliterator() {
+        return new NodeSpliterator<>(this);
+    }
+
+    /**
+     * Returns a sequential stream over the nodes of the tree rooted at this node, in pre-order.
+     * <p/>
+     * Use {@link Stream#parallel()} to spread the walk across threads. The tree should not be modified while it is
+     * being streamed.
+     *
+     * @return a stream of the nodes of this tree
+     */
+    public Stream<Node<T>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns {@code true} if the subtree rooted at this node is identical to the subtree rooted at the specified
+     * node, i.e. if their contents are equal and their children are identical subtrees, in the same order.
+     * <p/>
+     * Both subtrees are walked without recursion, except for the branches which are the same instance. To compare many
+     * subtrees, {@link SubtreeHashes} tells most of the different ones apart with a single comparison.
+     *
+     * @param other the root of the other subtree
+     * @return {@code true} if both subtrees are identical, {@code false} otherwise
+     */
+    public boolean subtreeEquals(Node<?> other) {
+        if (other == null) {
+            return false;
+        }
+        Deque<Node<?>> stack = new ArrayDeque<>();
+        stack.push(this);
+        stack.push(other);
+        while (!stack.isEmpty()) {
+            Node<?> right = stack.pop();
+            Node<?> left = stack.pop();
+            if (left == right) {
+                continue;
+            }
+            if (left.children.size() != right.children.size() || !left.content.equals(right.content)) {
+                return false;
+            }
+            for (int i = 0; i < left.children.size(); i++) {
+                stack.push(left.children.get(i));
+                stack.push(right.children.get(i));
+            }
+        }
+        return true;
     }
 
     /*
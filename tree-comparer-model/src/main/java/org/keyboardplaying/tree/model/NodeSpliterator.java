@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} covering the nodes of a tree in pre-order, which can be split to walk the tree in parallel.
+ * <p/>
+ * A spliterator covers an optional single node followed by a forest of whole subtrees. Splitting gives away the first
+ * half of the subtrees; when only one subtree remains, its root is set apart so that its children can be split. A node
+ * followed by a single subtree is given away alone, so that splitting goes on down chains of single children.
+ * <p/>
+ * The size of a tree is unknown until it is walked: the estimate starts unknown and is halved on each split, as for
+ * spliterators over iterators.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see Node#spliterator()
+ */
+// Package visible only
+class NodeSpliterator<T> implements Spliterator<Node<T>> {
+
+    /** A node to return alone, before the forest; may be {@code null}. */
+    private Node<T> head;
+    /** The subtrees to walk, in order. */
+    private final Deque<Node<T>> forest;
+    private long estimate;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param root the root of the tree to walk
+     */
+    public NodeSpliterator(Node<T> root) {
+        this(null, new ArrayDeque<Node<T>>(), Long.MAX_VALUE);
+        forest.add(root);
+    }
+
+    private NodeSpliterator(Node<T> head, Deque<Node<T>> forest, long estimate) {
+        this.head = head;
+        this.forest = forest;
+        this.estimate = estimate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Node<T>> action) {
+        Node<T> node = head;
+        if (node != null) {
+            head = null;
+        } else if (!forest.isEmpty()) {
+            node = forest.pop();
+            List<Node<T>> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                forest.push(children.get(i));
+            }
+        } else {
+            return false;
+        }
+        action.accept(node);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#trySplit()
+     */
+    @Override
+    public Spliterator<Node<T>> trySplit() {
+        if (head == null && forest.size() == 1) {
+            head = forest.pop();
+            forest.addAll(head.getChildren());
+        }
+        int size = forest.size();
+        if (size == 1) {
+            // Give the head away alone, so that the lone subtree is expanded on the next split
+            NodeSpliterator<T> split = new NodeSpliterator<>(head, new ArrayDeque<Node<T>>(), 1);
+            head = null;
+            estimate >>>= 1;
+            return split;
+        } else if (size == 0) {
+            return null;
+        }
+
+        // The prefix, in encounter order, goes to the new spliterator
+        Deque<Node<T>> prefix = new ArrayDeque<>(size / 2);
+        for (int i = size / 2; i > 0; i--) {
+            prefix.add(forest.pop());
+        }
+        estimate >>>= 1;
+        NodeSpliterator<T> split = new NodeSpliterator<>(head, prefix, estimate);
+        head = null;
+        return split;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#estimateSize()
+     */
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#characteristics()
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
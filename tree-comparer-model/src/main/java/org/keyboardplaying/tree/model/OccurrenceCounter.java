@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the children of a node read so far, per {@link Keyed#getKey() key}, to give each child its
+ * {@link Keyed#getOccurrence() occurrence}.
+ * <p/>
+ * The counts are only allocated once the first child is counted, so that leaves cost a single empty instance.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class OccurrenceCounter {
+
+    private Map<String, Integer> counts;
+
+    /**
+     * Counts a child and returns its occurrence.
+     *
+     * @param key the key of the child
+     * @return the number of children with the same key counted before this one
+     */
+    public int next(String key) {
+        if (counts == null) {
+            counts = new HashMap<>();
+        }
+        return counts.merge(key, 1, Integer::sum) - 1;
+    }
+}
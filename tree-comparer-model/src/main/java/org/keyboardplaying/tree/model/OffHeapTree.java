@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A tree stored outside of the heap, so that its size is neither limited by the heap nor adds to the cost of garbage
+ * collection.
+ * <p/>
+ * As in a {@link FlatTree}, each node is identified by an {@code int} index and the root has index {@code 0}. Each
+ * node is stored as a fixed-size record (parent, first child, next sibling, last child and location of its content)
+ * and its content is serialized by a {@link ContentCodec}. Records and contents are appended to direct
+ * {@link ByteBuffer}s allocated by chunks, so that the heap only holds one small object per chunk.
+ * <p/>
+ * Contents are deserialized on each access. Walking the tree is best done through a {@link Cursor}, a single object
+ * which moves from node to node rather than one object per node.
+ * <p/>
+ * A tree may be read by several threads once it is built, but it must not be modified meanwhile.
+ * <p/>
+ * Direct buffers count against the limit set by the {@code -XX:MaxDirectMemorySize} JVM option, which defaults to the
+ * maximum heap size; trees larger than that require raising it. {@link #close() Closing} a tree drops its chunks, whose
+ * memory is given back once they are garbage-collected.
+ *
+ * @param <T> the type of nodes for this tree
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see FlatTree
+ */
+public class OffHeapTree<T> implements IndexedTree<T>, Closeable {
+
+    /**
+     * The index denoting the absence of a node (parent of the root, child of a leaf, sibling of the last child).
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The default size of the chunks, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /* Layout of a record */
+    private static final int PARENT = 0;
+    private static final int FIRST_CHILD = 4;
+    private static final int NEXT_SIBLING = 8;
+    private static final int LAST_CHILD = 12;
+    private static final int CONTENT_CHUNK = 16;
+    private static final int CONTENT_OFFSET = 20;
+    private static final int CONTENT_LENGTH = 24;
+    private static final int RECORD_SIZE = 28;
+
+    private final ContentCodec<T> codec;
+    private final int chunkSize;
+    private final int recordsPerChunk;
+
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private final List<ByteBuffer> contents = new ArrayList<>();
+
+    private int size = 0;
+    private long allocated = 0;
+
+    /**
+     * Creates a new empty tree, allocating memory by chunks of {@link #DEFAULT_CHUNK_SIZE} bytes.
+     *
+     * @param codec the codec serializing the contents
+     */
+    public OffHeapTree(ContentCodec<T> codec) {
+        this(codec, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new empty tree.
+     * <p/>
+     * Contents larger than a chunk are stored in a chunk of their own.
+     *
+     * @param codec     the codec serializing the contents
+     * @param chunkSize the size of the memory chunks, in bytes
+     */
+    public OffHeapTree(ContentCodec<T> codec, int chunkSize) {
+        Objects.requireNonNull(codec, "A codec must be supplied.");
+        if (chunkSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("A chunk must be able to hold at least one node.");
+        }
+        this.codec = codec;
+        this.chunkSize = chunkSize;
+        this.recordsPerChunk = chunkSize / RECORD_SIZE;
+    }
+
+    /**
+     * Creates a tree from a tree of {@link Node}, allocating memory by chunks of {@link #DEFAULT_CHUNK_SIZE} bytes.
+     * <p/>
+     * The nodes are laid out in pre-order. The tree is walked iteratively, so that deep trees can be converted.
+     *
+     * @param root  the root of the tree to copy
+     * @param codec the codec serializing the contents
+     * @param <T>   the type of nodes for this tree
+     * @return the off-heap tree
+     */
+    public static <T> OffHeapTree<T> fromNode(Node<T> root, ContentCodec<T> codec) {
+        return fromNode(root, codec, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a tree from a tree of {@link Node}.
+     * <p/>
+     * The nodes are laid out in pre-order. The tree is walked iteratively, so that deep trees can be converted.
+     *
+     * @param root      the root of the tree to copy
+     * @param codec     the codec serializing the contents
+     * @param chunkSize the size of the memory chunks, in bytes
+     * @param <T>       the type of nodes for this tree
+     * @return the off-heap tree
+     */
+    public static <T> OffHeapTree<T> fromNode(Node<T> root, ContentCodec<T> codec, int chunkSize) {
+        OffHeapTree<T> tree = new OffHeapTree<>(codec, chunkSize);
+        IndexedTree.copy(root, tree);
+        return tree;
+    }
+
+    /**
+     * Creates a tree of {@link Node} from this tree.
+     * <p/>
+     * The nodes are created iteratively, so that deep trees can be converted.
+     *
+     * @return the root of the tree of {@link Node}, or {@code null} if this tree is empty
+     */
+    public Node<T> toNode() {
+        return IndexedTree.toNode(this);
+    }
+
+    /**
+     * Adds the root of this tree.
+     *
+     * @param content the content of the root
+     * @return the index of the root
+     */
+    @Override
+    public int addRoot(T content) {
+        if (size > 0) {
+            throw new IllegalStateException("This tree already has a root.");
+        }
+        return append(NONE, content);
+    }
+
+    /**
+     * Adds a node as the last child of another one.
+     *
+     * @param parentIndex the index of the parent node
+     * @param content     the content of the new node
+     * @return the index of the new node
+     */
+    @Override
+    public int addChild(int parentIndex, T content) {
+        checkIndex(parentIndex);
+
+        int index = append(parentIndex, content);
+        int last = read(parentIndex, LAST_CHILD);
+        if (last == NONE) {
+            write(parentIndex, FIRST_CHILD, index);
+        } else {
+            write(last, NEXT_SIBLING, index);
+        }
+        write(parentIndex, LAST_CHILD, index);
+        return index;
+    }
+
+    private int append(int parentIndex, T content) {
+        Objects.requireNonNull(content, "A node content may not be null.");
+        byte[] bytes = codec.encode(content);
+
+        if (size % recordsPerChunk == 0) {
+            records.add(allocate(recordsPerChunk * RECORD_SIZE));
+        }
+        int index = size++;
+        write(index, PARENT, parentIndex);
+        write(index, FIRST_CHILD, NONE);
+        write(index, NEXT_SIBLING, NONE);
+        write(index, LAST_CHILD, NONE);
+        storeContent(index, bytes);
+        return index;
+    }
+
+    private void storeContent(int index, byte[] bytes) {
+        ByteBuffer chunk = contents.isEmpty() ? null : contents.get(contents.size() - 1);
+        if (chunk == null || chunk.remaining() < bytes.length) {
+            chunk = allocate(Math.max(chunkSize, bytes.length));
+            contents.add(chunk);
+        }
+        write(index, CONTENT_CHUNK, contents.size() - 1);
+        write(index, CONTENT_OFFSET, chunk.position());
+        write(index, CONTENT_LENGTH, bytes.length);
+        chunk.put(bytes);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocated += capacity;
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    private int read(int index, int field) {
+        return records.get(index / recordsPerChunk).getInt(index % recordsPerChunk * RECORD_SIZE + field);
+    }
+
+    private void write(int index, int field, int value) {
+        records.get(index / recordsPerChunk).putInt(index % recordsPerChunk * RECORD_SIZE + field, value);
+    }
+
+    /**
+     * Returns the number of nodes in this tree.
+     *
+     * @return the number of nodes
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of memory allocated outside of the heap for this tree.
+     *
+     * @return the allocated memory, in bytes
+     */
+    public long getAllocatedBytes() {
+        return allocated;
+    }
+
+    /**
+     * Returns the content of a node.
+     * <p/>
+     * The content is deserialized on each call.
+     *
+     * @param index the index of the node
+     * @return the content of the node
+     */
+    @Override
+    public T getContent(int index) {
+        checkIndex(index);
+        return codec.decode(contents.get(read(index, CONTENT_CHUNK)), read(index, CONTENT_OFFSET),
+                read(index, CONTENT_LENGTH));
+    }
+
+    /**
+     * Returns the parent of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the parent, or {@link #NONE} for the root
+     */
+    @Override
+    public int getParent(int index) {
+        checkIndex(index);
+        return read(index, PARENT);
+    }
+
+    /**
+     * Returns the first child of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the first child, or {@link #NONE} for a leaf
+     */
+    public int getFirstChild(int index) {
+        checkIndex(index);
+        return read(index, FIRST_CHILD);
+    }
+
+    /**
+     * Returns the next sibling of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the next sibling, or {@link #NONE} for the last child
+     */
+    public int getNextSibling(int index) {
+        checkIndex(index);
+        return read(index, NEXT_SIBLING);
+    }
+
+    /**
+     * Returns {@code true} if a node has no children.
+     *
+     * @param index the index of the node
+     * @return {@code true} for a leaf, {@code false} otherwise
+     */
+    public boolean isLeaf(int index) {
+        return getFirstChild(index) == NONE;
+    }
+
+    /**
+     * Returns a cursor on the root of this tree.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        checkIndex(ROOT);
+        return new Cursor();
+    }
+
+    /**
+     * Releases the chunks of this tree. The tree is empty afterwards.
+     * <p/>
+     * The tree must not be in use by other threads while it is being closed.
+     */
+    @Override
+    public void close() {
+        records.clear();
+        contents.clear();
+        size = 0;
+        allocated = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No node at index " + index);
+        }
+    }
+
+    /**
+     * A view on one node of the tree at a time, which moves through the tree without creating any object.
+     * <p/>
+     * A cursor is not thread-safe, but several cursors may walk the same tree concurrently.
+     *
+     * @author Cyrille Chopelet (https://keyboardplaying.org)
+     */
+    public final class Cursor {
+
+        private int index = ROOT;
+
+        private Cursor() {
+        }
+
+        /**
+         * Returns the index of the current node.
+         *
+         * @return the index of the node the cursor is on
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the content of the current node.
+         *
+         * @return the deserialized content
+         */
+        public T getContent() {
+            return OffHeapTree.this.getContent(index);
+        }
+
+        /**
+         * Returns {@code true} if the current node has no children.
+         *
+         * @return {@code true} for a leaf, {@code false} otherwise
+         */
+        public boolean isLeaf() {
+            return read(index, FIRST_CHILD) == NONE;
+        }
+
+        /**
+         * Moves to a node.
+         *
+         * @param target the index of the node
+         */
+        public void moveTo(int target) {
+            checkIndex(target);
+            index = target;
+        }
+
+        /**
+         * Moves to the parent of the current node, if any.
+         *
+         * @return {@code true} if the cursor moved, {@code false} if it is on the root
+         */
+        public boolean toParent() {
+            return move(read(index, PARENT));
+        }
+
+        /**
+         * Moves to the first child of the current node, if any.
+         *
+         * @return {@code true} if the cursor moved, {@code false} if it is on a leaf
+         */
+        public boolean toFirstChild() {
+            return move(read(index, FIRST_CHILD));
+        }
+
+        /**
+         * Moves to the next sibling of the current node, if any.
+         *
+         * @return {@code true} if the cursor moved, {@code false} if it is on a last child
+         */
+        public boolean toNextSibling() {
+            return move(read(index, NEXT_SIBLING));
+        }
+
+        private boolean move(int target) {
+            if (target == NONE) {
+                return false;
+            }
+            index = target;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable tree node, whose updates produce a new tree sharing all unchanged subtrees with the original one.
+ * <p/>
+ * Updating a node deep in a tree only copies the nodes on the path from the root to this node: holding several
+ * versions of a large tree thus costs about one tree plus the changes between versions. As no node is ever modified,
+ * trees can be shared between threads without any synchronization.
+ * <p/>
+ * Unlike {@link Node}, two persistent nodes are equal if their whole subtrees are. The hash of each subtree is
+ * computed once, when the node is created, from the hashes of its children; two subtrees with different hashes are
+ * thus told apart in constant time.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public final class PersistentNode<T> {
+
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    private final T content;
+    private final Object[] children;
+    private final int hash;
+    /**
+     * A read-only view on this node's children, created on first access rather than on each one.
+     */
+    private List<PersistentNode<T>> childrenView;
+
+    /**
+     * Creates a new leaf.
+     *
+     * @param content the node's content
+     */
+    public PersistentNode(T content) {
+        this(content, NO_CHILDREN);
+    }
+
+    /**
+     * Creates a new node.
+     *
+     * @param content  the node's content
+     * @param children the node's children
+     */
+    public PersistentNode(T content, List<PersistentNode<T>> children) {
+        this(content, children.isEmpty() ? NO_CHILDREN : children.toArray());
+    }
+
+    private PersistentNode(T content, Object[] children) {
+        Objects.requireNonNull(content, "A node content may not be null.");
+        int h = content.hashCode();
+        for (Object child : children) {
+            Objects.requireNonNull(child, "The node cannot have null children");
+            h = 31 * h + child.hashCode();
+        }
+        this.content = content;
+        this.children = children;
+        this.hash = h;
+    }
+
+    /**
+     * Returns the node's content.
+     *
+     * @return the node's content
+     */
+    public T getContent() {
+        return content;
+    }
+
+    /**
+     * Returns this node's children.
+     *
+     * @return a read-only list of the children
+     */
+    @SuppressWarnings("unchecked")
+    public List<PersistentNode<T>> getChildren() {
+        List<PersistentNode<T>> view = childrenView;
+        if (view == null) {
+            // The view is immutable, so that concurrent first accesses may each create one
+            view = (List<PersistentNode<T>>) (List<?>) Collections.unmodifiableList(Arrays.asList(children));
+            childrenView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Returns the number of children of this node.
+     *
+     * @return the number of children
+     */
+    public int getChildCount() {
+        return children.length;
+    }
+
+    /**
+     * Returns a child of this node.
+     *
+     * @param index the index of the child
+     * @return the child
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNode<T> getChild(int index) {
+        return (PersistentNode<T>) children[index];
+    }
+
+    /**
+     * Returns the node at the end of a path.
+     *
+     * @param path the index of the child to follow at each level
+     * @return the node
+     */
+    public PersistentNode<T> get(int... path) {
+        PersistentNode<T> node = this;
+        for (int index : path) {
+            node = node.getChild(index);
+        }
+        return node;
+    }
+
+    /**
+     * Returns a node with another content and the same children.
+     *
+     * @param newContent the content of the new node
+     * @return the new node, or this node if the content is the same instance
+     */
+    public PersistentNode<T> withContent(T newContent) {
+        return newContent == content ? this : new PersistentNode<>(newContent, children);
+    }
+
+    /**
+     * Returns a node with the same content and an additional child, at the end.
+     *
+     * @param child the child to add
+     * @return the new node
+     */
+    public PersistentNode<T> withChild(PersistentNode<T> child) {
+        Object[] updated = Arrays.copyOf(children, children.length + 1);
+        updated[children.length] = child;
+        return new PersistentNode<>(content, updated);
+    }
+
+    /**
+     * Returns a node with the same content, in which a child has been replaced.
+     *
+     * @param index the index of the child to replace
+     * @param child the new child
+     * @return the new node, or this node if the child is the same instance
+     */
+    public PersistentNode<T> withChild(int index, PersistentNode<T> child) {
+        if (children[index] == child) {
+            return this;
+        }
+        Object[] updated = children.clone();
+        updated[index] = child;
+        return new PersistentNode<>(content, updated);
+    }
+
+    /**
+     * Returns a node with the same content, from which a child has been removed.
+     *
+     * @param index the index of the child to remove
+     * @return the new node
+     */
+    public PersistentNode<T> withoutChild(int index) {
+        Object[] updated = new Object[children.length - 1];
+        System.arraycopy(children, 0, updated, 0, index);
+        System.arraycopy(children, index + 1, updated, index, updated.length - index);
+        return new PersistentNode<>(content, updated.length == 0 ? NO_CHILDREN : updated);
+    }
+
+    /**
+     * Returns a tree in which the node at the end of a path has been replaced.
+     * <p/>
+     * Only the nodes on the path are copied; all other subtrees are shared with this tree.
+     *
+     * @param path   the index of the child to follow at each level
+     * @param update the function producing the new node from the current one
+     * @return the root of the new tree, or this node if the update returned the same instance
+     */
+    public PersistentNode<T> update(int[] path, UnaryOperator<PersistentNode<T>> update) {
+        List<PersistentNode<T>> ancestors = new ArrayList<>(path.length);
+        PersistentNode<T> node = this;
+        for (int i = 0; i < path.length; i++) {
+            ancestors.add(node);
+            node = node.getChild(path[i]);
+        }
+
+        PersistentNode<T> updated = Objects.requireNonNull(update.apply(node), "The node cannot be replaced by null");
+        for (int i = path.length - 1; i >= 0; i--) {
+            updated = ancestors.get(i).withChild(path[i], updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Returns a persistent copy of a tree.
+     *
+     * @param <T>  the type of node content
+     * @param root the root of the tree to copy
+     * @return the root of the persistent tree
+     */
+    public static <T> PersistentNode<T> fromNode(Node<T> root) {
+        // Post-order: the children of a node are on top of the stack when it is reached
+        Deque<PersistentNode<T>> built = new ArrayDeque<>();
+        Iterator<Node<T>> iter = root.postOrderIterator();
+        while (iter.hasNext()) {
+            Node<T> node = iter.next();
+            int count = node.getChildren().size();
+            Object[] children = count == 0 ? NO_CHILDREN : new Object[count];
+            for (int i = count - 1; i >= 0; i--) {
+                children[i] = built.pop();
+            }
+            built.push(new PersistentNode<>(node.getContent(), children));
+        }
+        return built.pop();
+    }
+
+    /**
+     * Returns a mutable copy of this tree.
+     *
+     * @return the root of the copy
+     */
+    public Node<T> toNode() {
+        Node<T> root = new Node<>(content);
+        Deque<PersistentNode<T>> sources = new ArrayDeque<>();
+        Deque<Node<T>> targets = new ArrayDeque<>();
+        sources.push(this);
+        targets.push(root);
+        while (!sources.isEmpty()) {
+            PersistentNode<T> source = sources.pop();
+            Node<T> target = targets.pop();
+            for (int i = 0; i < source.children.length; i++) {
+                PersistentNode<T> child = source.getChild(i);
+                Node<T> copy = new Node<>(child.content);
+                target.addChild(copy);
+                sources.push(child);
+                targets.push(copy);
+            }
+        }
+        return root;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PersistentNode)) {
+            return false;
+        }
+
+        Deque<PersistentNode<?>> stack = new ArrayDeque<>();
+        stack.push(this);
+        stack.push((PersistentNode<?>) obj);
+        while (!stack.isEmpty()) {
+            PersistentNode<?> right = stack.pop();
+            PersistentNode<?> left = stack.pop();
+            if (left == right) {
+                // Shared subtree
+                continue;
+            }
+            if (left.hash != right.hash || left.children.length != right.children.length
+                    || !left.content.equals(right.content)) {
+                return false;
+            }
+            for (int i = 0; i < left.children.length; i++) {
+                stack.push((PersistentNode<?>) left.children[i]);
+                stack.push((PersistentNode<?>) right.children[i]);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "PersistentNode[" + content + ", " + children.length + " children]";
+    }
+}
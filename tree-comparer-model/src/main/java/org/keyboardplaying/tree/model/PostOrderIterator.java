@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link Iterator} returning each node of a tree after all its children, without recursion.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ * @see Node#postOrderIterator()
+ */
+// Package visible only
+class PostOrderIterator<T> implements Iterator<Node<T>> {
+
+    /** The nodes being walked, from the root down to the next node to return. */
+    private final Deque<Node<T>> nodes = new ArrayDeque<>();
+    /** For each node being walked, the iterator on its children not walked yet. */
+    private final Deque<Iterator<Node<T>>> children = new ArrayDeque<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param root the root of the tree to walk
+     */
+    public PostOrderIterator(Node<T> root) {
+        descend(root);
+    }
+
+    /**
+     * Pushes the specified node and its first descendants, down to a leaf.
+     *
+     * @param node the node to start from
+     */
+    private void descend(Node<T> node) {
+        Node<T> current = node;
+        while (true) {
+            Iterator<Node<T>> iter = current.getChildren().iterator();
+            nodes.push(current);
+            children.push(iter);
+            if (!iter.hasNext()) {
+                return;
+            }
+            current = iter.next();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return !nodes.isEmpty();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public Node<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        // The top node has no child left to walk
+        Node<T> node = nodes.pop();
+        children.pop();
+        if (!children.isEmpty() && children.peek().hasNext()) {
+            descend(children.peek().next());
+        }
+        return node;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#remove()
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
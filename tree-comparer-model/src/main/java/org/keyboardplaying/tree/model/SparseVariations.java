@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Variations} storing only the variations which are present, for elements absent from most compared versions.
+ * <p/>
+ * The versions containing the element are marked in a bitmap, and their variations are packed in the order of the
+ * versions. Looking a variation up requires counting the marked versions which precede it, which costs one operation
+ * per 64 compared versions. Bitmaps are never modified once built, so that a {@link VariationsFactory} may share a
+ * single one between all the nodes present in the same versions.
+ * <p/>
+ * Setting a variation copies the packed variations: these variations are meant to be built once, from a complete
+ * list.
+ *
+ * @param <T> the type of node
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class SparseVariations<T> extends Variations<T> {
+
+    static final int WORD_SHIFT = 6;
+
+    private final int size;
+    /** The versions containing the element, 64 per word. */
+    private long[] presence;
+    /** The variations of the versions containing the element, in order. */
+    private Object[] values;
+
+    /** The equivalence classes of the packed variations, {@code null} until computed or after a change. */
+    private PackedClasses classes;
+
+    /**
+     * Creates a new instance, in which the element is absent from all versions.
+     *
+     * @param size the number of variations being compared
+     */
+    public SparseVariations(int size) {
+        this(new long[wordCount(size)], new Object[0], size);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param variations the variations
+     */
+    public SparseVariations(List<T> variations) {
+        this.size = variations.size();
+        this.presence = new long[wordCount(size)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (variations.get(i) != null) {
+                presence[i >>> WORD_SHIFT] |= 1L << i;
+                count++;
+            }
+        }
+        this.values = new Object[count];
+        int v = 0;
+        for (T variation : variations) {
+            if (variation != null) {
+                values[v++] = variation;
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance from variations already packed.
+     *
+     * @param presence the bitmap of the versions containing the element; it is not copied and must not be modified
+     *                 afterwards
+     * @param values   the variations of the versions containing the element, in order
+     * @param size     the number of variations being compared
+     */
+    SparseVariations(long[] presence, Object[] values, int size) {
+        this.presence = presence;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of words needed to mark the specified number of versions.
+     *
+     * @param size the number of variations being compared
+     * @return the length of the bitmap
+     */
+    static int wordCount(int size) {
+        return (size + 63) >>> WORD_SHIFT;
+    }
+
+    private void checkIndex(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No version " + id + " among " + size);
+        }
+    }
+
+    private boolean marked(int id) {
+        return (presence[id >>> WORD_SHIFT] & 1L << id) != 0;
+    }
+
+    /** Returns the number of marked versions before the specified one. */
+    private int rank(int id) {
+        int word = id >>> WORD_SHIFT;
+        int rank = 0;
+        for (int i = 0; i < word; i++) {
+            rank += Long.bitCount(presence[i]);
+        }
+        return rank + Long.bitCount(presence[word] & (1L << id) - 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#set(int, java.lang.Object)
+     */
+    @Override
+    public void set(int id, T variation) {
+        checkIndex(id);
+        int rank = rank(id);
+        boolean wasPresent = marked(id);
+
+        if (variation != null && wasPresent) {
+            values = values.clone();
+            values[rank] = variation;
+        } else if (variation != null) {
+            Object[] updated = new Object[values.length + 1];
+            System.arraycopy(values, 0, updated, 0, rank);
+            updated[rank] = variation;
+            System.arraycopy(values, rank, updated, rank + 1, values.length - rank);
+            values = updated;
+            presence = presence.clone();
+            presence[id >>> WORD_SHIFT] |= 1L << id;
+        } else if (wasPresent) {
+            Object[] updated = new Object[values.length - 1];
+            System.arraycopy(values, 0, updated, 0, rank);
+            System.arraycopy(values, rank + 1, updated, rank, updated.length - rank);
+            values = updated;
+            presence = presence.clone();
+            presence[id >>> WORD_SHIFT] &= ~(1L << id);
+        }
+        clearAnalysis();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#get(int)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        checkIndex(id);
+        return marked(id) ? (T) values[rank(id)] : null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#size()
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records the equivalence classes computed while building these variations, to spare the first query.
+     *
+     * @param packedClasses the equivalence class of each packed variation
+     * @param count         the number of equivalence classes
+     */
+    void setClasses(int[] packedClasses, int count) {
+        this.classes = new PackedClasses(packedClasses, count);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#clearAnalysis()
+     */
+    @Override
+    void clearAnalysis() {
+        super.clearAnalysis();
+        classes = null;
+    }
+
+    private PackedClasses classify() {
+        PackedClasses result = classes;
+        if (result == null) {
+            // Only variations of type T are ever stored in the values
+            @SuppressWarnings("unchecked")
+            List<T> packedValues = (List<T>) Arrays.asList(values);
+            int[] packed = new int[values.length];
+            int count = classify(packedValues, getEquivalence(), packed, new Object[values.length]);
+            result = new PackedClasses(packed, count);
+            classes = result;
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#isConstant()
+     */
+    @Override
+    public boolean isConstant() {
+        if (values.length == 0) {
+            return true;
+        }
+        return classify().count == 1 && values.length == size;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#isPresent(int)
+     */
+    @Override
+    public boolean isPresent(int id) {
+        checkIndex(id);
+        return marked(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getPresence()
+     */
+    @Override
+    public BitSet getPresence() {
+        return BitSet.valueOf(presence);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getEquivalenceClass(int)
+     */
+    @Override
+    public int getEquivalenceClass(int id) {
+        checkIndex(id);
+        return marked(id) ? classify().classes[rank(id)] : -1;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getSignature()
+     */
+    @Override
+    public int[] getSignature() {
+        int[] packed = classify().classes;
+        int[] signature = new int[size];
+        Arrays.fill(signature, -1);
+        int v = 0;
+        for (int i = nextPresent(0); i >= 0; i = nextPresent(i + 1)) {
+            signature[i] = packed[v++];
+        }
+        return signature;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#getEquivalenceClassCount()
+     */
+    @Override
+    public int getEquivalenceClassCount() {
+        return classify().count;
+    }
+
+    /**
+     * Returns the first version containing the element, starting at the specified one.
+     *
+     * @param from the first version to check
+     * @return the next version containing the element, or {@code -1} if there is none
+     */
+    private int nextPresent(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int word = from >>> WORD_SHIFT;
+        long bits = presence[word] & -1L << from;
+        while (bits == 0) {
+            if (++word == presence.length) {
+                return -1;
+            }
+            bits = presence[word];
+        }
+        return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.Variations#iterator()
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new SparseIterator();
+    }
+
+    /**
+     * The equivalence classes of the packed variations.
+     * <p/>
+     * As the analysis of {@link Variations}, they are published as a single immutable object, so that concurrent
+     * readers never see the classes of some variations with the count of others.
+     */
+    private static final class PackedClasses {
+
+        private final int[] classes;
+        private final int count;
+
+        PackedClasses(int[] classes, int count) {
+            this.classes = classes;
+            this.count = count;
+        }
+    }
+
+    /**
+     * An {@link Iterator} walking the bitmap rather than looking each variation up.
+     */
+    private class SparseIterator implements Iterator<T> {
+
+        private int i = 0;
+        private int next = nextPresent(0);
+        private int v = 0;
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        @Override
+        public boolean hasNext() {
+            return i < size;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (i++ != next) {
+                return null;
+            }
+            next = nextPresent(i);
+            return (T) values[v++];
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#remove()
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link ContentCodec} for {@link String} contents, stored in UTF-8.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class StringCodec implements ContentCodec<String> {
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.ContentCodec#encode(java.lang.Object)
+     */
+    @Override
+    public byte[] encode(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.keyboardplaying.tree.model.ContentCodec#decode(java.nio.ByteBuffer, int, int)
+     */
+    @Override
+    public String decode(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The structural hashes of all the subtrees of a tree, each combining the hash of the content of its root with the
+ * hashes of its children, in order.
+ * <p/>
+ * Hashing is opt-in: trees which are not hashed carry no hash. The hashes are computed without recursion when an
+ * instance is created, and are a snapshot of the tree at that time: changes made to the tree afterwards are not
+ * reflected, and a new instance should then be created. An instance is never modified once created, so that it may be
+ * shared between threads.
+ * <p/>
+ * The contents may be hashed and compared through a key, so that equivalent contents which are not equal, e.g. files
+ * with the same content on different hosts, give the same hash. Contents with equal keys must have equal hashes.
+ * <p/>
+ * The hashes are stored in an open-addressing table keyed by node identity, so that none of them is boxed.
+ *
+ * @param <T> the type of node content
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public final class SubtreeHashes<T> {
+
+    private final Function<? super T, ?> key;
+
+    /** The hashed nodes, at the slot given by their identity hash code. */
+    private final Node<?>[] nodes;
+    /** The hash of the subtree of each node of {@link #nodes}, at the same slot. */
+    private final long[] hashes;
+    private final int size;
+
+    /**
+     * Hashes a tree, using the contents themselves.
+     *
+     * @param root the root of the tree to hash
+     */
+    public SubtreeHashes(Node<T> root) {
+        this(root, null);
+    }
+
+    /**
+     * Hashes a tree, using a key of the contents.
+     *
+     * @param root the root of the tree to hash
+     * @param key  the function returning the key of a content, or {@code null} to use the contents themselves
+     */
+    public SubtreeHashes(Node<T> root, Function<? super T, ?> key) {
+        Objects.requireNonNull(root, "A root must be supplied.");
+        this.key = key;
+
+        int count = 0;
+        for (Iterator<Node<T>> iter = root.preOrderIterator(); iter.hasNext(); iter.next()) {
+            count++;
+        }
+        this.size = count;
+        // At most half full, so that probes stay short
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 4 - 1);
+        this.nodes = new Node<?>[capacity];
+        this.hashes = new long[capacity];
+
+        // Post-order: the children of a node are hashed before it
+        for (Iterator<Node<T>> iter = root.postOrderIterator(); iter.hasNext();) {
+            Node<T> node = iter.next();
+            long hash = mix(Objects.hashCode(keyOf(node.getContent())));
+            List<Node<T>> children = node.getChildren();
+            for (Node<T> child : children) {
+                hash = hash * 0x9E3779B97F4A7C15L + hashes[slot(child)];
+            }
+            // Mixing again distinguishes a node from the same node with one more child
+            hash = mix(hash + children.size());
+
+            int slot = slot(node);
+            nodes[slot] = node;
+            hashes[slot] = hash;
+        }
+    }
+
+    private Object keyOf(T content) {
+        return key == null ? content : key.apply(content);
+    }
+
+    /**
+     * Returns the slot of a node: the slot it is stored at, or the empty slot it would be stored at.
+     */
+    private int slot(Node<?> node) {
+        int mask = nodes.length - 1;
+        int slot = (int) mix(System.identityHashCode(node)) & mask;
+        while (nodes[slot] != null && nodes[slot] != node) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long value) {
+        // Finalizer of MurmurHash3
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Returns the number of hashed nodes.
+     *
+     * @return the number of nodes of the tree when it was hashed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if the specified node was hashed.
+     *
+     * @param node the node
+     * @return {@code true} if the node belonged to the tree when it was hashed
+     */
+    public boolean contains(Node<?> node) {
+        return node != null && nodes[slot(node)] == node;
+    }
+
+    /**
+     * Returns the hash of the subtree rooted at the specified node.
+     * <p/>
+     * Two identical subtrees have the same hash.
+     *
+     * @param node a node of the hashed tree
+     * @return the 64-bit hash of its subtree, when the tree was hashed
+     * @throws IllegalArgumentException if the node was not hashed
+     */
+    public long getHash(Node<T> node) {
+        int slot = slot(node);
+        if (nodes[slot] != node) {
+            throw new IllegalArgumentException("The node " + node + " was not hashed.");
+        }
+        return hashes[slot];
+    }
+
+    /**
+     * Returns {@code true} if two hashed subtrees are identical, i.e. if the keys of their contents are equal and their
+     * children are identical subtrees, in the same order.
+     * <p/>
+     * Subtrees whose hashes differ are told apart with a single comparison. Otherwise, both subtrees are walked to rule
+     * out a collision, except for the branches which are the same instance.
+     *
+     * @param node        a node of the tree hashed by this instance
+     * @param otherHashes the hashes of the tree of the other node, using the same key
+     * @param other       a node of the tree hashed by {@code otherHashes}
+     * @return {@code true} if both subtrees are identical, {@code false} otherwise
+     * @throws IllegalArgumentException if one of the nodes was not hashed
+     */
+    public boolean identical(Node<T> node, SubtreeHashes<T> otherHashes, Node<T> other) {
+        if (getHash(node) != otherHashes.getHash(other)) {
+            return false;
+        }
+
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(node);
+        stack.push(other);
+        while (!stack.isEmpty()) {
+            Node<T> right = stack.pop();
+            Node<T> left = stack.pop();
+            if (left == right) {
+                continue;
+            }
+            List<Node<T>> leftChildren = left.getChildren();
+            List<Node<T>> rightChildren = right.getChildren();
+            if (getHash(left) != otherHashes.getHash(right) || leftChildren.size() != rightChildren.size()
+                    || !Objects.equals(keyOf(left.getContent()), otherHashes.keyOf(right.getContent()))) {
+                return false;
+            }
+            for (int i = 0; i < leftChildren.size(); i++) {
+                stack.push(leftChildren.get(i));
+                stack.push(rightChildren.get(i));
+            }
+        }
+        return true;
+    }
+}
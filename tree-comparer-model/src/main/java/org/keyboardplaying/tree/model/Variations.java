@@ -16,22 +16,59 @@
  */
 package org.keyboardplaying.tree.model;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * An object containing the different versions for a given node in the compared versions.
+ * <p/>
+ * The variations are analyzed once, when first queried: {@link #isConstant()}, {@link #isPresent(int)} and
+ * {@link #getEquivalenceClass(int)} then answer in constant time until a variation is set again.
+ * <p/>
+ * Variations are compared with {@link Object#equals(Object)}, unless an {@link #setEquivalence(Function) equivalence}
+ * is set: variations are then equivalent if they have equal keys. For instance, elements whose equality depends on
+ * where they were read from can be compared by content. The equivalence only affects the analysis; equality and hash
+ * codes of the variations themselves still rely on {@link Object#equals(Object)}.
+ * <p/>
+ * This implementation stores one slot per compared version. Subclasses may store the variations in a more compact
+ * way, as long as they honor the contract of {@link #get(int)}, {@link #set(int, Object)}, {@link #size()} and
+ * {@link #iterator()}; equality and hash codes only depend on the variations, not on the way they are stored.
  *
+ * @see DictionaryVariations
+ * @see VariationsFactory
  * @param <T> the type of node
  * @author Cyrille Chopelet (https://keyboardplaying.org)
  */
 public class Variations<T> implements Iterable<T> {
 
+    /**
+     * Above this number of variations, the equivalence classes are looked up by hash rather than by scanning.
+     */
+    private static final int LINEAR_LOOKUP_THRESHOLD = 8;
+
     private T[] array;
     private int index = 0;
 
+    /** The function giving the key variations are compared by, {@code null} to compare the variations themselves. */
+    private Function<? super T, ?> equivalence;
+
+    /** The result of the analysis of the variations, {@code null} until computed or after a change. */
+    private Analysis analysis;
+
+    /**
+     * Creates a new instance without storage, for subclasses which provide their own.
+     */
+    protected Variations() {
+    }
+
     /**
      * Creates a new instance.
      *
@@ -39,7 +76,7 @@ public class Variations<T> implements Iterable<T> {
      */
     @SuppressWarnings("unchecked")
     public Variations(int size) {
-        this.array = (T[]) new Comparable[size];
+        this.array = (T[]) new Object[size];
     }
 
     /**
@@ -58,7 +95,7 @@ public class Variations<T> implements Iterable<T> {
      * @param variation the variation to set
      */
     public void add(T variation) {
-        if (index == array.length) {
+        if (index == size()) {
             throw new IndexOutOfBoundsException("No new version could be added.");
         }
         this.set(index++, variation);
@@ -74,6 +111,7 @@ public class Variations<T> implements Iterable<T> {
      */
     public void set(int id, T variation) {
         array[id] = variation;
+        clearAnalysis();
     }
 
     /**
@@ -96,20 +134,125 @@ public class Variations<T> implements Iterable<T> {
     }
 
     /**
-     * Returns {@code true} if all variations are equal (using the {@link Object#equals(Object)} method).
+     * Sets the function giving the key by which variations are compared.
+     * <p/>
+     * Equal variations must have equal keys.
      *
-     * @return {@code true} if all variations are equal, {@code false} otherwise
+     * @param equivalence the function giving the key of a non-{@code null} variation, or {@code null} to compare the
+     *                    variations using their {@link Object#equals(Object)} method
+     */
+    public void setEquivalence(Function<? super T, ?> equivalence) {
+        this.equivalence = equivalence;
+        clearAnalysis();
+    }
+
+    /**
+     * Returns the function giving the key by which variations are compared.
+     *
+     * @return the function giving the key of a variation, or {@code null} if the variations are compared using their
+     *         {@link Object#equals(Object)} method
+     */
+    public Function<? super T, ?> getEquivalence() {
+        return equivalence;
+    }
+
+    /**
+     * Returns {@code true} if all variations are equivalent (using the {@link Object#equals(Object)} method, or their
+     * keys if an {@link #setEquivalence(Function) equivalence} is set).
+     *
+     * @return {@code true} if all variations are equivalent, {@code false} otherwise
      */
     public boolean isConstant() {
-        boolean constant = true;
-        T ref = array[0];
-        for (int i = 1; i < array.length; i++) {
-            if (ref == null ? array[i] != null : !ref.equals(array[i])) {
-                constant = false;
-                break;
+        return analyze().constant;
+    }
+
+    /**
+     * Returns {@code true} if the compared version contains this element, i.e. if its variation is not {@code null}.
+     *
+     * @param id the compared version number
+     * @return {@code true} if the variation is present, {@code false} otherwise
+     */
+    public boolean isPresent(int id) {
+        return analyze().presence.get(id);
+    }
+
+    /**
+     * Returns the set of the compared versions which contain this element.
+     *
+     * @return a bitmap in which the bit of each compared version containing the element is set; modifying it does
+     *         not affect this object
+     */
+    public BitSet getPresence() {
+        return (BitSet) analyze().presence.clone();
+    }
+
+    /**
+     * Returns the equivalence class of a variation.
+     * <p/>
+     * Classes are numbered from {@code 0}, in order of first appearance: two variations belong to the same class if
+     * and only if they are equal, or have equal keys if an {@link #setEquivalence(Function) equivalence} is set.
+     *
+     * @param id the compared version number
+     * @return the equivalence class of the variation, or {@code -1} if it is absent
+     */
+    public int getEquivalenceClass(int id) {
+        return analyze().classes[id];
+    }
+
+    /**
+     * Returns the equality-class signature of these variations, i.e. the equivalence class of each variation.
+     * <p/>
+     * Two sets of variations with the same signature agree and differ between the same compared versions.
+     *
+     * @return the equivalence class of each variation, {@code -1} for absent ones; modifying it does not affect this
+     *         object
+     * @see #getEquivalenceClass(int)
+     */
+    public int[] getSignature() {
+        return analyze().classes.clone();
+    }
+
+    /**
+     * Returns the number of distinct non-{@code null} variations.
+     *
+     * @return the number of equivalence classes
+     */
+    public int getEquivalenceClassCount() {
+        return analyze().classCount;
+    }
+
+    /**
+     * Returns the compared versions grouped by equivalence class.
+     * <p/>
+     * For instance, if versions 0, 2 and 5 hold a variation and versions 1 and 3 hold another one, the result is
+     * <code>[{0, 2, 5}, {1, 3}]</code>. The groups are computed from the analysis of the variations, so that no
+     * variation is compared again.
+     *
+     * @return the versions of each equivalence class, in the order of {@link #getEquivalenceClass(int)}; absent
+     *         variations belong to no group
+     */
+    public List<BitSet> getEquivalenceClasses() {
+        int count = getEquivalenceClassCount();
+        int[] signature = getSignature();
+        List<BitSet> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            groups.add(new BitSet(signature.length));
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] >= 0) {
+                groups.get(signature[i]).set(i);
             }
         }
-        return constant;
+        return groups;
+    }
+
+    private Analysis analyze() {
+        Analysis result = analysis;
+        if (result == null) {
+            result = new Analysis(this, equivalence);
+            analysis = result;
+        }
+        return result;
     }
 
     /*
@@ -119,7 +262,12 @@ public class Variations<T> implements Iterable<T> {
      */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(array);
+        // Same as Arrays.hashCode, whatever the storage
+        int result = 1;
+        for (T variation : this) {
+            result = 31 * result + (variation == null ? 0 : variation.hashCode());
+        }
+        return result;
     }
 
     /*
@@ -129,7 +277,26 @@ public class Variations<T> implements Iterable<T> {
      */
     @Override
     public boolean equals(Object o) {
-        return o instanceof Variations && Arrays.equals(array, ((Variations<?>) o).array);
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Variations)) {
+            return false;
+        }
+        Variations<?> other = (Variations<?>) o;
+        if (array != null && other.array != null) {
+            return Arrays.equals(array, other.array);
+        }
+        int size = size();
+        if (size != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(get(i), other.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /*
@@ -149,7 +316,127 @@ public class Variations<T> implements Iterable<T> {
      */
     @Override
     public String toString() {
-        return "Variations" + Arrays.toString(array);
+        StringBuilder sb = new StringBuilder("Variations[");
+        for (int i = 0, size = size(); i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Sorts variations into equivalence classes, numbered in order of first appearance.
+     *
+     * @param <T>             the type of node
+     * @param variations      the variations to sort
+     * @param equivalence     the function giving the key variations are compared by, or {@code null} to compare the
+     *                        variations themselves
+     * @param classes         receives the equivalence class of each variation, {@code -1} for absent ones
+     * @param representatives receives the first variation of each class; must be as long as {@code classes}
+     * @return the number of equivalence classes
+     */
+    static <T> int classify(Iterable<? extends T> variations, Function<? super T, ?> equivalence, int[] classes,
+                            Object[] representatives) {
+        Map<Object, Integer> lookup = classes.length > LINEAR_LOOKUP_THRESHOLD ? new HashMap<>() : null;
+        // Without equivalence, the variations are their own keys
+        Object[] keys = equivalence == null ? representatives : new Object[classes.length];
+        int count = 0;
+        int i = 0;
+
+        for (T variation : variations) {
+            int cls = -1;
+            if (variation != null) {
+                Object key = equivalence == null ? variation : equivalence.apply(variation);
+                cls = lookup == null ? find(keys, count, key) : lookup.getOrDefault(key, -1);
+                if (cls < 0) {
+                    cls = count++;
+                    representatives[cls] = variation;
+                    keys[cls] = key;
+                    if (lookup != null) {
+                        lookup.put(key, cls);
+                    }
+                }
+            }
+            classes[i++] = cls;
+        }
+        return count;
+    }
+
+    private static int find(Object[] keys, int count, Object key) {
+        for (int i = 0; i < count; i++) {
+            if (Objects.equals(keys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records an analysis computed while building these variations, to spare the first query.
+     *
+     * @param classes    the equivalence class of each variation
+     * @param classCount the number of equivalence classes
+     */
+    void setAnalysis(int[] classes, int classCount) {
+        analysis = new Analysis(classes, classCount);
+    }
+
+    /**
+     * Discards the analysis of the variations, after they or their equivalence changed.
+     */
+    void clearAnalysis() {
+        analysis = null;
+    }
+
+    /**
+     * An {@link Iterator} for variations which are not stored as an array.
+     *
+     * @param <T> the type of node
+     * @author Cyrille Chopelet (https://keyboardplaying.org)
+     */
+    static class IndexedIterator<T> implements Iterator<T> {
+
+        private int i = 0;
+        private final Variations<T> variations;
+
+        public IndexedIterator(Variations<T> variations) {
+            this.variations = variations;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        @Override
+        public boolean hasNext() {
+            return i < variations.size();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        @Override
+        public T next() {
+            if (hasNext()) {
+                return variations.get(i++);
+            }
+            throw new NoSuchElementException();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#remove()
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
@@ -200,4 +487,50 @@ public class Variations<T> implements Iterable<T> {
             throw new UnsupportedOperationException();
         }
     }
+
+    /**
+     * The result of the analysis of a set of variations.
+     * <p/>
+     * It is published as a single immutable object, so that concurrent readers never see a partial analysis.
+     */
+    private static final class Analysis {
+
+        private final boolean constant;
+        private final BitSet presence;
+        private final int[] classes;
+        private final int classCount;
+
+        <T> Analysis(Variations<T> variations, Function<? super T, ?> equivalence) {
+            int size = variations.size();
+            int[] classes = new int[size];
+            int count = classify(variations, equivalence, classes, new Object[size]);
+
+            this.classes = classes;
+            this.classCount = count;
+            this.presence = presence(classes);
+            this.constant = isConstant(count, presence, size);
+        }
+
+        Analysis(int[] classes, int classCount) {
+            this.classes = classes;
+            this.classCount = classCount;
+            this.presence = presence(classes);
+            this.constant = isConstant(classCount, presence, classes.length);
+        }
+
+        private static BitSet presence(int[] classes) {
+            BitSet presence = new BitSet(classes.length);
+            for (int i = 0; i < classes.length; i++) {
+                if (classes[i] >= 0) {
+                    presence.set(i);
+                }
+            }
+            return presence;
+        }
+
+        private static boolean isConstant(int count, BitSet presence, int size) {
+            // All absent or all equal
+            return count == 0 || count == 1 && presence.cardinality() == size;
+        }
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates {@link Variations}, choosing for each node the most compact storage.
+ * <p/>
+ * When many versions are compared, the factory looks at the variations of each node:
+ * <ul>
+ * <li>if the node is absent from most versions, only the present variations are stored, as
+ * {@link SparseVariations};</li>
+ * <li>otherwise, if only a few of them differ, they are {@link DictionaryVariations dictionary-encoded};</li>
+ * <li>otherwise, they are stored as a plain array.</li>
+ * </ul>
+ * In addition, the factory remembers the bitmaps and index arrays it has built, so that all the nodes present in, or
+ * agreeing and differing between, the same versions share a single one.
+ * <p/>
+ * A factory is meant to be used for a single comparison; it is not thread-safe.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class VariationsFactory {
+
+    /**
+     * Below this number of versions, the variations are always stored as a plain array.
+     */
+    private static final int COMPACT_MIN_SIZE = 16;
+    /**
+     * Variations are sparse if the node is present in at most one version out of this number.
+     */
+    private static final int SPARSE_RATIO = 4;
+
+    private final Map<ByteBuffer, byte[]> sharedIndices = new HashMap<>();
+    private final Map<LongBuffer, long[]> sharedBitmaps = new HashMap<>();
+
+    /**
+     * Creates the variations for a node.
+     *
+     * @param <T>        the type of node
+     * @param variations the variations, one per compared version, {@code null} where the node is absent
+     * @return the variations
+     */
+    public <T> Variations<T> create(List<T> variations) {
+        return create(variations, null);
+    }
+
+    /**
+     * Creates the variations for a node, compared using an equivalence.
+     * <p/>
+     * The variations are stored according to their {@link Object#equals(Object)} method, but analyzed according to the
+     * equivalence.
+     *
+     * @param <T>         the type of node
+     * @param variations  the variations, one per compared version, {@code null} where the node is absent
+     * @param equivalence the function giving the key variations are compared by, or {@code null} to compare the
+     *                    variations themselves
+     * @return the variations
+     * @see Variations#setEquivalence(Function)
+     */
+    public <T> Variations<T> create(List<T> variations, Function<? super T, ?> equivalence) {
+        int size = variations.size();
+        int[] classes = new int[size];
+        Object[] representatives = new Object[size];
+        int count = Variations.classify(variations, null, classes, representatives);
+
+        // Equal variations have equal keys, the classes can only merge if there are several
+        int[] equivalenceClasses = classes;
+        int equivalenceCount = count;
+        if (equivalence != null && count > 1) {
+            equivalenceClasses = new int[size];
+            equivalenceCount = Variations.classify(variations, equivalence, equivalenceClasses, new Object[size]);
+        }
+
+        int present = 0;
+        for (int cls : classes) {
+            if (cls >= 0) {
+                present++;
+            }
+        }
+
+        if (size >= COMPACT_MIN_SIZE && present * SPARSE_RATIO <= size) {
+            return createSparse(variations, equivalence, equivalenceClasses, equivalenceCount, present);
+        }
+        // A dictionary costs a reference per distinct variation; a plain array, a reference per version
+        if (size >= COMPACT_MIN_SIZE && count * 2 <= size) {
+            Variations<T> result = new DictionaryVariations<>(Arrays.copyOf(representatives, count),
+                    share(sharedIndices, DictionaryVariations.encodeIndices(classes, count)), present);
+            if (equivalence != null) {
+                result.setEquivalence(equivalence);
+                result.setAnalysis(equivalenceClasses, equivalenceCount);
+            }
+            return result;
+        }
+
+        Variations<T> result = new Variations<>(variations);
+        result.setEquivalence(equivalence);
+        result.setAnalysis(equivalenceClasses, equivalenceCount);
+        return result;
+    }
+
+    private <T> Variations<T> createSparse(List<T> variations, Function<? super T, ?> equivalence, int[] classes,
+                                           int classCount, int present) {
+        int size = classes.length;
+        long[] bitmap = new long[SparseVariations.wordCount(size)];
+        Object[] values = new Object[present];
+        int[] packedClasses = new int[present];
+        int v = 0;
+        for (int i = 0; i < size; i++) {
+            if (classes[i] >= 0) {
+                bitmap[i >>> SparseVariations.WORD_SHIFT] |= 1L << i;
+                packedClasses[v] = classes[i];
+                values[v++] = variations.get(i);
+            }
+        }
+        SparseVariations<T> result = new SparseVariations<>(share(sharedBitmaps, bitmap), values, size);
+        result.setEquivalence(equivalence);
+        result.setClasses(packedClasses, classCount);
+        return result;
+    }
+
+    private static byte[] share(Map<ByteBuffer, byte[]> shared, byte[] array) {
+        byte[] existing = shared.putIfAbsent(ByteBuffer.wrap(array), array);
+        return existing == null ? array : existing;
+    }
+
+    private static long[] share(Map<LongBuffer, long[]> shared, long[] array) {
+        long[] existing = shared.putIfAbsent(LongBuffer.wrap(array), array);
+        return existing == null ? array : existing;
+    }
+
+    /**
+     * Returns the number of distinct index arrays built so far.
+     *
+     * @return the number of shared index arrays
+     */
+    public int getSharedIndexCount() {
+        return sharedIndices.size();
+    }
+
+    /**
+     * Returns the number of distinct presence bitmaps built so far.
+     *
+     * @return the number of shared bitmaps
+     */
+    public int getSharedBitmapCount() {
+        return sharedBitmaps.size();
+    }
+}
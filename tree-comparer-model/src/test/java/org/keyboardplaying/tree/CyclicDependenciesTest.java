@@ -28,6 +28,8 @@ import jdepend.framework.JavaPackage;
 
 /**
  * Ensures that there is no package dependency cycle.
+ * <p/>
+ * The classes of the module under test are analyzed, so that other modules may run this test by extending it.
  *
  * @author Cyrille Chopelet (https://keyboardplaying.org)
  * @see <a href="http://blog.mafr.de/2010/10/02/java-finding-package-cycles/">The inspirational blog post</a>
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link BreadthFirstIterator}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class BreadthFirstIteratorTest {
+
+    /**
+     * Tests the breadth-first order.
+     */
+    @Test
+    public void testOrder() {
+        /* Execute */
+        Iterator<Node<String>> iter = SampleTrees.sample().breadthFirstIterator();
+
+        /* Assert */
+        assertEquals(Arrays.asList("root", "a", "b", "a1", "a2", "b1"), SampleTrees.contents(iter));
+        assertFalse(iter.hasNext());
+    }
+
+    /**
+     * Tests the iteration on a single node.
+     */
+    @Test
+    public void testLeaf() {
+        assertEquals(Collections.singletonList("leaf"), SampleTrees.contents(new Node<>("leaf").breadthFirstIterator()));
+    }
+
+    /**
+     * Ensures a very deep tree does not overflow the stack.
+     */
+    @Test
+    public void testDeepTree() {
+        /* Prepare */
+        Iterator<Node<Integer>> iter = SampleTrees.chain(100000).breadthFirstIterator();
+
+        /* Execute */
+        int count = 0;
+        int first = -1;
+        while (iter.hasNext()) {
+            int content = iter.next().getContent();
+            if (count++ == 0) {
+                first = content;
+            }
+        }
+
+        /* Assert */
+        assertEquals(100000, count);
+        assertEquals(0, first);
+    }
+
+    /**
+     * Tests the {@link Iterator#next()} method once the iteration is over.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterEnd() {
+        Iterator<Node<String>> iter = new Node<>("leaf").breadthFirstIterator();
+        iter.next();
+        iter.next();
+    }
+
+    /**
+     * Tests the {@link Iterator#remove()} method.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemove() {
+        Iterator<Node<String>> iter = SampleTrees.sample().breadthFirstIterator();
+        iter.next();
+        iter.remove();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link DictionaryVariations}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class DictionaryVariationsTest {
+
+    /**
+     * Tests {@link DictionaryVariations#get(int)}, {@link DictionaryVariations#size()} and the iterator.
+     */
+    @Test
+    public void testGet() {
+        /* Prepare */
+        List<String> list = Arrays.asList("a", null, "b", "a", null);
+
+        /* Execute */
+        DictionaryVariations<String> v = new DictionaryVariations<>(list);
+
+        /* Assert */
+        assertEquals(5, v.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), v.get(i));
+        }
+        List<String> iterated = new ArrayList<>();
+        for (String s : v) {
+            iterated.add(s);
+        }
+        assertEquals(list, iterated);
+        assertEquals("Variations[a, null, b, a, null]", v.toString());
+
+        try {
+            v.get(5);
+            fail("An exception should have been thrown.");
+        } catch (IndexOutOfBoundsException e) {
+            // that's expected
+        }
+        Iterator<String> iter = v.iterator();
+        iter.next();
+        try {
+            iter.remove();
+            fail("An exception should have been thrown.");
+        } catch (UnsupportedOperationException e) {
+            // that's expected
+        }
+    }
+
+    /**
+     * Ensures dictionary-encoded variations equal the plain ones.
+     */
+    @Test
+    public void testEqualsAcrossEncodings() {
+        /* Prepare */
+        List<String> list = Arrays.asList("a", null, "b", "a");
+
+        /* Execute */
+        Variations<String> plain = new Variations<>(list);
+        Variations<String> dictionary = new DictionaryVariations<>(list);
+
+        /* Assert */
+        assertEquals(plain, dictionary);
+        assertEquals(dictionary, plain);
+        assertEquals(plain.hashCode(), dictionary.hashCode());
+        assertFalse(dictionary.equals(new Variations<>(Arrays.asList("a", null, "b", "b"))));
+        assertFalse(dictionary.equals(new Variations<>(Arrays.asList("a", null, "b"))));
+    }
+
+    /**
+     * Tests the analysis methods.
+     */
+    @Test
+    public void testAnalysis() {
+        /* Prepare */
+        List<String> list = Arrays.asList("a", null, "b", "a");
+
+        /* Execute */
+        DictionaryVariations<String> v = new DictionaryVariations<>(list);
+        Variations<String> plain = new Variations<>(list);
+
+        /* Assert */
+        assertFalse(v.isConstant());
+        assertTrue(v.isPresent(0));
+        assertFalse(v.isPresent(1));
+        assertEquals(2, v.getEquivalenceClassCount());
+        assertArrayEquals(plain.getSignature(), v.getSignature());
+        assertEquals(plain.getPresence(), v.getPresence());
+        assertEquals(-1, v.getEquivalenceClass(1));
+        assertEquals(1, v.getEquivalenceClass(2));
+
+        assertTrue(new DictionaryVariations<>(Arrays.asList("a", "a")).isConstant());
+        assertTrue(new DictionaryVariations<>(Arrays.<String> asList(null, null)).isConstant());
+        assertFalse(new DictionaryVariations<>(Arrays.asList("a", null)).isConstant());
+    }
+
+    /**
+     * Tests {@link DictionaryVariations#set(int, Object)}.
+     */
+    @Test
+    public void testSet() {
+        /* Prepare */
+        DictionaryVariations<String> v = new DictionaryVariations<>(Arrays.asList("a", "a", "a"));
+        assertTrue(v.isConstant());
+
+        /* Execute */
+        v.set(1, "b");
+
+        /* Assert */
+        assertEquals(new Variations<>(Arrays.asList("a", "b", "a")), v);
+        assertFalse(v.isConstant());
+        assertArrayEquals(new int[] { 0, 1, 0 }, v.getSignature());
+
+        /* Execute */
+        v.set(0, null);
+        v.set(2, "b");
+
+        /* Assert */
+        assertEquals(new Variations<>(Arrays.asList(null, "b", "b")), v);
+        assertArrayEquals(new int[] { -1, 0, 0 }, v.getSignature());
+        assertEquals(1, v.getEquivalenceClassCount());
+    }
+
+    /**
+     * Ensures indices are widened when there are too many distinct variations for a single byte.
+     */
+    @Test
+    public void testWideIndices() {
+        /* Prepare */
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            list.add(i % 2 == 0 ? null : i);
+        }
+        list.add(1);
+
+        /* Execute */
+        DictionaryVariations<Integer> v = new DictionaryVariations<>(list);
+
+        /* Assert */
+        assertEquals(list.size(), v.size());
+        assertEquals(150, v.getEquivalenceClassCount());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), v.get(i));
+        }
+        assertEquals(0, v.getEquivalenceClass(300));
+        assertNull(v.get(0));
+
+        BitSet presence = v.getPresence();
+        assertEquals(150, presence.cardinality() - 1);
+        assertEquals(1, DictionaryVariations.widthFor(254));
+        assertEquals(2, DictionaryVariations.widthFor(255));
+        assertEquals(4, DictionaryVariations.widthFor(65535));
+    }
+}
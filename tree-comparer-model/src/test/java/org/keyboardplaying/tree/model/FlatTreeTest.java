@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link FlatTree}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class FlatTreeTest {
+
+    /**
+     * Tests the construction and the navigation.
+     */
+    @Test
+    public void testNavigation() {
+        FlatTree<String> tree = new FlatTree<>(2);
+        int root = tree.addRoot("root");
+        int child1 = tree.addChild(root, "child1");
+        int child2 = tree.addChild(root, "child2");
+        int child11 = tree.addChild(child1, "child11");
+
+        assertEquals(FlatTree.ROOT, root);
+        assertEquals(4, tree.size());
+        assertEquals("child11", tree.getContent(child11));
+        assertEquals(FlatTree.NONE, tree.getParent(root));
+        assertEquals(root, tree.getParent(child2));
+        assertEquals(child1, tree.getFirstChild(root));
+        assertEquals(child2, tree.getNextSibling(child1));
+        assertEquals(FlatTree.NONE, tree.getNextSibling(child2));
+        assertTrue(tree.isLeaf(child2));
+        assertFalse(tree.isLeaf(child1));
+        assertEquals(2, tree.getChildCount(root));
+        assertArrayEquals(new int[] {child1, child2}, tree.getChildren(root));
+
+        // Adding after trimming
+        tree.trimToSize();
+        int child3 = tree.addChild(root, "child3");
+        assertArrayEquals(new int[] {child1, child2, child3}, tree.getChildren(root));
+    }
+
+    /**
+     * Ensures a tree cannot have two roots.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSecondRoot() {
+        FlatTree<String> tree = new FlatTree<>();
+        tree.addRoot("root");
+        tree.addRoot("root");
+    }
+
+    /**
+     * Ensures unknown indices are rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUnknownIndex() {
+        new FlatTree<String>().getContent(0);
+    }
+
+    /**
+     * Tests the conversions from and to {@link Node}.
+     */
+    @Test
+    public void testNodeAdapters() {
+        Node<String> root = new Node<>("A");
+        Node<String> a1 = new Node<>("A1");
+        a1.setChildren(Arrays.asList(new Node<>("A11"), new Node<>("A12")));
+        root.setChildren(Arrays.asList(a1, new Node<>("A2")));
+
+        FlatTree<String> tree = FlatTree.fromNode(root);
+        assertEquals(5, tree.size());
+        // pre-order layout
+        assertEquals("A", tree.getContent(0));
+        assertEquals("A1", tree.getContent(1));
+        assertEquals("A11", tree.getContent(2));
+        assertEquals("A12", tree.getContent(3));
+        assertEquals("A2", tree.getContent(4));
+        assertArrayEquals(new int[] {1, 4}, tree.getChildren(0));
+
+        Node<String> copy = tree.toNode();
+        assertEquals("A", copy.getContent());
+        assertEquals(2, copy.getChildren().size());
+        assertEquals("A1", copy.getChildren().get(0).getContent());
+        assertEquals("A12", copy.getChildren().get(0).getChildren().get(1).getContent());
+        assertEquals("A2", copy.getChildren().get(1).getContent());
+
+        assertNull(new FlatTree<String>().toNode());
+    }
+
+    /**
+     * Ensures nodes with many children are copied with the right parents.
+     */
+    @Test
+    public void testWideTree() {
+        Node<Integer> root = new Node<>(-1);
+        for (int i = 0; i < 100; i++) {
+            Node<Integer> child = new Node<>(i);
+            child.addChild(new Node<>(i));
+            root.addChild(child);
+        }
+
+        FlatTree<Integer> tree = FlatTree.fromNode(root);
+        assertEquals(201, tree.size());
+        assertEquals(100, tree.getChildren(0).length);
+        for (int i = 0; i < 100; i++) {
+            int child = tree.getChildren(0)[i];
+            assertEquals(0, tree.getParent(child));
+            assertEquals(child, tree.getParent(tree.getChildren(child)[0]));
+            assertEquals(Integer.valueOf(i), tree.getContent(tree.getChildren(child)[0]));
+        }
+        assertTrue(root.subtreeEquals(tree.toNode()));
+    }
+
+    /**
+     * Ensures deep trees can be converted without overflowing the stack.
+     */
+    @Test
+    public void testDeepTree() {
+        FlatTree<Integer> tree = new FlatTree<>();
+        int node = tree.addRoot(0);
+        for (int i = 1; i < 100000; i++) {
+            node = tree.addChild(node, i);
+        }
+
+        FlatTree<Integer> copy = FlatTree.fromNode(tree.toNode());
+        assertEquals(100000, copy.size());
+        assertEquals(Integer.valueOf(99999), copy.getContent(99999));
+        assertEquals(99998, copy.getParent(99999));
+    }
+}
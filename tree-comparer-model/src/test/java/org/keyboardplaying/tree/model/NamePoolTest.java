@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link NamePool}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class NamePoolTest {
+
+    /**
+     * Ensures equal names are the same instance once pooled.
+     */
+    @Test
+    public void testIntern() {
+        /* Prepare */
+        NamePool pool = new NamePool();
+        String name1 = new String("readme.txt");
+        String name2 = new String("readme.txt");
+        assertNotSame(name1, name2);
+
+        /* Execute & Assert */
+        assertSame(name1, pool.intern(name1));
+        assertSame(name1, pool.intern(name2));
+        assertEquals(1, pool.size());
+        pool.intern("other");
+        assertEquals(2, pool.size());
+    }
+
+    /**
+     * Ensures concurrent threads get the same instance.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        /* Prepare */
+        NamePool pool = new NamePool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String[]>> futures = new ArrayList<>();
+
+        /* Execute */
+        try {
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    String[] interned = new String[1000];
+                    for (int i = 0; i < interned.length; i++) {
+                        interned[i] = pool.intern(new String("name" + i));
+                    }
+                    return interned;
+                }));
+            }
+
+            /* Assert */
+            String[] reference = futures.get(0).get();
+            for (Future<String[]> future : futures) {
+                String[] interned = future.get();
+                for (int i = 0; i < interned.length; i++) {
+                    assertSame(reference[i], interned[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ensures null names are rejected.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testNullName() {
+        new NamePool().intern(null);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link NodeSpliterator}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class NodeSpliteratorTest {
+
+    /**
+     * Ensures a sequential stream returns the nodes in pre-order.
+     */
+    @Test
+    public void testSequentialStream() {
+        /* Execute */
+        List<String> contents = SampleTrees.sample().stream().map(Node::getContent).collect(Collectors.toList());
+
+        /* Assert */
+        assertEquals(Arrays.asList("root", "a", "a1", "a2", "b", "b1"), contents);
+    }
+
+    /**
+     * Ensures splitting preserves the encounter order.
+     */
+    @Test
+    public void testSplit() {
+        /* Prepare */
+        Spliterator<Node<String>> suffix = SampleTrees.sample().spliterator();
+
+        /* Execute */
+        Spliterator<Node<String>> prefix = suffix.trySplit();
+
+        /* Assert */
+        assertNotNull(prefix);
+        assertTrue(prefix.estimateSize() < Long.MAX_VALUE);
+        List<String> contents = new ArrayList<>();
+        prefix.forEachRemaining(n -> contents.add(n.getContent()));
+        assertEquals(Arrays.asList("root", "a", "a1", "a2"), contents);
+        contents.clear();
+        suffix.forEachRemaining(n -> contents.add(n.getContent()));
+        assertEquals(Arrays.asList("b", "b1"), contents);
+    }
+
+    /**
+     * Ensures a root with a single child can be split, as can a prefix made of a node and a single subtree.
+     */
+    @Test
+    public void testSplitSingleChild() {
+        /* Prepare */
+        Node<String> root = new Node<>("root");
+        root.addChild(SampleTrees.sample());
+        Spliterator<Node<String>> suffix = root.spliterator();
+        List<String> contents = new ArrayList<>();
+
+        /* Execute */
+        Spliterator<Node<String>> first = suffix.trySplit();
+        Spliterator<Node<String>> second = suffix.trySplit();
+        Spliterator<Node<String>> prefix = second.trySplit();
+
+        /* Assert */
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(prefix);
+        for (Spliterator<Node<String>> part : Arrays.asList(first, prefix, second, suffix)) {
+            part.forEachRemaining(n -> contents.add(n.getContent()));
+        }
+        assertEquals(Arrays.asList("root", "root", "a", "a1", "a2", "b", "b1"), contents);
+    }
+
+    /**
+     * Ensures a parallel stream over a chain of single children is spread across several threads.
+     */
+    @Test
+    public void testParallelSingleChild() {
+        /* Prepare */
+        Node<Integer> root = new Node<>(0);
+        Node<Integer> src = new Node<>(0);
+        root.addChild(src);
+        for (int i = 0; i < 1000; i++) {
+            src.addChild(new Node<>(i));
+        }
+        Spliterator<Node<Integer>> spliterator = root.spliterator();
+
+        /* Execute */
+        int splits = 0;
+        while (spliterator.trySplit() != null && splits < 10) {
+            splits++;
+        }
+
+        /* Assert */
+        assertEquals(10, splits);
+    }
+
+    /**
+     * Ensures a leaf cannot be split.
+     */
+    @Test
+    public void testSplitLeaf() {
+        /* Prepare */
+        Spliterator<Node<String>> spliterator = new Node<>("leaf").spliterator();
+
+        /* Execute & Assert */
+        assertNull(spliterator.trySplit());
+        assertTrue(spliterator.tryAdvance(n -> assertEquals("leaf", n.getContent())));
+        assertTrue(!spliterator.tryAdvance(n -> assertEquals("leaf", n.getContent())));
+    }
+
+    /**
+     * Ensures a parallel stream covers all nodes, in order when required.
+     */
+    @Test
+    public void testParallelStream() {
+        /* Prepare */
+        Node<Integer> root = new Node<>(0);
+        int expected = 1;
+        for (int i = 0; i < 100; i++) {
+            Node<Integer> child = new Node<>(expected++);
+            for (int j = 0; j < 100; j++) {
+                child.addChild(new Node<>(expected++));
+            }
+            root.addChild(child);
+        }
+
+        /* Execute */
+        long sum = root.stream().parallel().mapToLong(Node::getContent).sum();
+        List<Integer> ordered = root.stream().parallel().map(Node::getContent).collect(Collectors.toList());
+
+        /* Assert */
+        assertEquals((long) expected * (expected - 1) / 2, sum);
+        assertEquals(expected, ordered.size());
+        for (int i = 0; i < expected; i++) {
+            assertEquals(i, ordered.get(i).intValue());
+        }
+    }
+
+    /**
+     * Ensures a very deep tree can be streamed.
+     */
+    @Test
+    public void testDeepTree() {
+        assertEquals(100000, SampleTrees.chain(100000).stream().parallel().count());
+    }
+}
@@ -20,9 +20,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -79,6 +82,49 @@ public class NodeTest {
         assertEquals(2, root.getChildren().size());
     }
 
+    /**
+     * Ensures the children are exposed without being copied, and that the supplied list is copied when setting them.
+     */
+    @Test
+    public void testChildrenAccess() {
+        Node<String> root = new Node<>("root");
+        Node<String> leaf = new Node<>("leaf");
+        assertSame(root.getChildren(), leaf.getChildren());
+
+        List<Node<String>> children = new ArrayList<>(Arrays.asList(new Node<>("child1"), new Node<>("child2")));
+        root.setChildren(children);
+        assertSame(root.getChildren(), root.getChildren());
+
+        children.add(new Node<>("child3"));
+        assertEquals(2, root.getChildren().size());
+    }
+
+    /**
+     * Ensures the children list cannot be modified directly.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiableChildren() {
+        Node<String> root = new Node<>("root");
+        root.addChild(new Node<>("child"));
+        root.getChildren().clear();
+    }
+
+    /**
+     * Ensures setting a null child fails and leaves the previous children untouched.
+     */
+    @Test
+    public void testSetNullChild() {
+        Node<String> root = new Node<>("root");
+        root.addChild(new Node<>("child"));
+        try {
+            root.setChildren(Arrays.asList(new Node<>("child1"), null));
+            fail("An exception should have been thrown.");
+        } catch (NullPointerException e) {
+            // that's expected
+        }
+        assertEquals("child", root.getChildren().get(0).getContent());
+    }
+
     /**
      * Ensures adding a null child fails.
      */
@@ -103,4 +149,83 @@ public class NodeTest {
         /* Hashcode */
         assertTrue(node1.hashCode() == node1.hashCode());
     }
+
+    private static Node<String> sampleTree(String leaf) {
+        Node<String> root = new Node<>("root");
+        Node<String> child = new Node<>("child");
+        child.addChild(new Node<>(leaf));
+        root.addChild(child);
+        root.addChild(new Node<>("other"));
+        return root;
+    }
+
+    /**
+     * Tests {@link Node#subtreeEquals(Node)}.
+     */
+    @Test
+    public void testSubtreeEquals() {
+        /* Prepare */
+        Node<String> tree1 = sampleTree("leaf");
+        Node<String> tree2 = sampleTree("leaf");
+        Node<String> tree3 = sampleTree("fig");
+
+        /* Assert */
+        assertTrue(tree1.subtreeEquals(tree2));
+        assertTrue(tree1.subtreeEquals(tree1));
+        assertFalse(tree1.subtreeEquals(tree3));
+        assertFalse(tree1.subtreeEquals(null));
+        // Content equality is not enough
+        assertTrue(tree1.equals(tree3));
+        assertFalse(new Node<>("root").subtreeEquals(tree1));
+
+        // Order matters
+        Node<String> swapped = new Node<>("root");
+        swapped.addChild(new Node<>("other"));
+        swapped.addChild(tree1.getChildren().get(0));
+        assertFalse(tree1.subtreeEquals(swapped));
+    }
+
+    /**
+     * Ensures changing a grandchild is seen when comparing subtrees.
+     */
+    @Test
+    public void testSubtreeEqualsAfterChange() {
+        /* Prepare */
+        Node<String> tree1 = sampleTree("leaf");
+        Node<String> tree2 = sampleTree("leaf");
+        tree2.getChildren().get(0).getChildren().get(0).addChild(new Node<>("new"));
+
+        /* Execute */
+        boolean before = tree1.subtreeEquals(tree2);
+        tree1.getChildren().get(0).getChildren().get(0).addChild(new Node<>("new"));
+
+        /* Assert */
+        assertFalse(before);
+        assertTrue(tree1.subtreeEquals(tree2));
+        assertFalse(tree1.subtreeEquals(sampleTree("leaf")));
+    }
+
+    /**
+     * Ensures comparing very deep subtrees does not overflow the stack.
+     */
+    @Test
+    public void testDeepSubtreeEquals() {
+        /* Prepare */
+        Node<Integer> root1 = new Node<>(0);
+        Node<Integer> root2 = new Node<>(0);
+        Node<Integer> current1 = root1;
+        Node<Integer> current2 = root2;
+        for (int i = 1; i < 100000; i++) {
+            Node<Integer> next1 = new Node<>(i);
+            Node<Integer> next2 = new Node<>(i);
+            current1.addChild(next1);
+            current2.addChild(next2);
+            current1 = next1;
+            current2 = next2;
+        }
+
+        /* Execute & Assert */
+        assertTrue(root1.subtreeEquals(root2));
+        assertFalse(root1.getChildren().get(0).subtreeEquals(new Node<>(1)));
+    }
 }
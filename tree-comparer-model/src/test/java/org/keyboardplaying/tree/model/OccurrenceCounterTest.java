@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link OccurrenceCounter}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class OccurrenceCounterTest {
+
+    /**
+     * Ensures each key is counted separately, starting from {@code 0}.
+     */
+    @Test
+    public void testNext() {
+        /* Prepare */
+        OccurrenceCounter counter = new OccurrenceCounter();
+
+        /* Execute & Assert */
+        assertEquals(0, counter.next("item"));
+        assertEquals(0, counter.next("other"));
+        assertEquals(1, counter.next("item"));
+        assertEquals(2, counter.next(new String("item")));
+        assertEquals(1, counter.next("other"));
+    }
+}
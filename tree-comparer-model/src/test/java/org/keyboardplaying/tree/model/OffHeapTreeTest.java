@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link OffHeapTree}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class OffHeapTreeTest {
+
+    /**
+     * Tests the conversions from and to {@link Node}.
+     */
+    @Test
+    public void testConversions() {
+        /* Prepare */
+        Node<String> sample = SampleTrees.sample();
+
+        /* Execute */
+        OffHeapTree<String> tree = OffHeapTree.fromNode(sample, new StringCodec());
+
+        /* Assert */
+        assertEquals(6, tree.size());
+        assertEquals("root", tree.getContent(OffHeapTree.ROOT));
+        assertEquals(OffHeapTree.NONE, tree.getParent(OffHeapTree.ROOT));
+        int a = tree.getFirstChild(OffHeapTree.ROOT);
+        assertEquals("a", tree.getContent(a));
+        assertEquals("b", tree.getContent(tree.getNextSibling(a)));
+        assertTrue(tree.isLeaf(tree.getFirstChild(a)));
+        assertTrue(sample.subtreeEquals(tree.toNode()));
+        assertTrue(tree.getAllocatedBytes() >= OffHeapTree.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Ensures nodes with many children are copied with the right parents.
+     */
+    @Test
+    public void testWideTree() {
+        /* Prepare */
+        Node<String> root = new Node<>("root");
+        for (int i = 0; i < 100; i++) {
+            Node<String> child = new Node<>("child" + i);
+            child.addChild(new Node<>("leaf" + i));
+            root.addChild(child);
+        }
+
+        /* Execute */
+        OffHeapTree<String> tree = OffHeapTree.fromNode(root, new StringCodec());
+
+        /* Assert */
+        assertEquals(201, tree.size());
+        int child = tree.getFirstChild(OffHeapTree.ROOT);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(OffHeapTree.ROOT, tree.getParent(child));
+            assertEquals("leaf" + i, tree.getContent(tree.getFirstChild(child)));
+            assertEquals(child, tree.getParent(tree.getFirstChild(child)));
+            child = tree.getNextSibling(child);
+        }
+        assertEquals(OffHeapTree.NONE, child);
+        assertTrue(root.subtreeEquals(tree.toNode()));
+    }
+
+    /**
+     * Tests the navigation with a cursor.
+     */
+    @Test
+    public void testCursor() {
+        /* Prepare */
+        OffHeapTree<String> tree = OffHeapTree.fromNode(SampleTrees.sample(), new StringCodec());
+        OffHeapTree<String>.Cursor cursor = tree.cursor();
+
+        /* Execute & Assert */
+        assertEquals("root", cursor.getContent());
+        assertFalse(cursor.toParent());
+        assertFalse(cursor.toNextSibling());
+        assertTrue(cursor.toFirstChild());
+        assertEquals("a", cursor.getContent());
+        assertTrue(cursor.toNextSibling());
+        assertEquals("b", cursor.getContent());
+        assertTrue(cursor.toFirstChild());
+        assertEquals("b1", cursor.getContent());
+        assertTrue(cursor.isLeaf());
+        assertFalse(cursor.toFirstChild());
+        assertTrue(cursor.toParent());
+        assertTrue(cursor.toParent());
+        assertEquals(OffHeapTree.ROOT, cursor.getIndex());
+        cursor.moveTo(2);
+        assertEquals("a1", cursor.getContent());
+    }
+
+    /**
+     * Ensures records and contents spanning several chunks are read back.
+     */
+    @Test
+    public void testSmallChunks() {
+        /* Prepare */
+        OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec(), 64);
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            large.append("large");
+        }
+
+        /* Execute */
+        int root = tree.addRoot("root");
+        for (int i = 0; i < 50; i++) {
+            tree.addChild(root, "child" + i);
+        }
+        int big = tree.addChild(1, large.toString());
+
+        /* Assert */
+        assertEquals(52, tree.size());
+        assertEquals(large.toString(), tree.getContent(big));
+        int child = tree.getFirstChild(root);
+        for (int i = 0; i < 50; i++) {
+            assertEquals("child" + i, tree.getContent(child));
+            child = tree.getNextSibling(child);
+        }
+        assertEquals(OffHeapTree.NONE, child);
+        assertEquals(big, tree.getFirstChild(1));
+    }
+
+    /**
+     * Ensures a tree converted from {@link Node} uses the supplied chunk size.
+     */
+    @Test
+    public void testConversionChunkSize() {
+        /* Execute */
+        OffHeapTree<String> tree = OffHeapTree.fromNode(SampleTrees.sample(), new StringCodec(), 64);
+
+        /* Assert */
+        assertTrue(SampleTrees.sample().subtreeEquals(tree.toNode()));
+        assertTrue(tree.getAllocatedBytes() < OffHeapTree.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Ensures closing a tree releases its chunks and leaves it empty.
+     */
+    @Test
+    public void testClose() {
+        /* Prepare */
+        OffHeapTree<String> tree = OffHeapTree.fromNode(SampleTrees.sample(), new StringCodec());
+
+        /* Execute */
+        tree.close();
+
+        /* Assert */
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.getAllocatedBytes());
+        assertNull(tree.toNode());
+        tree.addRoot("root");
+        assertEquals("root", tree.getContent(OffHeapTree.ROOT));
+    }
+
+    /**
+     * Tests a custom codec.
+     */
+    @Test
+    public void testCodec() {
+        /* Prepare */
+        ContentCodec<Long> codec = new ContentCodec<Long>() {
+            @Override
+            public byte[] encode(Long content) {
+                return ByteBuffer.allocate(8).putLong(content).array();
+            }
+
+            @Override
+            public Long decode(ByteBuffer buffer, int offset, int length) {
+                return buffer.getLong(offset);
+            }
+        };
+        OffHeapTree<Long> tree = new OffHeapTree<>(codec);
+
+        /* Execute */
+        tree.addChild(tree.addRoot(1L), Long.MAX_VALUE);
+
+        /* Assert */
+        assertEquals(Long.valueOf(Long.MAX_VALUE), tree.getContent(1));
+    }
+
+    /**
+     * Ensures an empty tree is handled.
+     */
+    @Test
+    public void testEmptyTree() {
+        OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec());
+        assertEquals(0, tree.size());
+        assertNull(tree.toNode());
+        assertEquals(0, tree.getAllocatedBytes());
+    }
+
+    /**
+     * Ensures a second root is rejected.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSecondRoot() {
+        OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec());
+        tree.addRoot("root");
+        tree.addRoot("root");
+    }
+
+    /**
+     * Ensures invalid indices are rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidIndex() {
+        OffHeapTree<String> tree = OffHeapTree.fromNode(SampleTrees.sample(), new StringCodec());
+        tree.getContent(6);
+    }
+
+    /**
+     * Ensures chunks too small to hold a node are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmallChunks() {
+        new OffHeapTree<>(new StringCodec(), 8);
+    }
+
+    /**
+     * Ensures a very deep tree can be converted.
+     */
+    @Test
+    public void testDeepTree() {
+        /* Execute */
+        OffHeapTree<Integer> tree = OffHeapTree.fromNode(SampleTrees.chain(100000), new ContentCodec<Integer>() {
+            @Override
+            public byte[] encode(Integer content) {
+                return ByteBuffer.allocate(4).putInt(content).array();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer buffer, int offset, int length) {
+                return buffer.getInt(offset);
+            }
+        });
+
+        /* Assert */
+        assertEquals(100000, tree.size());
+        assertTrue(SampleTrees.chain(100000).subtreeEquals(tree.toNode()));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link PersistentNode}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class PersistentNodeTest {
+
+    /**
+     * Tests the conversions from and to {@link Node}.
+     */
+    @Test
+    public void testConversions() {
+        /* Prepare */
+        Node<String> sample = SampleTrees.sample();
+
+        /* Execute */
+        PersistentNode<String> persistent = PersistentNode.fromNode(sample);
+        Node<String> back = persistent.toNode();
+
+        /* Assert */
+        assertEquals("root", persistent.getContent());
+        assertEquals(2, persistent.getChildCount());
+        assertEquals("a2", persistent.get(0, 1).getContent());
+        assertEquals("b1", persistent.get(1, 0).getContent());
+        assertTrue(sample.subtreeEquals(back));
+    }
+
+    /**
+     * Ensures an update copies the path to the updated node only.
+     */
+    @Test
+    public void testUpdateSharesSubtrees() {
+        /* Prepare */
+        PersistentNode<String> v1 = PersistentNode.fromNode(SampleTrees.sample());
+
+        /* Execute */
+        PersistentNode<String> v2 = v1.update(new int[] { 0, 1 }, n -> n.withContent("a2'"));
+
+        /* Assert */
+        // The original is untouched
+        assertEquals("a2", v1.get(0, 1).getContent());
+        assertEquals("a2'", v2.get(0, 1).getContent());
+        // Only the path was copied
+        assertSame(v1.get(1), v2.get(1));
+        assertSame(v1.get(0, 0), v2.get(0, 0));
+        assertFalse(v1.get(0) == v2.get(0));
+        assertNotEquals(v1, v2);
+
+        // Updating with the same instance does not copy anything
+        assertSame(v1, v1.update(new int[] { 1 }, n -> n));
+    }
+
+    /**
+     * Tests adding and removing children.
+     */
+    @Test
+    public void testChildren() {
+        /* Prepare */
+        PersistentNode<String> leaf = new PersistentNode<>("leaf");
+
+        /* Execute */
+        PersistentNode<String> parent = leaf.withChild(new PersistentNode<>("a")).withChild(new PersistentNode<>("b"));
+        PersistentNode<String> removed = parent.withoutChild(0);
+
+        /* Assert */
+        assertEquals(0, leaf.getChildCount());
+        assertEquals(2, parent.getChildCount());
+        assertEquals("b", parent.getChildren().get(1).getContent());
+        assertSame(parent.getChildren(), parent.getChildren());
+        assertEquals(1, removed.getChildCount());
+        assertEquals("b", removed.getChild(0).getContent());
+        assertEquals(new PersistentNode<>("leaf"), removed.withoutChild(0));
+        assertEquals(parent, new PersistentNode<>("leaf",
+                Arrays.asList(new PersistentNode<>("a"), new PersistentNode<>("b"))));
+    }
+
+    /**
+     * Ensures the children cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiableChildren() {
+        PersistentNode<String> parent = new PersistentNode<>("p", Collections.singletonList(new PersistentNode<>("c")));
+        parent.getChildren().clear();
+    }
+
+    /**
+     * Ensures null children are rejected.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testNullChild() {
+        new PersistentNode<>("p").withChild(null);
+    }
+
+    /**
+     * Tests {@link PersistentNode#equals(Object)} and {@link PersistentNode#hashCode()}.
+     */
+    @Test
+    public void testEqualsAndHashCode() {
+        /* Prepare */
+        PersistentNode<String> tree1 = PersistentNode.fromNode(SampleTrees.sample());
+        PersistentNode<String> tree2 = PersistentNode.fromNode(SampleTrees.sample());
+
+        /* Assert */
+        assertEquals(tree1, tree2);
+        assertEquals(tree1.hashCode(), tree2.hashCode());
+        assertNotEquals(tree1, tree1.withChild(new PersistentNode<>("c")));
+        assertNotEquals(tree1, tree1.withContent("other"));
+        assertNotEquals(tree1, "root");
+    }
+
+    /**
+     * Ensures very deep trees can be converted and compared.
+     */
+    @Test
+    public void testDeepTree() {
+        /* Execute */
+        PersistentNode<Integer> tree1 = PersistentNode.fromNode(SampleTrees.chain(100000));
+        PersistentNode<Integer> tree2 = PersistentNode.fromNode(SampleTrees.chain(100000));
+
+        /* Assert */
+        assertEquals(tree1, tree2);
+        AtomicInteger depth = new AtomicInteger();
+        Node<Integer> copy = tree1.toNode();
+        copy.preOrderIterator().forEachRemaining(n -> depth.incrementAndGet());
+        assertEquals(100000, depth.get());
+    }
+}
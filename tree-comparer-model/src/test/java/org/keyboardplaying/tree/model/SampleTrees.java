@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Trees shared by the tests of the traversals.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public final class SampleTrees {
+
+    private SampleTrees() {
+    }
+
+    /**
+     * Returns the following tree:
+     *
+     * <pre>
+     * root
+     * +- a
+     * |  +- a1
+     * |  +- a2
+     * +- b
+     *    +- b1
+     * </pre>
+     *
+     * @return the tree
+     */
+    public static Node<String> sample() {
+        Node<String> a = new Node<>("a");
+        a.addChild(new Node<>("a1"));
+        a.addChild(new Node<>("a2"));
+        Node<String> b = new Node<>("b");
+        b.addChild(new Node<>("b1"));
+        Node<String> root = new Node<>("root");
+        root.addChild(a);
+        root.addChild(b);
+        return root;
+    }
+
+    /**
+     * Returns a tree in which each node but the last has a single child.
+     *
+     * @param depth the number of nodes
+     * @return the root of the tree
+     */
+    public static Node<Integer> chain(int depth) {
+        Node<Integer> root = new Node<>(0);
+        Node<Integer> current = root;
+        for (int i = 1; i < depth; i++) {
+            Node<Integer> next = new Node<>(i);
+            current.addChild(next);
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * Returns the contents of the nodes returned by an iterator.
+     *
+     * @param <T>  the type of node content
+     * @param iter the iterator
+     * @return the contents, in order
+     */
+    public static <T> List<T> contents(Iterator<Node<T>> iter) {
+        List<T> contents = new ArrayList<>();
+        while (iter.hasNext()) {
+            contents.add(iter.next().getContent());
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SparseVariations}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class SparseVariationsTest {
+
+    private static List<String> sparseList() {
+        List<String> list = new ArrayList<>(Collections.<String> nCopies(150, null));
+        list.set(0, "a");
+        list.set(63, "b");
+        list.set(64, "a");
+        list.set(149, "c");
+        return list;
+    }
+
+    /**
+     * Tests {@link SparseVariations#get(int)}, {@link SparseVariations#size()} and the iterator.
+     */
+    @Test
+    public void testGet() {
+        /* Prepare */
+        List<String> list = sparseList();
+
+        /* Execute */
+        SparseVariations<String> v = new SparseVariations<>(list);
+
+        /* Assert */
+        assertEquals(150, v.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), v.get(i));
+        }
+        List<String> iterated = new ArrayList<>();
+        Iterator<String> iter = v.iterator();
+        while (iter.hasNext()) {
+            iterated.add(iter.next());
+        }
+        assertEquals(list, iterated);
+        try {
+            iter.next();
+            fail("An exception should have been thrown.");
+        } catch (NoSuchElementException e) {
+            // that's expected
+        }
+        try {
+            v.get(150);
+            fail("An exception should have been thrown.");
+        } catch (IndexOutOfBoundsException e) {
+            // that's expected
+        }
+    }
+
+    /**
+     * Ensures sparse variations equal the plain ones.
+     */
+    @Test
+    public void testEqualsAcrossEncodings() {
+        /* Prepare */
+        List<String> list = sparseList();
+
+        /* Execute */
+        Variations<String> plain = new Variations<>(list);
+        Variations<String> sparse = new SparseVariations<>(list);
+
+        /* Assert */
+        assertEquals(plain, sparse);
+        assertEquals(sparse, plain);
+        assertEquals(new DictionaryVariations<>(list), sparse);
+        assertEquals(plain.hashCode(), sparse.hashCode());
+        assertEquals(plain.toString(), sparse.toString());
+    }
+
+    /**
+     * Tests the analysis methods.
+     */
+    @Test
+    public void testAnalysis() {
+        /* Prepare */
+        List<String> list = sparseList();
+
+        /* Execute */
+        SparseVariations<String> v = new SparseVariations<>(list);
+        Variations<String> plain = new Variations<>(list);
+
+        /* Assert */
+        assertFalse(v.isConstant());
+        assertTrue(v.isPresent(63));
+        assertFalse(v.isPresent(62));
+        assertEquals(3, v.getEquivalenceClassCount());
+        assertEquals(plain.getPresence(), v.getPresence());
+        assertArrayEquals(plain.getSignature(), v.getSignature());
+        assertEquals(0, v.getEquivalenceClass(64));
+        assertEquals(2, v.getEquivalenceClass(149));
+        assertEquals(-1, v.getEquivalenceClass(100));
+
+        assertTrue(new SparseVariations<String>(70).isConstant());
+        assertTrue(new SparseVariations<>(Arrays.asList("a", "a")).isConstant());
+        assertFalse(new SparseVariations<>(Arrays.asList("a", null)).isConstant());
+    }
+
+    /**
+     * Tests {@link SparseVariations#set(int, Object)} and {@link Variations#add(Object)}.
+     */
+    @Test
+    public void testSet() {
+        /* Prepare */
+        SparseVariations<String> v = new SparseVariations<>(100);
+        assertEquals(new BitSet(), v.getPresence());
+
+        /* Execute */
+        v.set(70, "x");
+        v.set(3, "y");
+        v.add("z");
+
+        /* Assert */
+        List<String> expected = new ArrayList<>(Collections.<String> nCopies(100, null));
+        expected.set(0, "z");
+        expected.set(3, "y");
+        expected.set(70, "x");
+        assertEquals(new Variations<>(expected), v);
+        assertEquals(3, v.getEquivalenceClassCount());
+
+        /* Execute */
+        v.set(3, null);
+        v.set(70, "z");
+
+        /* Assert */
+        expected.set(3, null);
+        expected.set(70, "z");
+        assertEquals(new Variations<>(expected), v);
+        assertEquals(1, v.getEquivalenceClassCount());
+        assertNull(v.get(3));
+    }
+}
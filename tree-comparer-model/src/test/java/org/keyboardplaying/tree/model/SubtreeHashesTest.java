@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SubtreeHashes}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class SubtreeHashesTest {
+
+    /**
+     * Tests the hashes and the comparison of identical and different subtrees.
+     */
+    @Test
+    public void testHashes() {
+        /* Prepare */
+        Node<String> tree1 = SampleTrees.sample();
+        Node<String> tree2 = SampleTrees.sample();
+        Node<String> tree3 = SampleTrees.sample();
+        tree3.getChildren().get(1).addChild(new Node<>("b2"));
+
+        /* Execute */
+        SubtreeHashes<String> hashes1 = new SubtreeHashes<>(tree1);
+        SubtreeHashes<String> hashes2 = new SubtreeHashes<>(tree2);
+        SubtreeHashes<String> hashes3 = new SubtreeHashes<>(tree3);
+
+        /* Assert */
+        assertEquals(6, hashes1.size());
+        assertEquals(hashes1.getHash(tree1), hashes2.getHash(tree2));
+        assertTrue(hashes1.identical(tree1, hashes2, tree2));
+        assertTrue(hashes1.identical(tree1, hashes1, tree1));
+        assertNotEquals(hashes1.getHash(tree1), hashes3.getHash(tree3));
+        assertFalse(hashes1.identical(tree1, hashes3, tree3));
+        // The first branch is the same in both trees
+        assertTrue(hashes1.identical(tree1.getChildren().get(0), hashes3, tree3.getChildren().get(0)));
+        // Siblings
+        assertNotEquals(hashes1.getHash(tree1.getChildren().get(0)), hashes1.getHash(tree1.getChildren().get(1)));
+    }
+
+    /**
+     * Ensures the hashes are a snapshot of the tree when it was hashed.
+     */
+    @Test
+    public void testSnapshot() {
+        /* Prepare */
+        Node<String> tree1 = SampleTrees.sample();
+        Node<String> tree2 = SampleTrees.sample();
+        SubtreeHashes<String> before = new SubtreeHashes<>(tree1);
+        Node<String> added = new Node<>("new");
+
+        /* Execute */
+        tree1.getChildren().get(0).getChildren().get(0).addChild(added);
+        SubtreeHashes<String> after = new SubtreeHashes<>(tree1);
+
+        /* Assert */
+        assertFalse(before.contains(added));
+        assertTrue(after.contains(added));
+        assertEquals(before.getHash(tree1), new SubtreeHashes<>(tree2).getHash(tree2));
+        assertNotEquals(before.getHash(tree1), after.getHash(tree1));
+        assertFalse(after.identical(tree1, new SubtreeHashes<>(tree2), tree2));
+    }
+
+    /**
+     * Tests hashing through a key of the contents.
+     */
+    @Test
+    public void testKey() {
+        /* Prepare */
+        Node<String> lower = SampleTrees.sample();
+        Node<String> upper = new Node<>("ROOT");
+        upper.addChild(new Node<>("A"));
+        upper.getChildren().get(0).addChild(new Node<>("A1"));
+        upper.getChildren().get(0).addChild(new Node<>("A2"));
+        upper.addChild(new Node<>("B"));
+        upper.getChildren().get(1).addChild(new Node<>("B1"));
+
+        /* Execute */
+        SubtreeHashes<String> lowerHashes = new SubtreeHashes<>(lower, s -> s.toLowerCase(Locale.ROOT));
+        SubtreeHashes<String> upperHashes = new SubtreeHashes<>(upper, s -> s.toLowerCase(Locale.ROOT));
+
+        /* Assert */
+        assertTrue(lowerHashes.identical(lower, upperHashes, upper));
+        assertFalse(new SubtreeHashes<>(lower).identical(lower, new SubtreeHashes<>(upper), upper));
+    }
+
+    /**
+     * Ensures nodes which were not hashed are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownNode() {
+        new SubtreeHashes<>(SampleTrees.sample()).getHash(new Node<>("root"));
+    }
+
+    /**
+     * Ensures very deep trees are hashed without overflowing the stack.
+     */
+    @Test
+    public void testDeepTree() {
+        /* Prepare */
+        Node<Integer> tree1 = SampleTrees.chain(100000);
+        Node<Integer> tree2 = SampleTrees.chain(100000);
+
+        /* Execute */
+        SubtreeHashes<Integer> hashes1 = new SubtreeHashes<>(tree1);
+        SubtreeHashes<Integer> hashes2 = new SubtreeHashes<>(tree2);
+
+        /* Assert */
+        assertEquals(100000, hashes1.size());
+        assertTrue(hashes1.identical(tree1, hashes2, tree2));
+        assertFalse(hashes1.identical(tree1.getChildren().get(0), hashes2, tree2));
+    }
+}
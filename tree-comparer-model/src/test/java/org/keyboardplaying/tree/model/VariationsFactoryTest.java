@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link VariationsFactory}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class VariationsFactoryTest {
+
+    /**
+     * Ensures few variations are stored as a plain array.
+     */
+    @Test
+    public void testFewVersions() {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        List<String> list = Arrays.asList("a", null, "a");
+
+        /* Execute */
+        Variations<String> v = factory.create(list);
+
+        /* Assert */
+        assertFalse(v instanceof DictionaryVariations);
+        assertEquals(new Variations<>(list), v);
+        assertArrayEquals(new int[] { 0, -1, 0 }, v.getSignature());
+        assertFalse(v.isConstant());
+    }
+
+    /**
+     * Ensures many versions with few distinct variations are dictionary-encoded, and share their indices.
+     *
+     * @throws ReflectiveOperationException if the indices cannot be read
+     */
+    @Test
+    public void testManyVersions() throws ReflectiveOperationException {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        List<String> first = new ArrayList<>(Collections.nCopies(200, "a"));
+        first.set(42, "b");
+        List<String> second = new ArrayList<>(Collections.nCopies(200, "c"));
+        second.set(42, "d");
+
+        /* Execute */
+        Variations<String> v1 = factory.create(first);
+        Variations<String> v2 = factory.create(second);
+
+        /* Assert */
+        assertTrue(v1 instanceof DictionaryVariations);
+        assertTrue(v2 instanceof DictionaryVariations);
+        assertEquals(new Variations<>(first), v1);
+        assertEquals(new Variations<>(second), v2);
+        assertEquals(1, factory.getSharedIndexCount());
+
+        Field indices = DictionaryVariations.class.getDeclaredField("indices");
+        indices.setAccessible(true);
+        assertSame(indices.get(v1), indices.get(v2));
+    }
+
+    /**
+     * Ensures many distinct variations are stored as a plain array.
+     */
+    @Test
+    public void testManyDistinctVersions() {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+
+        /* Execute */
+        Variations<Integer> v = factory.create(list);
+
+        /* Assert */
+        assertFalse(v instanceof DictionaryVariations);
+        assertEquals(100, v.getEquivalenceClassCount());
+    }
+
+    /**
+     * Ensures modifying shared variations does not affect the others.
+     */
+    @Test
+    public void testSetDoesNotLeak() {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        Variations<String> v1 = factory.create(Collections.nCopies(20, "a"));
+        Variations<String> v2 = factory.create(Collections.nCopies(20, "b"));
+
+        /* Execute */
+        v1.set(3, "z");
+
+        /* Assert */
+        assertEquals("z", v1.get(3));
+        assertEquals(new Variations<>(Collections.nCopies(20, "b")), v2);
+        assertTrue(v2.isConstant());
+    }
+
+    /**
+     * Ensures variations present in few versions are sparse, and share their bitmaps.
+     */
+    @Test
+    public void testRarePresence() {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        List<String> first = new ArrayList<>(Collections.<String> nCopies(1000, null));
+        first.set(10, "a");
+        first.set(900, "b");
+        List<String> second = new ArrayList<>(Collections.<String> nCopies(1000, null));
+        second.set(10, "c");
+        second.set(900, "c");
+
+        /* Execute */
+        Variations<String> v1 = factory.create(first);
+        Variations<String> v2 = factory.create(second);
+
+        /* Assert */
+        assertTrue(v1 instanceof SparseVariations);
+        assertTrue(v2 instanceof SparseVariations);
+        assertEquals(new Variations<>(first), v1);
+        assertEquals(new Variations<>(second), v2);
+        assertEquals(1, factory.getSharedBitmapCount());
+        assertEquals(2, v1.getEquivalenceClassCount());
+        assertEquals(1, v2.getEquivalenceClassCount());
+    }
+
+    /**
+     * Ensures variations are analyzed using the equivalence, whatever their storage.
+     */
+    @Test
+    public void testEquivalence() {
+        /* Prepare */
+        VariationsFactory factory = new VariationsFactory();
+        List<String> few = Arrays.asList("a", "A", null);
+        List<String> many = new ArrayList<>(Collections.nCopies(100, "a"));
+        many.set(42, "A");
+        List<String> rare = new ArrayList<>(Collections.<String> nCopies(100, null));
+        rare.set(10, "a");
+        rare.set(90, "A");
+
+        /* Execute */
+        Variations<String> plain = factory.create(few, String::toLowerCase);
+        Variations<String> dictionary = factory.create(many, String::toLowerCase);
+        Variations<String> sparse = factory.create(rare, String::toLowerCase);
+
+        /* Assert */
+        assertArrayEquals(new int[] { 0, 0, -1 }, plain.getSignature());
+        assertEquals(new Variations<>(few), plain);
+
+        assertTrue(dictionary instanceof DictionaryVariations);
+        assertTrue(dictionary.isConstant());
+        assertEquals(0, dictionary.getEquivalenceClass(42));
+        assertEquals("A", dictionary.get(42));
+
+        assertTrue(sparse instanceof SparseVariations);
+        assertEquals(1, sparse.getEquivalenceClassCount());
+
+        // Setting a variation keeps the equivalence
+        dictionary.set(0, "b");
+        assertEquals(2, dictionary.getEquivalenceClassCount());
+        sparse.set(50, "B");
+        assertEquals(2, sparse.getEquivalenceClassCount());
+        assertFalse(factory.create(many).isConstant());
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.keyboardplaying.tree.model;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -24,6 +25,7 @@ import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import org.junit.Test;
@@ -122,6 +124,61 @@ public class VariationsTest {
         assertTrue(v.isConstant());
     }
 
+    /**
+     * Tests {@link Variations#isPresent(int)} and {@link Variations#getPresence()}.
+     */
+    @Test
+    public void testPresence() {
+        Variations<String> v = new Variations<>(Arrays.asList("hello", null, "world"));
+        assertTrue(v.isPresent(0));
+        assertFalse(v.isPresent(1));
+        assertTrue(v.isPresent(2));
+
+        BitSet presence = v.getPresence();
+        assertEquals(2, presence.cardinality());
+        // The returned bitmap is a copy
+        presence.clear();
+        assertTrue(v.isPresent(0));
+
+        // The analysis is invalidated on change
+        v.set(1, "hello");
+        assertTrue(v.isPresent(1));
+    }
+
+    /**
+     * Tests the equivalence classes and the signature.
+     */
+    @Test
+    public void testSignature() {
+        Variations<String> v = new Variations<>(Arrays.asList("B", "A", null, "B", "A"));
+        assertArrayEquals(new int[] {0, 1, -1, 0, 1}, v.getSignature());
+        assertEquals(2, v.getEquivalenceClassCount());
+        assertEquals(1, v.getEquivalenceClass(4));
+        assertEquals(-1, v.getEquivalenceClass(2));
+
+        v.set(2, "C");
+        assertArrayEquals(new int[] {0, 1, 2, 0, 1}, v.getSignature());
+        assertEquals(3, v.getEquivalenceClassCount());
+    }
+
+    /**
+     * Tests the signature when the classes are looked up by hash.
+     */
+    @Test
+    public void testSignatureWithManyVariations() {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(i % 10 == 0 ? null : "v" + i % 3);
+        }
+        Variations<String> v = new Variations<>(list);
+
+        assertEquals(3, v.getEquivalenceClassCount());
+        assertEquals(-1, v.getEquivalenceClass(0));
+        assertEquals(v.getEquivalenceClass(1), v.getEquivalenceClass(4));
+        assertEquals(90, v.getPresence().cardinality());
+        assertFalse(v.isConstant());
+    }
+
     /**
      * Tests {@link Variations#equals(Object)} and {@link Variations#hashCode()}.
      */
@@ -170,4 +227,26 @@ public class VariationsTest {
     public void testIterator() {
         assertTrue(new Variations<String>(2).iterator() instanceof VariationsIterator);
     }
+
+    /**
+     * Tests {@link Variations#getEquivalenceClasses()}.
+     */
+    @Test
+    public void testEquivalenceClasses() {
+        /* Prepare */
+        List<String> list = Arrays.asList("A", "B", "A", "B", null, "A");
+        BitSet a = new BitSet();
+        a.set(0);
+        a.set(2);
+        a.set(5);
+        BitSet b = new BitSet();
+        b.set(1);
+        b.set(3);
+
+        /* Execute & Assert */
+        assertEquals(Arrays.asList(a, b), new Variations<>(list).getEquivalenceClasses());
+        assertEquals(Arrays.asList(a, b), new DictionaryVariations<>(list).getEquivalenceClasses());
+        assertEquals(Arrays.asList(a, b), new SparseVariations<>(list).getEquivalenceClasses());
+        assertTrue(new Variations<String>(3).getEquivalenceClasses().isEmpty());
+    }
 }
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.xml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.OccurrenceCounter;
+import org.keyboardplaying.tree.xml.model.XmlElement;
+
+/**
+ * This class contains the algorithm to build a node from an XML document.
+ * <p/>
+ * The document is streamed with StAX and no DOM is ever built: besides the resulting tree, the memory used only grows
+ * with the depth of the document. Only elements become nodes; their attributes and text are part of their content,
+ * while comments and processing instructions are ignored. DTDs and external entities are not processed.
+ * <p/>
+ * By default, siblings are identified by their name only, and repeated elements are compared in the order of the
+ * document. Identity attributes, such as {@code id} or {@code name}, can be declared for all elements or for a given
+ * element, so that the elements with the same values are compared wherever they are among their siblings.
+ * <p/>
+ * The names are interned in a {@link NamePool}, so that the trees of all the compared documents share them.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class XmlNodeBuilder {
+
+    private static final String[] NONE = new String[0];
+
+    private final XMLInputFactory factory;
+
+    private NamePool namePool = NamePool.getShared();
+
+    private String[] defaultIdentity = NONE;
+    private final Map<String, String[]> identities = new HashMap<>();
+
+    /**
+     * Creates a new instance.
+     */
+    public XmlNodeBuilder() {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Sets the pool in which the names of elements and attributes are interned.
+     * <p/>
+     * By default, the {@link NamePool#getShared() shared pool} is used.
+     *
+     * @param namePool the pool to use
+     */
+    public void setNamePool(NamePool namePool) {
+        Objects.requireNonNull(namePool, "The name pool cannot be null.");
+        this.namePool = namePool;
+    }
+
+    /**
+     * Sets the attributes identifying elements among their siblings, for the elements without specific identity
+     * attributes.
+     *
+     * @param attributes the qualified names of the identity attributes
+     */
+    public void setDefaultIdentityAttributes(String... attributes) {
+        Objects.requireNonNull(attributes, "The attributes cannot be null.");
+        this.defaultIdentity = attributes.clone();
+    }
+
+    /**
+     * Sets the attributes identifying an element among its siblings.
+     *
+     * @param element    the qualified name of the element, as {@code {namespace}local} if it has a namespace
+     * @param attributes the qualified names of the identity attributes; none to identify the element by its name only
+     */
+    public void setIdentityAttributes(String element, String... attributes) {
+        Objects.requireNonNull(element, "The element cannot be null.");
+        Objects.requireNonNull(attributes, "The attributes cannot be null.");
+        identities.put(element, attributes.clone());
+    }
+
+    /**
+     * Builds the tree of an XML file.
+     *
+     * @param file the file to read
+     * @return the root element
+     * @throws IOException if the file cannot be read or is not a well-formed XML document
+     */
+    public Node<XmlElement> build(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return build(in);
+        }
+    }
+
+    /**
+     * Builds the tree of an XML document.
+     * <p/>
+     * The stream is not closed.
+     *
+     * @param in the stream to read the document from; its encoding is detected from the document
+     * @return the root element
+     * @throws IOException if the stream cannot be read or is not a well-formed XML document
+     */
+    public Node<XmlElement> build(InputStream in) throws IOException {
+        try {
+            return build(factory.createXMLStreamReader(in));
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse the XML document.", e);
+        }
+    }
+
+    /**
+     * Builds the tree of an XML document.
+     * <p/>
+     * The reader is not closed.
+     *
+     * @param reader the reader to read the document from
+     * @return the root element
+     * @throws IOException if the reader cannot be read or is not a well-formed XML document
+     */
+    public Node<XmlElement> build(Reader reader) throws IOException {
+        try {
+            return build(factory.createXMLStreamReader(reader));
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse the XML document.", e);
+        }
+    }
+
+    private Node<XmlElement> build(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            Node<XmlElement> root = null;
+            Deque<Frame> open = new ArrayDeque<>();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    open.push(startElement(reader, open.peek()));
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    Frame current = open.peek();
+                    // Whitespace before any text would be trimmed anyway
+                    if (current != null && (current.text != null || !reader.isWhiteSpace())) {
+                        if (current.text == null) {
+                            current.text = new StringBuilder();
+                        }
+                        current.text.append(reader.getTextCharacters(), reader.getTextStart(),
+                                reader.getTextLength());
+                    }
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    Node<XmlElement> node = open.pop().toNode();
+                    if (open.isEmpty()) {
+                        root = node;
+                    } else {
+                        open.peek().addChild(node);
+                    }
+                    break;
+
+                default:
+                    // Comments, processing instructions and the like are not compared
+                    break;
+                }
+            }
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private Frame startElement(XMLStreamReader reader, Frame parent) {
+        String name = namePool.intern(qualifiedName(reader.getNamespaceURI(), reader.getLocalName()));
+
+        int count = reader.getAttributeCount();
+        String[] attributes = count == 0 ? NONE : new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            String attribute = namePool.intern(qualifiedName(reader.getAttributeNamespace(i),
+                    reader.getAttributeLocalName(i)));
+            String value = reader.getAttributeValue(i);
+            // Insertion sort, elements seldom have many attributes
+            int j = i * 2;
+            while (j > 0 && attributes[j - 2].compareTo(attribute) > 0) {
+                attributes[j] = attributes[j - 2];
+                attributes[j + 1] = attributes[j - 1];
+                j -= 2;
+            }
+            attributes[j] = attribute;
+            attributes[j + 1] = value;
+        }
+
+        String key = key(name, attributes);
+        int occurrence = parent == null ? 0 : parent.occurrences.next(key);
+        return new Frame(name, attributes, key, occurrence, reader.getLocation().getLineNumber());
+    }
+
+    private String key(String name, String[] attributes) {
+        StringBuilder key = null;
+        for (String identity : identities.getOrDefault(name, defaultIdentity)) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(identity)) {
+                    key = key == null ? new StringBuilder(name).append('[') : key.append(',');
+                    key.append(identity).append('=').append(attributes[i + 1]);
+                }
+            }
+        }
+        return key == null ? name : key.append(']').toString();
+    }
+
+    private static String qualifiedName(String namespace, String localName) {
+        return namespace == null || namespace.isEmpty() ? localName : '{' + namespace + '}' + localName;
+    }
+
+    /**
+     * An element whose end has not been read yet.
+     */
+    private static final class Frame {
+
+        private final String name;
+        private final String[] attributes;
+        private final String key;
+        private final int occurrence;
+        private final int lineNumber;
+
+        private StringBuilder text;
+        private List<Node<XmlElement>> children;
+        private final OccurrenceCounter occurrences = new OccurrenceCounter();
+
+        Frame(String name, String[] attributes, String key, int occurrence, int lineNumber) {
+            this.name = name;
+            this.attributes = attributes;
+            this.key = key;
+            this.occurrence = occurrence;
+            this.lineNumber = lineNumber;
+        }
+
+        void addChild(Node<XmlElement> child) {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            children.add(child);
+        }
+
+        Node<XmlElement> toNode() {
+            String trimmed = text == null ? null : text.toString().trim();
+            Node<XmlElement> node = new Node<>(new XmlElement(name, attributes,
+                    trimmed == null || trimmed.isEmpty() ? null : trimmed, key, occurrence, lineNumber));
+            node.setChildren(children);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.xml.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.keyboardplaying.tree.model.Keyed;
+
+/**
+ * A representation of an XML element for comparison.
+ * <p/>
+ * Two elements are equal if they have the same name, attributes and text. Their identity, i.e. which element of a
+ * version is compared to which element of another version, is defined by their {@link #getKey() key} and
+ * {@link #getOccurrence() occurrence}.
+ * <p/>
+ * The attributes are stored as a flat array of names and values rather than as a map, to keep large documents
+ * compact.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class XmlElement implements Keyed {
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    /** The qualified name of the element, as {@code {namespace}local} if it has a namespace. */
+    private final String name;
+
+    /** The names and values of the attributes, sorted by name: name at even indices, value at odd ones. */
+    private final String[] attributes;
+
+    /** The text directly inside the element, trimmed. */
+    private final String text;
+
+    /** The identity of the element among its siblings. */
+    private final String key;
+
+    /** The number of previous siblings with the same key. */
+    private final int occurrence;
+
+    /** The line at which the element starts. */
+    private final int lineNumber;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param name       the qualified name of the element
+     * @param attributes the names and values of the attributes, sorted by name: name at even indices, value at odd
+     *                   ones; not copied
+     * @param text       the text directly inside the element, or {@code null} if there is none
+     * @param key        the identity of the element among its siblings
+     * @param occurrence the number of previous siblings with the same key
+     * @param lineNumber the line at which the element starts, or {@code -1} if unknown
+     */
+    public XmlElement(String name, String[] attributes, String text, String key, int occurrence, int lineNumber) {
+        Objects.requireNonNull(name, "The name cannot be null.");
+        Objects.requireNonNull(key, "The key cannot be null.");
+        this.name = name;
+        this.attributes = attributes == null || attributes.length == 0 ? NO_ATTRIBUTES : attributes;
+        this.text = text;
+        this.key = key;
+        this.occurrence = occurrence;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Returns the qualified name of this element.
+     *
+     * @return the name, as {@code {namespace}local} if the element has a namespace
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the value of an attribute.
+     *
+     * @param attribute the qualified name of the attribute
+     * @return the value of the attribute, or {@code null} if the element does not have it
+     */
+    public String getAttribute(String attribute) {
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (attributes[i].equals(attribute)) {
+                return attributes[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the attributes of this element.
+     *
+     * @return the values of the attributes, mapped by name, in the order of their names
+     */
+    public Map<String, String> getAttributes() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < attributes.length; i += 2) {
+            map.put(attributes[i], attributes[i + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns the text directly inside this element, i.e. not inside its children.
+     *
+     * @return the trimmed text, or {@code null} if there is none
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the identity of this element among its siblings, made of its name and the values of its identity
+     * attributes.
+     *
+     * @return the key
+     */
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the number of previous siblings with the same key, so that repeated elements are compared in the order
+     * of the document.
+     *
+     * @return the occurrence, {@code 0} for the first element with this key
+     */
+    @Override
+    public int getOccurrence() {
+        return occurrence;
+    }
+
+    /**
+     * Returns the line at which this element starts in its document.
+     *
+     * @return the line number, or {@code -1} if unknown
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * 31 + Arrays.hashCode(attributes)) * 31 + Objects.hashCode(text);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof XmlElement)) {
+            return false;
+        }
+        XmlElement other = (XmlElement) obj;
+        return name.equals(other.name) && Arrays.equals(attributes, other.attributes)
+                && Objects.equals(text, other.text);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return occurrence == 0 ? key : key + '#' + occurrence;
+    }
+}
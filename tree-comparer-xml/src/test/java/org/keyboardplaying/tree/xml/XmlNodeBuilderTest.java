@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.align.TreeAligner;
+import org.keyboardplaying.tree.model.NamePool;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.model.Variations;
+import org.keyboardplaying.tree.xml.comparator.XmlElementComparator;
+import org.keyboardplaying.tree.xml.model.XmlElement;
+
+/**
+ * Test class for {@link XmlNodeBuilder}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class XmlNodeBuilderTest {
+
+    private static Node<XmlElement> parse(XmlNodeBuilder builder, String xml) throws IOException {
+        return builder.build(new StringReader(xml));
+    }
+
+    /**
+     * Tests the elements built from a document.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testBuild() throws IOException {
+        /* Execute */
+        Node<XmlElement> root = parse(new XmlNodeBuilder(),
+                "<root b='2' a='1'>\n  <!-- comment -->\n  <item>one</item>\n  <item><![CDATA[two]]></item>\n"
+                        + "  <other/>\n  text\n</root>");
+
+        /* Assert */
+        XmlElement element = root.getContent();
+        assertEquals("root", element.getName());
+        assertEquals("1", element.getAttribute("a"));
+        assertNull(element.getAttribute("c"));
+        assertEquals("[a, b]", element.getAttributes().keySet().toString());
+        assertEquals("text", element.getText());
+        assertEquals(1, element.getLineNumber());
+
+        List<Node<XmlElement>> children = root.getChildren();
+        assertEquals(3, children.size());
+        assertEquals("one", children.get(0).getContent().getText());
+        assertEquals(0, children.get(0).getContent().getOccurrence());
+        assertEquals("two", children.get(1).getContent().getText());
+        assertEquals(1, children.get(1).getContent().getOccurrence());
+        assertEquals(3, children.get(0).getContent().getLineNumber());
+        assertNull(children.get(2).getContent().getText());
+        assertEquals(0, children.get(2).getContent().getOccurrence());
+        // Names are pooled
+        assertSame(children.get(0).getContent().getName(), children.get(1).getContent().getName());
+    }
+
+    /**
+     * Ensures documents built separately share their names when their builders share a pool.
+     *
+     * @throws IOException if the documents cannot be read
+     */
+    @Test
+    public void testNamePool() throws IOException {
+        /* Prepare */
+        NamePool pool = new NamePool();
+        XmlNodeBuilder builder1 = new XmlNodeBuilder();
+        builder1.setNamePool(pool);
+        XmlNodeBuilder builder2 = new XmlNodeBuilder();
+        builder2.setNamePool(pool);
+
+        /* Execute */
+        XmlElement element1 = parse(builder1, "<root><item a='1'/></root>").getChildren().get(0).getContent();
+        XmlElement element2 = parse(builder2, "<root><item a='2'/></root>").getChildren().get(0).getContent();
+
+        /* Assert */
+        assertSame(element1.getName(), element2.getName());
+        assertSame(element1.getAttributes().keySet().iterator().next(),
+                element2.getAttributes().keySet().iterator().next());
+        assertEquals(3, pool.size());
+    }
+
+    /**
+     * Tests the identity attributes.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testIdentity() throws IOException {
+        /* Prepare */
+        XmlNodeBuilder builder = new XmlNodeBuilder();
+        builder.setDefaultIdentityAttributes("id");
+        builder.setIdentityAttributes("bean", "name", "scope");
+        builder.setIdentityAttributes("item");
+
+        /* Execute */
+        Node<XmlElement> root = parse(builder, "<root id='r'><bean scope='s' name='n' id='i'/><bean/>"
+                + "<item id='x'/><item id='y'/><entry id='e'/></root>");
+
+        /* Assert */
+        assertEquals("root[id=r]", root.getContent().getKey());
+        List<Node<XmlElement>> children = root.getChildren();
+        assertEquals("bean[name=n,scope=s]", children.get(0).getContent().getKey());
+        assertEquals("bean", children.get(1).getContent().getKey());
+        assertEquals(0, children.get(1).getContent().getOccurrence());
+        assertEquals("item", children.get(3).getContent().getKey());
+        assertEquals(1, children.get(3).getContent().getOccurrence());
+        assertEquals("entry[id=e]", children.get(4).getContent().getKey());
+    }
+
+    /**
+     * Tests namespaces and the encoding detection.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testNamespaces() throws IOException {
+        /* Prepare */
+        byte[] xml = "<?xml version='1.0' encoding='UTF-8'?><p:root xmlns:p='urn:p' p:attr='é'><child/></p:root>"
+                .getBytes(StandardCharsets.UTF_8);
+
+        /* Execute */
+        Node<XmlElement> root = new XmlNodeBuilder().build(new ByteArrayInputStream(xml));
+
+        /* Assert */
+        assertEquals("{urn:p}root", root.getContent().getName());
+        assertEquals("é", root.getContent().getAttribute("{urn:p}attr"));
+        assertEquals("child", root.getChildren().get(0).getContent().getName());
+    }
+
+    /**
+     * Tests building from a file.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    @Test
+    public void testBuildFile() throws IOException {
+        /* Execute */
+        Node<XmlElement> root = new XmlNodeBuilder().build(new File("src/test/resources/web.xml"));
+
+        /* Assert */
+        assertEquals("{http://xmlns.jcp.org/xml/ns/javaee}web-app", root.getContent().getName());
+        Node<XmlElement> servlet = root.getChildren().get(0);
+        assertEquals(2, servlet.getChildren().size());
+        assertEquals("org.example.MainServlet", servlet.getChildren().get(1).getContent().getText());
+    }
+
+    /**
+     * Ensures the elements are aligned by identity.
+     *
+     * @throws IOException if the documents cannot be read
+     */
+    @Test
+    public void testAlignment() throws IOException {
+        /* Prepare */
+        XmlNodeBuilder builder = new XmlNodeBuilder();
+        builder.setDefaultIdentityAttributes("id");
+        Node<XmlElement> v1 = parse(builder, "<root><item id='a'>1</item><item id='b'>2</item></root>");
+        Node<XmlElement> v2 = parse(builder, "<root><item id='b'>2</item><item id='a'>3</item></root>");
+
+        /* Execute */
+        Node<Variations<XmlElement>> aligned = new TreeAligner<>(new XmlElementComparator()).alignTrees(v1, v2);
+
+        /* Assert */
+        assertTrue(aligned.getContent().isConstant());
+        assertEquals(2, aligned.getChildren().size());
+        assertFalse(aligned.getChildren().get(0).getContent().isConstant());
+        assertTrue(aligned.getChildren().get(1).getContent().isConstant());
+    }
+
+    /**
+     * Ensures a deep document does not overflow the stack.
+     *
+     * @throws IOException if the document cannot be read
+     */
+    @Test
+    public void testDeepDocument() throws IOException {
+        /* Prepare */
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            xml.append("<e>");
+        }
+        for (int i = 0; i < 50_000; i++) {
+            xml.append("</e>");
+        }
+
+        /* Execute */
+        Node<XmlElement> root = parse(new XmlNodeBuilder(), xml.toString());
+
+        /* Assert */
+        int depth = 0;
+        for (Node<XmlElement> node = root; !node.getChildren().isEmpty(); node = node.getChildren().get(0)) {
+            depth++;
+        }
+        assertEquals(49_999, depth);
+    }
+
+    /**
+     * Ensures malformed documents are rejected.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        parse(new XmlNodeBuilder(), "<root><unclosed></root>");
+    }
+
+    /**
+     * Ensures external entities are not resolved.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expected = IOException.class)
+    public void testExternalEntity() throws IOException {
+        parse(new XmlNodeBuilder(), "<?xml version='1.0'?><!DOCTYPE root [<!ENTITY ext SYSTEM 'file:///etc/passwd'>]>"
+                + "<root>&ext;</root>");
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.xml.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.keyboardplaying.tree.model.Node;
+import org.keyboardplaying.tree.xml.model.XmlElement;
+
+/**
+ * Test class for {@link XmlElementComparator}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class XmlElementComparatorTest {
+
+    private final XmlElementComparator comparator = new XmlElementComparator();
+
+    private static Node<XmlElement> node(String key, int occurrence, String text) {
+        return new Node<>(new XmlElement("item", null, text, key, occurrence, -1));
+    }
+
+    /**
+     * Tests the ordering by key, then occurrence.
+     */
+    @Test
+    public void testCompare() {
+        assertTrue(comparator.compare(node("item[id=a]", 1, null), node("item[id=b]", 0, null)) < 0);
+        assertTrue(comparator.compare(node("item", 2, null), node("item", 1, null)) > 0);
+        // The content does not matter
+        assertEquals(0, comparator.compare(node("item", 0, "1"), node("item", 0, "2")));
+    }
+}
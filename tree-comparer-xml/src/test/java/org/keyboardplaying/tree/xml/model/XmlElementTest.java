@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keyboardplaying.tree.xml.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link XmlElement}.
+ *
+ * @author Cyrille Chopelet (https://keyboardplaying.org)
+ */
+public class XmlElementTest {
+
+    /**
+     * Ensures equality considers the name, attributes and text, but not the identity.
+     */
+    @Test
+    public void testEquals() {
+        /* Prepare */
+        XmlElement element = new XmlElement("item", new String[] { "id", "a" }, "text", "item[id=a]", 0, 1);
+
+        /* Assert */
+        assertEquals(element, new XmlElement("item", new String[] { "id", "a" }, "text", "item", 2, 5));
+        assertEquals(element.hashCode(),
+                new XmlElement("item", new String[] { "id", "a" }, "text", "item", 2, 5).hashCode());
+        assertNotEquals(element, new XmlElement("item", new String[] { "id", "b" }, "text", "item[id=a]", 0, 1));
+        assertNotEquals(element, new XmlElement("item", new String[] { "id", "a" }, null, "item[id=a]", 0, 1));
+        assertNotEquals(element, new XmlElement("other", new String[] { "id", "a" }, "text", "item[id=a]", 0, 1));
+        assertEquals("item[id=a]", element.toString());
+        assertEquals("item#2", new XmlElement("item", null, null, "item", 2, -1).toString());
+        assertTrue(new XmlElement("item", null, null, "item", 0, -1).getAttributes().isEmpty());
+    }
+
+    /**
+     * Ensures the name is required.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testNoName() {
+        new XmlElement(null, null, null, "item", 0, -1);
+    }
+}